@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.List;
 
 @Configuration
@@ -15,4 +17,228 @@ public class ScannerConfig {
     private int maxConcurrentHosts;
     private int rateLimitDelay;
     private List<Integer> commonPorts;
+    
+    // Ports ranked by how often they are found open, for the top<N> port profiles
+    private String topPorts = "classpath:top-ports.txt";
+    
+    // "random" (each job probes explicit ranges and "all" in its own permutation) or "sequential"
+    private String portOrder = "random";
+    
+    // "blocking" (socket per port) or "nio" (selector-based)
+    private String engine = "blocking";
+    
+    private Nio nio = new Nio();
+    
+    private Congestion congestion = new Congestion();
+    
+    private Persistence persistence = new Persistence();
+    
+    // How often live progress of running scans is written back to scan_jobs (ms)
+    private long progressFlushInterval = 2000;
+    
+    private Stream stream = new Stream();
+    
+    // Identifies this replica as the owner of the jobs it runs; the pod name under Kubernetes
+    private String instanceId = defaultInstanceId();
+    
+    // How often running scans persist a resumable checkpoint (ms)
+    private long checkpointInterval = 30000;
+    
+    private Recovery recovery = new Recovery();
+    
+    // "local" (the instance that accepted the scan runs all of it) or
+    // "queue" (the scan is split into scan_work_units shared by all replicas)
+    private String execution = "local";
+    
+    private WorkQueue workQueue = new WorkQueue();
+    
+    private Schedule schedule = new Schedule();
+    
+    private Admission admission = new Admission();
+    
+    private Banner banner = new Banner();
+    
+    private Tls tls = new Tls();
+    
+    private Udp udp = new Udp();
+    
+    private Discovery discovery = new Discovery();
+    
+    private Timing timing = new Timing();
+    
+    private Rescan rescan = new Rescan();
+    
+    private Dashboard dashboard = new Dashboard();
+    
+    // Service fingerprint database (default port names and banner signatures)
+    private String fingerprints = "classpath:service-fingerprints.txt";
+    
+    @Data
+    public static class Nio {
+        private int selectorThreads = 2;
+        private int maxInFlight = 4096;
+    }
+    
+    @Data
+    public static class Congestion {
+        private int initialWindow = 32;
+        private int minWindow = 8;
+        // FILTERED ratio per round above which the window is cut
+        private double timeoutThreshold = 0.5;
+    }
+    
+    @Data
+    public static class Persistence {
+        // "rows" (one port_results row per port) or "bitmap" (CLOSED/FILTERED as port_bitmaps)
+        private String mode = "rows";
+        private int batchSize = 500;
+        private int queueCapacity = 10000;
+    }
+    
+    @Data
+    public static class Stream {
+        // Events buffered per SSE client before it starts dropping
+        private int bufferSize = 1000;
+        private long timeout = 1800000;
+        // How often subscribers of scans not running here get the job's progress from the database (ms)
+        private long pollInterval = 2000;
+    }
+    
+    @Data
+    public static class Recovery {
+        // How often to look for jobs whose owner stopped sending heartbeats (ms)
+        private long interval = 60000;
+        // Heartbeat age after which a PENDING / RUNNING job is considered orphaned (ms)
+        private long staleAfter = 90000;
+    }
+    
+    @Data
+    public static class WorkQueue {
+        // Probes (hosts x ports) per work unit
+        private int unitSize = 4096;
+        // Work units this instance runs at the same time
+        private int workerSlots = 4;
+        private long pollInterval = 1000;
+        private long heartbeatInterval = 10000;
+        // Heartbeat age after which a claimed unit goes back to the queue (ms)
+        private long staleAfter = 60000;
+        private int maxAttempts = 3;
+    }
+    
+    @Data
+    public static class Schedule {
+        // How often the next due time is re-read, to pick up schedules saved by other replicas (ms)
+        private long resyncInterval = 60000;
+        // Due schedules claimed per query while dispatching
+        private int dispatchBatch = 100;
+        // How long a claimed schedule stays reserved for the replica firing it (ms)
+        private long lease = 300000;
+        // Random delay added to every timer so replicas don't all query at the same instant (ms)
+        private long jitter = 2000;
+    }
+    
+    @Data
+    public static class Admission {
+        // Scans running at once in this instance; the rest wait in the admission queue
+        private int maxConcurrentScans = 4;
+        // Scans of the same target running at once
+        private int maxScansPerTarget = 1;
+        // Probes in flight across all scans of this instance
+        private int probeBudget = 4096;
+        // Queue time after which a scheduled scan is admitted like an ad-hoc one (ms)
+        private long promoteAfter = 600000;
+        // Heartbeat of queued jobs, must stay well below recovery.stale-after (ms)
+        private long heartbeatInterval = 10000;
+    }
+    
+    @Data
+    public static class Banner {
+        // Grab banners of OPEN ports; when off, OPEN ports are reported by port number only
+        private boolean enabled = true;
+        // Banner grabs in flight across all scans of this instance; further OPEN ports queue up
+        private int maxConcurrent = 256;
+        private int connectTimeout = 1000;
+        // How long a silent service is given to say something (ms)
+        private int readTimeout = 2000;
+        // Pause after which an answer in an unrecognised protocol is taken as complete (ms)
+        private int idleTimeout = 300;
+        // Bytes kept per banner; one pooled buffer of this size per concurrent grab
+        private int maxBytes = 1024;
+    }
+    
+    @Data
+    public static class Tls {
+        // Handshake on implicit TLS ports (443, 8443, 465, 993, 995) and upgrade STARTTLS ports
+        private boolean enabled = true;
+        private boolean starttls = true;
+        // Handshakes in progress at once, across all scans
+        private int maxConcurrent = 64;
+        // Resumable sessions kept, keyed by host and port
+        private int sessionCacheSize = 10000;
+        private int sessionTimeout = 3600;  // seconds
+    }
+    
+    @Data
+    public static class Udp {
+        // Unconnected sockets all UDP probes are multiplexed over
+        private int channels = 4;
+        private int maxInFlight = 4096;
+        // Retransmissions of a silent probe before the port is reported as open|filtered
+        private int retries = 2;
+        // Retransmission timeout before a host has answered anything, and its floor (ms)
+        private int initialRto = 500;
+        private int minRto = 50;
+        private int maxReplyBytes = 1024;
+    }
+    
+    @Data
+    public static class Discovery {
+        // Default for scans that do not set hostDiscovery
+        private boolean enabled = false;
+        // A host accepting or refusing a connect on any of these is up
+        private List<Integer> canaryPorts = List.of(80, 443, 22, 445, 3389);
+        private int timeout = 1000;
+        // Then try InetAddress.isReachable (ICMP echo if permitted, else TCP port 7)
+        private boolean reachableFallback = true;
+    }
+    
+    @Data
+    public static class Timing {
+        // Connect timeouts follow each host's measured RTT (SRTT + 4 RTTVAR), between
+        // min-timeout and the scan's timeout; off means the scan's timeout for every probe
+        private boolean adaptive = true;
+        private int minTimeout = 100;
+        // Extra passes over ports that timed out, each with twice the previous timeout
+        private int retries = 1;
+    }
+    
+    @Data
+    public static class Rescan {
+        // Ports of the range beyond the known-open ones probed by each verify-known-open scan;
+        // successive scans take successive slices, so the whole range is refreshed every
+        // (range size / sweep-ports) scans
+        private int sweepPorts = 4096;
+    }
+    
+    @Data
+    public static class Dashboard {
+        // How long /api/dashboard/stats answers from memory before reading the counters again (ms)
+        private long cacheTtl = 5000;
+        // Newest scans of the last 7 days listed with the stats
+        private int recentScans = 20;
+        // How often the counter deltas appended by job writes are summed into one row per key (ms)
+        private long compactInterval = 60000;
+    }
+    
+    private static String defaultInstanceId() {
+        String host = System.getenv("HOSTNAME");
+        if (host == null || host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "unknown";
+            }
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
 }
@@ -1,17 +1,31 @@
 package com.security.scanner.controller;
 
+import com.security.scanner.dto.PortResultPage;
+import com.security.scanner.dto.PortSetView;
+import com.security.scanner.dto.QueuedScanView;
+import com.security.scanner.dto.RunningScanView;
+import com.security.scanner.dto.ScanChangeView;
 import com.security.scanner.dto.ScanRequest;
 import com.security.scanner.dto.ScanResponse;
+import com.security.scanner.model.PortResult;
 import com.security.scanner.model.ScanJob;
 import com.security.scanner.service.ScanJobService;
+import com.security.scanner.service.ScanResultService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/scans")
@@ -20,6 +34,7 @@ import org.springframework.web.bind.annotation.*;
 public class ScanController {
     
     private final ScanJobService scanJobService;
+    private final ScanResultService scanResultService;
     
     @PostMapping
     @Operation(summary = "Start a new port scan")
@@ -28,6 +43,40 @@ public class ScanController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/running")
+    @Operation(summary = "List scans running on this instance with their resource usage")
+    public ResponseEntity<List<RunningScanView>> getRunningScans() {
+        List<RunningScanView> scans = scanJobService.getRunningScans();
+        return ResponseEntity.ok(scans);
+    }
+    
+    @GetMapping("/queue")
+    @Operation(summary = "List scans waiting for admission on this instance, in admission order")
+    public ResponseEntity<List<QueuedScanView>> getQueuedScans() {
+        List<QueuedScanView> scans = scanJobService.getQueuedScans();
+        return ResponseEntity.ok(scans);
+    }
+    
+    @GetMapping("/changes")
+    @Operation(summary = "Feed of changes found by completed diff-mode scans, optionally of one target",
+               description = "Keyset pagination: pass the last change id as 'after'")
+    public ResponseEntity<List<ScanChangeView>> getChangeFeed(
+            @RequestParam(required = false) String target,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        List<ScanChangeView> changes = scanResultService.getChangeFeed(
+                target, since != null ? since : LocalDateTime.now().minusDays(7), after, limit);
+        return ResponseEntity.ok(changes);
+    }
+    
+    @PostMapping("/{jobId}/cancel")
+    @Operation(summary = "Cancel a pending or running scan, keeping partial results")
+    public ResponseEntity<ScanResponse> cancelScan(@PathVariable Long jobId) {
+        ScanResponse response = scanJobService.cancelScan(jobId);
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/{jobId}")
     @Operation(summary = "Get scan status")
     public ResponseEntity<ScanResponse> getScanStatus(@PathVariable Long jobId) {
@@ -35,13 +84,65 @@ public class ScanController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping(value = "/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream scan results and progress as Server-Sent Events")
+    public ResponseEntity<SseEmitter> streamScan(@PathVariable Long jobId) {
+        SseEmitter emitter = scanJobService.streamScan(jobId);
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")  // keep nginx from buffering the stream
+                .body(emitter);
+    }
+    
     @GetMapping("/{jobId}/results")
-    @Operation(summary = "Get scan results")
+    @Operation(summary = "Get a scan job with its counters",
+               description = "The port results themselves are paged by /ports or streamed by /ports/export")
     public ResponseEntity<ScanJob> getScanResults(@PathVariable Long jobId) {
         ScanJob job = scanJobService.getScanResults(jobId);
         return ResponseEntity.ok(job);
     }
     
+    @GetMapping("/{jobId}/ports")
+    @Operation(summary = "Get scan results page by page, optionally filtered by status",
+               description = "Keyset pagination: pass nextCursor as 'after'. format=columns returns column arrays")
+    public ResponseEntity<PortResultPage> getPorts(
+            @PathVariable Long jobId,
+            @RequestParam(required = false) List<PortResult.PortStatus> status,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "rows") String format) {
+        PortResultPage page = scanResultService.getPorts(jobId, status, after, limit, format);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping(value = "/{jobId}/ports/export", produces = "application/x-ndjson")
+    @Operation(summary = "Stream all scan results as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportPorts(
+            @PathVariable Long jobId,
+            @RequestParam(required = false) List<PortResult.PortStatus> status) {
+        StreamingResponseBody body = scanResultService.exportPorts(jobId, status);
+        return ResponseEntity.ok(body);
+    }
+    
+    @GetMapping("/{jobId}/changes")
+    @Operation(summary = "Get the changes from the baseline found by a diff-mode scan",
+               description = "Keyset pagination: pass the last change id as 'after'")
+    public ResponseEntity<List<ScanChangeView>> getChanges(
+            @PathVariable Long jobId,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        List<ScanChangeView> changes = scanResultService.getChanges(jobId, after, limit);
+        return ResponseEntity.ok(changes);
+    }
+    
+    @GetMapping("/{jobId}/port-sets")
+    @Operation(summary = "Get CLOSED / FILTERED port sets of a compact scan as port ranges")
+    public ResponseEntity<List<PortSetView>> getPortSets(
+            @PathVariable Long jobId,
+            @RequestParam(required = false) List<PortResult.PortStatus> status) {
+        List<PortSetView> sets = scanResultService.getPortSets(jobId, status);
+        return ResponseEntity.ok(sets);
+    }
+    
     @GetMapping
     @Operation(summary = "Get all scans with pagination")
     public ResponseEntity<Page<ScanJob>> getAllScans(Pageable pageable) {
@@ -0,0 +1,47 @@
+package com.security.scanner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.security.scanner.model.PortResult;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PortResultPage {
+    private Long jobId;
+    private Integer count;
+    
+    // Pass as "after" to fetch the next page; null on the last page. The CLOSED / FILTERED ports
+    // of a compact job follow its stored rows, with negative ids that work as cursors all the same
+    private Long nextCursor;
+    
+    // Populated for format=rows
+    private List<PortResultView> items;
+    
+    // Populated for format=columns
+    private Columns columns;
+    
+    @Data
+    @Builder
+    public static class Columns {
+        private List<Long> ids;
+        private List<String> hosts;
+        private List<Integer> ports;
+        private List<PortResult.PortStatus> statuses;
+        private List<String> services;
+        private List<String> versions;
+        private List<String> banners;
+        private List<Integer> responseTimes;
+        private List<String> errorMessages;
+        private List<String> tlsProtocols;
+        private List<String> tlsCiphers;
+        private List<String> certSubjects;
+        private List<String> certIssuers;
+        private List<String> certSubjectAltNames;
+        private List<LocalDateTime> certNotAfters;
+    }
+}
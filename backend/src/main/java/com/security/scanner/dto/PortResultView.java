@@ -0,0 +1,31 @@
+package com.security.scanner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.security.scanner.model.PortResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PortResultView {
+    private Long id;
+    private String host;
+    private Integer port;
+    private PortResult.PortStatus status;
+    private String service;
+    private String version;
+    private String banner;
+    private Integer responseTime;
+    private String errorMessage;
+    private String tlsProtocol;
+    private String tlsCipher;
+    private String certSubject;
+    private String certIssuer;
+    private String certSubjectAltNames;
+    private LocalDateTime certNotAfter;
+}
@@ -0,0 +1,14 @@
+package com.security.scanner.dto;
+
+import com.security.scanner.model.PortResult;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PortSetView {
+    private String host;
+    private PortResult.PortStatus status;
+    private Integer count;
+    private String ports;  // e.g. "1-20,23,26-79"
+}
@@ -0,0 +1,17 @@
+package com.security.scanner.dto;
+
+import com.security.scanner.model.ScanJob;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class QueuedScanView {
+    private Long jobId;
+    private String target;
+    private Integer ports;
+    private ScanJob.Priority priority;
+    // 1-based place in the admission order; scans of a target at its limit keep their place
+    private Integer position;
+    private Long waitingMillis;
+}
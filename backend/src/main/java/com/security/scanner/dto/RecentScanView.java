@@ -0,0 +1,22 @@
+package com.security.scanner.dto;
+
+import com.security.scanner.model.ScanJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecentScanView {
+    private Long id;
+    private String target;
+    private String portRange;
+    private ScanJob.ScanStatus status;
+    private Integer progress;
+    private Integer openPorts;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
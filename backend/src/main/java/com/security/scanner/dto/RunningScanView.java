@@ -0,0 +1,29 @@
+package com.security.scanner.dto;
+
+import com.security.scanner.model.ScanJob;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RunningScanView {
+    private Long jobId;
+    // Set for a work unit of a distributed job; the other units may run on other replicas
+    private Long workUnitId;
+    private String target;
+    private String portRange;
+    private ScanJob.Protocol protocol;
+    private Integer progress;
+    private Integer scannedPorts;
+    private Integer totalPorts;
+    private Boolean cancelled;
+    private Long elapsedMillis;
+    
+    // Resource usage: host workers and banner grabs each hold a virtual thread,
+    // probes and banner grabs each hold a socket
+    private Integer activeHosts;
+    private Integer probesInFlight;
+    private Integer bannerGrabsInFlight;
+    private Long probesCompleted;
+    private Double probesPerSecond;
+}
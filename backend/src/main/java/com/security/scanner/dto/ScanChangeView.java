@@ -0,0 +1,30 @@
+package com.security.scanner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScanChangeView {
+    private Long id;
+    private Long jobId;
+    private String target;
+    private String host;
+    private Integer port;
+    private ScanChange.ChangeType changeType;
+    private PortResult.PortStatus status;
+    private String previousService;
+    private String service;
+    private String previousVersion;
+    private String version;
+    private String banner;
+    private LocalDateTime detectedAt;
+}
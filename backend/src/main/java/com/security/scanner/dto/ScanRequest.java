@@ -1,5 +1,7 @@
 package com.security.scanner.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
@@ -8,19 +10,38 @@ import lombok.Data;
 public class ScanRequest {
     
     @NotBlank(message = "Target cannot be empty")
-    @Pattern(regexp = "^([0-9]{1,3}\\.){3}[0-9]{1,3}$|^([a-zA-Z0-9]([a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?\\.)+[a-zA-Z]{2,}$",
-            message = "Invalid IP address or hostname")
+    @Pattern(regexp = "^([0-9]{1,3}\\.){3}[0-9]{1,3}(/[0-9]{1,2}|-([0-9]{1,3}\\.){3}[0-9]{1,3}|-[0-9]{1,3})?$|^([a-zA-Z0-9]([a-zA-Z0-9\\-]{0,61}[a-zA-Z0-9])?\\.)+[a-zA-Z]{2,}$",
+            message = "Invalid target. Use an IP address, hostname, CIDR (10.0.0.0/24) or range (10.0.1.5-10.0.1.200)")
     private String target;
     
     @NotBlank(message = "Port range cannot be empty")
-    @Pattern(regexp = "^([0-9]+(-[0-9]+)?)(,([0-9]+(-[0-9]+)?))*$|^common$|^all$",
-            message = "Invalid port range format. Use: 80,443,8080-8090 or 'common' or 'all'")
+    @Pattern(regexp = "^([0-9]+(-[0-9]+)?)(,([0-9]+(-[0-9]+)?))*$|^common$|^top[0-9]+$|^all$",
+            message = "Invalid port range format. Use: 80,443,8080-8090 or 'common', 'top100', 'top1000' or 'all'")
     private String portRange;
     
+    @Pattern(regexp = "^(?i)(tcp|udp)$", message = "Invalid protocol. Use 'tcp' or 'udp'")
+    private String protocol;  // Default: tcp
+    
+    // Longest a probe waits for an answer (ms); defaults to scanner.default-timeout
+    @Min(value = 100, message = "Timeout must be at least 100 ms")
+    @Max(value = 60000, message = "Timeout must be at most 60000 ms")
     private Integer timeout;
     
     // NEW: Option to include closed/filtered ports
     private Boolean includeClosedPorts = true;  // Default: show all
     
     private Boolean includeFilteredPorts = true;  // Default: show all
+    
+    // Skip hosts that answer none of the discovery probes; defaults to scanner.discovery.enabled
+    private Boolean hostDiscovery;
+    
+    // Store only changes from the last completed diff-mode scan of the same target and port range
+    private Boolean diffMode;
+    
+    // Probe only the ports the last completed scan of the target and port range found open, then
+    // the next scanner.rescan.sweep-ports ports of the range after those the previous rescan swept
+    private Boolean verifyOpen;
+    
+    // Store CLOSED / FILTERED ports as compressed bitmaps; defaults to scanner.persistence.mode
+    private Boolean compactResults;
 }
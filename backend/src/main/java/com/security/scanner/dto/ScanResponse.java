@@ -12,8 +12,10 @@ public class ScanResponse {
     private Long jobId;
     private String target;
     private String portRange;
+    private ScanJob.Protocol protocol;
     private ScanJob.ScanStatus status;
     private Integer progress;
+    private Integer totalHosts;
     private Integer totalPorts;
     private Integer scannedPorts;
     
@@ -22,6 +24,16 @@ public class ScanResponse {
     private Integer closedPorts;
     private Integer filteredPorts;
     
+    // Diff mode: the baseline job compared with (null while seeding) and the changes found
+    private Boolean diffMode;
+    private Long baselineJobId;
+    private Integer changedPorts;
+    
+    // Verify-known-open rescan: the slice of the port range swept after the known-open ports
+    private Boolean verifyOpen;
+    private Integer sweepOffset;
+    private Integer sweepCount;
+    
     private LocalDateTime createdAt;
     private LocalDateTime completedAt;
     
@@ -16,8 +16,17 @@ public class ScheduledScanRequest {
     @NotBlank(message = "Port range cannot be empty")
     private String portRange;
     
+    @Pattern(regexp = "^(?i)(tcp|udp)$", message = "Invalid protocol. Use 'tcp' or 'udp'")
+    private String protocol;  // Default: tcp
+    
     @NotBlank(message = "Cron expression cannot be empty")
     @Pattern(regexp = "^(@(annually|yearly|monthly|weekly|daily|hourly|reboot))|(@every (\\d+(ns|us|µs|ms|s|m|h))+)|((((\\d+,)+\\d+|(\\d+([/\\-])\\d+)|\\d+|\\*) ?){5,7})$",
             message = "Invalid cron expression")
     private String cronExpression;
+    
+    // Store only the changes since the previous run
+    private Boolean diffMode;
+    
+    // Re-probe the known-open ports and a rotating slice of the range instead of all of it
+    private Boolean verifyOpen;
 }
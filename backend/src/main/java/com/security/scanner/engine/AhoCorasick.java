@@ -0,0 +1,174 @@
+package com.security.scanner.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over bytes: finds every occurrence of every pattern in one pass over
+ * the input, however many patterns there are. Matching folds ASCII letters to lower case;
+ * callers that need an exact match verify the hit themselves.
+ * <p>
+ * The root's transitions are a full 256-entry table; other nodes keep their few children in
+ * parallel sorted arrays, which keeps large pattern sets small.
+ */
+public final class AhoCorasick {
+
+    @FunctionalInterface
+    public interface HitHandler {
+        /**
+         * @param pattern index of the pattern, in the order it was added
+         * @param end     index just past the last byte of the occurrence
+         */
+        void hit(int pattern, int end);
+    }
+
+    private final int[] rootNext;
+    private final byte[][] labels;
+    private final int[][] children;
+    private final int[] fail;
+    // Nearest node on the failure chain that ends a pattern, or -1
+    private final int[] outputLink;
+    private final int[][] outputs;
+
+    private AhoCorasick(Builder builder) {
+        int size = builder.nodes.size();
+        labels = new byte[size][];
+        children = new int[size][];
+        fail = new int[size];
+        outputLink = new int[size];
+        outputs = new int[size][];
+        for (int i = 0; i < size; i++) {
+            Builder.Node node = builder.nodes.get(i);
+            labels[i] = node.labels;
+            children[i] = node.children;
+            outputs[i] = node.outputs;
+        }
+        rootNext = new int[256];
+        for (int b = 0; b < 256; b++) {
+            int child = child(0, (byte) b);
+            rootNext[b] = Math.max(child, 0);
+        }
+        linkFailures();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void search(byte[] text, HitHandler handler) {
+        int state = 0;
+        for (int i = 0; i < text.length; i++) {
+            byte b = fold(text[i]);
+            state = step(state, b);
+            for (int node = outputs[state].length > 0 ? state : outputLink[state]; node > 0; node = outputLink[node]) {
+                for (int pattern : outputs[node]) {
+                    handler.hit(pattern, i + 1);
+                }
+            }
+        }
+    }
+
+    private int step(int state, byte b) {
+        while (state != 0) {
+            int next = child(state, b);
+            if (next >= 0) {
+                return next;
+            }
+            state = fail[state];
+        }
+        return rootNext[b & 0xff];
+    }
+
+    private int child(int node, byte b) {
+        int index = Arrays.binarySearch(labels[node], b);
+        return index >= 0 ? children[node][index] : -1;
+    }
+
+    private void linkFailures() {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputLink[0] = -1;
+        for (int child : children[0]) {
+            fail[child] = 0;
+            outputLink[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < children[node].length; i++) {
+                int child = children[node][i];
+                int target = step(fail[node], labels[node][i]);
+                fail[child] = target;
+                outputLink[child] = outputs[target].length > 0 ? target : outputLink[target];
+                queue.add(child);
+            }
+        }
+    }
+
+    private static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    public static final class Builder {
+
+        private final List<Node> nodes = new ArrayList<>(List.of(new Node()));
+        private int patterns;
+
+        /**
+         * Adds a non-empty pattern and returns its index.
+         */
+        public int add(byte[] pattern) {
+            if (pattern.length == 0) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            int node = 0;
+            for (byte b : pattern) {
+                node = nodes.get(node).childOrCreate(fold(b), nodes);
+            }
+            Node end = nodes.get(node);
+            end.outputs = Arrays.copyOf(end.outputs, end.outputs.length + 1);
+            end.outputs[end.outputs.length - 1] = patterns;
+            return patterns++;
+        }
+
+        public AhoCorasick build() {
+            return new AhoCorasick(this);
+        }
+
+        private static final class Node {
+            private byte[] labels = new byte[0];
+            private int[] children = new int[0];
+            private int[] outputs = new int[0];
+
+            private int childOrCreate(byte b, List<Node> nodes) {
+                int index = Arrays.binarySearch(labels, b);
+                if (index >= 0) {
+                    return children[index];
+                }
+                int insert = -index - 1;
+                int created = nodes.size();
+                nodes.add(new Node());
+                labels = insertAt(labels, insert, b);
+                children = insertAt(children, insert, created);
+                return created;
+            }
+
+            private static byte[] insertAt(byte[] array, int index, byte value) {
+                byte[] grown = new byte[array.length + 1];
+                System.arraycopy(array, 0, grown, 0, index);
+                grown[index] = value;
+                System.arraycopy(array, index, grown, index + 1, array.length - index);
+                return grown;
+            }
+
+            private static int[] insertAt(int[] array, int index, int value) {
+                int[] grown = new int[array.length + 1];
+                System.arraycopy(array, 0, grown, 0, index);
+                grown[index] = value;
+                System.arraycopy(array, index, grown, index + 1, array.length - index);
+                return grown;
+            }
+        }
+    }
+}
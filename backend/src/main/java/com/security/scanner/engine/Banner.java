@@ -0,0 +1,22 @@
+package com.security.scanner.engine;
+
+/**
+ * What a service said when probed: the raw bytes, and the TLS session details if the
+ * conversation was encrypted (implicitly or after STARTTLS).
+ */
+public record Banner(byte[] data, TlsDetails tls) {
+
+    public static final Banner NONE = new Banner(new byte[0], null);
+
+    public static Banner plain(byte[] data) {
+        return new Banner(data, null);
+    }
+
+    /**
+     * True if the bytes were read inside an implicit TLS session (HTTPS, IMAPS, ...), as opposed
+     * to a plaintext greeting that came before STARTTLS.
+     */
+    public boolean isEncrypted() {
+        return tls != null && !tls.starttls();
+    }
+}
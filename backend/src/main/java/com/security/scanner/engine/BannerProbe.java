@@ -0,0 +1,103 @@
+package com.security.scanner.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * What to send to a freshly connected service and how to tell that its answer is complete,
+ * so the reader can stop as soon as the banner is in rather than waiting for the read timeout.
+ * Ports whose protocol runs over TLS, or can be upgraded to it, also say how to get there.
+ */
+public record BannerProbe(byte[] request, Framing framing, Tls tls) {
+
+    private static final byte[] NOTHING = new byte[0];
+    private static final byte[] HTTP_GET = ascii("GET / HTTP/1.0\r\n\r\n");
+
+    // PostgreSQL only speaks after a startup packet; SSLRequest is answered with a single 'S' or 'N'
+    private static final byte[] PG_SSL_REQUEST = {0, 0, 0, 8, 0x04, (byte) 0xd2, 0x16, 0x2f};
+
+    public enum Framing {
+        // Up to the first line feed (greeting-first protocols such as SSH, FTP, SMTP)
+        LINE,
+        // Up to the blank line ending the response headers
+        HTTP_HEADERS,
+        // One length-prefixed MySQL protocol packet (the server handshake)
+        MYSQL_PACKET,
+        SINGLE_BYTE,
+        // Unknown protocol: whatever arrives until the service pauses, closes or fills the buffer
+        IDLE
+    }
+
+    public enum Tls {
+        NONE,
+        // TLS from the first byte; the probe's request is sent inside the session
+        IMPLICIT,
+        // Plaintext greeting, then the protocol's STARTTLS command
+        SMTP, POP3, IMAP, FTP
+    }
+
+    public static BannerProbe forPort(int port) {
+        return switch (port) {
+            case 80, 8000, 8008, 8080, 8888 -> new BannerProbe(HTTP_GET, Framing.HTTP_HEADERS, Tls.NONE);
+            case 443, 8443 -> new BannerProbe(HTTP_GET, Framing.HTTP_HEADERS, Tls.IMPLICIT);
+            case 465, 993, 995 -> new BannerProbe(NOTHING, Framing.LINE, Tls.IMPLICIT);
+            case 21 -> new BannerProbe(NOTHING, Framing.LINE, Tls.FTP);
+            case 25, 587 -> new BannerProbe(NOTHING, Framing.LINE, Tls.SMTP);
+            case 110 -> new BannerProbe(NOTHING, Framing.LINE, Tls.POP3);
+            case 143 -> new BannerProbe(NOTHING, Framing.LINE, Tls.IMAP);
+            case 22 -> new BannerProbe(NOTHING, Framing.LINE, Tls.NONE);
+            case 6379 -> new BannerProbe(ascii("PING\r\n"), Framing.LINE, Tls.NONE);
+            case 3306 -> new BannerProbe(NOTHING, Framing.MYSQL_PACKET, Tls.NONE);
+            case 5432 -> new BannerProbe(PG_SSL_REQUEST, Framing.SINGLE_BYTE, Tls.NONE);
+            default -> new BannerProbe(ascii("\r\n"), Framing.IDLE, Tls.NONE);
+        };
+    }
+
+    /**
+     * The same probe spoken in plaintext, for when the TLS handshake fails.
+     */
+    public BannerProbe plaintext() {
+        return tls == Tls.NONE ? this : new BannerProbe(request, framing, Tls.NONE);
+    }
+
+    /**
+     * True once {@code data} (the bytes read so far, from index 0 to its limit) holds a complete
+     * answer. Uses absolute reads only, so the buffer's position is left alone.
+     */
+    public boolean isComplete(ByteBuffer data) {
+        int length = data.limit();
+        return switch (framing) {
+            case LINE -> indexOf(data, (byte) '\n', 0) >= 0;
+            case HTTP_HEADERS -> endOfHeaders(data, length);
+            case MYSQL_PACKET -> length >= 4
+                    && length >= 4 + ((data.get(0) & 0xff) | (data.get(1) & 0xff) << 8 | (data.get(2) & 0xff) << 16);
+            case SINGLE_BYTE -> length >= 1;
+            case IDLE -> false;
+        };
+    }
+
+    private static boolean endOfHeaders(ByteBuffer data, int length) {
+        for (int i = indexOf(data, (byte) '\n', 0); i >= 0; i = indexOf(data, (byte) '\n', i + 1)) {
+            if (i + 1 < length && data.get(i + 1) == '\n') {
+                return true;
+            }
+            if (i + 2 < length && data.get(i + 1) == '\r' && data.get(i + 2) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(ByteBuffer data, byte value, int from) {
+        for (int i = from; i < data.limit(); i++) {
+            if (data.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String request) {
+        return request.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,255 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads service banners as raw bytes over non-blocking channels on one selector thread.
+ * Each grab reads into a pooled direct buffer of {@code scanner.banner.max-bytes} and stops at
+ * the probe's terminator, end of stream, a full buffer, or a timeout, whichever comes first.
+ * The pool holds one buffer per allowed concurrent grab, so memory stays fixed under any load;
+ * callers must keep at most {@code scanner.banner.max-concurrent} grabs in flight.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BannerReader {
+
+    private static final byte[] NOTHING = new byte[0];
+
+    private final ScannerConfig config;
+
+    private final Queue<Grab> registrations = new ConcurrentLinkedQueue<>();
+    // Owned by the loop thread
+    private final List<Grab> active = new ArrayList<>();
+    private BufferPool buffers;
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() throws IOException {
+        ScannerConfig.Banner banner = config.getBanner();
+        buffers = new BufferPool(Math.max(1, banner.getMaxConcurrent()), Math.max(1, banner.getMaxBytes()));
+        selector = Selector.open();
+        thread = new Thread(this::run, "banner-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Connects, sends the probe's request and completes with the bytes received, which are empty
+     * if the connection failed or the service said nothing in time. Never completes exceptionally.
+     */
+    public CompletableFuture<byte[]> read(InetSocketAddress address, BannerProbe probe) {
+        ScannerConfig.Banner banner = config.getBanner();
+        Grab grab = new Grab(probe, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(banner.getConnectTimeout()));
+        if (!running) {
+            grab.complete(buffers);
+            return grab.future;
+        }
+        try {
+            grab.buffer = buffers.acquire();
+            grab.channel = SocketChannel.open();
+            grab.channel.configureBlocking(false);
+            grab.channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+            grab.channel.connect(address);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Banner connect failed for {}: {}", address, e.getMessage());
+            grab.complete(buffers);
+            return grab.future;
+        }
+        registrations.add(grab);
+        selector.wakeup();
+        // The loop may have drained the queue for the last time since the check above
+        if (!running && registrations.remove(grab)) {
+            grab.complete(buffers);
+        }
+        return grab.future;
+    }
+
+    private void run() {
+        LoopBackoff backoff = new LoopBackoff("Banner reader");
+        try {
+            while (running) {
+                try {
+                    registerPending();
+                    selector.select(selectTimeoutMillis());
+                    processSelected();
+                    expireTimedOut();
+                    backoff.succeeded();
+                } catch (ClosedSelectorException e) {
+                    log.error("Banner reader stopped: its selector was closed");
+                    break;
+                } catch (IOException | RuntimeException e) {
+                    // Keep reading: grabs already registered would otherwise never complete
+                    backoff.failed(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        Grab grab;
+        while ((grab = registrations.poll()) != null) {
+            grab.complete(buffers);
+        }
+        active.forEach(pending -> pending.complete(buffers));
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // shutting down anyway
+        }
+    }
+
+    private void registerPending() {
+        Grab grab;
+        while ((grab = registrations.poll()) != null) {
+            try {
+                grab.key = grab.channel.register(selector, SelectionKey.OP_CONNECT, grab);
+                active.add(grab);
+            } catch (ClosedChannelException | RuntimeException e) {
+                grab.complete(buffers);
+            }
+        }
+    }
+
+    private long selectTimeoutMillis() {
+        if (active.isEmpty()) {
+            return 0; // block until woken up
+        }
+        long next = Long.MAX_VALUE;
+        for (Grab grab : active) {
+            next = Math.min(next, grab.deadlineNanos);
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime()));
+    }
+
+    private void processSelected() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Grab grab = (Grab) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    connected(grab);
+                } else if (key.isWritable()) {
+                    write(grab);
+                } else if (key.isReadable()) {
+                    read(grab);
+                }
+            } catch (IOException e) {
+                // Refused, reset or unreachable: keep whatever arrived before
+                grab.complete(buffers);
+            } catch (RuntimeException e) {
+                // Cancelled key or a probe that failed to frame the reply
+                log.debug("Banner grab failed: {}", e.toString());
+                grab.complete(buffers);
+            }
+        }
+        active.removeIf(grab -> grab.future.isDone());
+    }
+
+    private void connected(Grab grab) throws IOException {
+        if (!grab.channel.finishConnect()) {
+            return;
+        }
+        grab.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBanner().getReadTimeout());
+        grab.request = ByteBuffer.wrap(grab.probe.request());
+        write(grab);
+    }
+
+    private void write(Grab grab) throws IOException {
+        grab.channel.write(grab.request);
+        grab.key.interestOps(grab.request.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void read(Grab grab) throws IOException {
+        int read = grab.channel.read(grab.buffer);
+        if (read < 0 || !grab.buffer.hasRemaining() || grab.probe.isComplete(grab.buffer.duplicate().flip())) {
+            grab.complete(buffers);
+        } else if (read > 0 && grab.probe.framing() == BannerProbe.Framing.IDLE) {
+            // Unframed protocols end when the service pauses
+            grab.deadlineNanos = Math.min(grab.deadlineNanos,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBanner().getIdleTimeout()));
+        }
+    }
+
+    private void expireTimedOut() {
+        long now = System.nanoTime();
+        for (Grab grab : active) {
+            if (grab.deadlineNanos - now <= 0) {
+                grab.complete(buffers);
+            }
+        }
+        active.removeIf(grab -> grab.future.isDone());
+    }
+
+    private static final class Grab {
+        private final BannerProbe probe;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private long deadlineNanos;
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer buffer;
+        private ByteBuffer request;
+
+        private Grab(BannerProbe probe, long deadlineNanos) {
+            this.probe = probe;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Copies out what was read, returns the buffer to the pool before anyone is told, and closes.
+         */
+        private void complete(BufferPool buffers) {
+            if (future.isDone()) {
+                return;
+            }
+            byte[] data = NOTHING;
+            if (buffer != null) {
+                buffer.flip();
+                data = new byte[buffer.remaining()];
+                buffer.get(data);
+                buffers.release(buffer);
+                buffer = null;
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            }
+            future.complete(data);
+        }
+    }
+}
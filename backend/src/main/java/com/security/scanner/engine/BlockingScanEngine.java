@@ -0,0 +1,57 @@
+package com.security.scanner.engine;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * One virtual thread and one blocking socket per probe.
+ */
+@Component
+@ConditionalOnProperty(prefix = "scanner", name = "engine", havingValue = "blocking", matchIfMissing = true)
+@Slf4j
+public class BlockingScanEngine implements ScanEngine {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Override
+    public CompletableFuture<ProbeResult> probe(InetAddress address, int port, int timeoutMs) {
+        return CompletableFuture.supplyAsync(() -> connect(address, port, timeoutMs), executor);
+    }
+
+    private ProbeResult connect(InetAddress address, int port, int timeoutMs) {
+        long startTime = System.currentTimeMillis();
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(address, port), timeoutMs);
+            return ProbeResult.open(port, (int) (System.currentTimeMillis() - startTime));
+
+        } catch (SocketTimeoutException e) {
+            // Port is FILTERED (firewall blocking, no response)
+            return ProbeResult.filtered(port, (int) (System.currentTimeMillis() - startTime));
+
+        } catch (ConnectException e) {
+            // Port is CLOSED (connection refused - RST packet)
+            return ProbeResult.closed(port, (int) (System.currentTimeMillis() - startTime));
+
+        } catch (IOException e) {
+            return ProbeResult.error(port, (int) (System.currentTimeMillis() - startTime), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
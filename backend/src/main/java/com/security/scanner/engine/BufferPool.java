@@ -0,0 +1,50 @@
+package com.security.scanner.engine;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of equally sized direct buffers, allocated on first use and recycled after.
+ * Never grows past its capacity: {@link #acquire()} fails instead, so the memory it holds is
+ * bounded by {@code capacity * bufferSize}.
+ */
+public class BufferPool {
+
+    private final int capacity;
+    private final int bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public BufferPool(int capacity, int bufferSize) {
+        this.capacity = capacity;
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocated.incrementAndGet() > capacity) {
+            allocated.decrementAndGet();
+            // Another caller may have returned one meanwhile
+            buffer = free.poll();
+            if (buffer == null) {
+                throw new IllegalStateException("All " + capacity + " buffers are in use");
+            }
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    public int inUse() {
+        return allocated.get() - free.size();
+    }
+}
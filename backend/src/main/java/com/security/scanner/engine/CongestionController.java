@@ -0,0 +1,147 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.model.PortResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD window and pacing for the probes of one scan.
+ * <p>
+ * The window starts at {@code scanner.congestion.initial-window}, doubles per round while
+ * below the slow-start threshold and then grows by one probe per round of healthy responses,
+ * never exceeding {@code scanner.max-concurrent-ports}. A round whose timeout (FILTERED) ratio
+ * spikes above both {@code timeout-threshold} and the recent average halves the window and
+ * doubles the delay between probe launches, capped at {@code scanner.rate-limit-delay} ms.
+ */
+public class CongestionController {
+
+    private static final double RATIO_SMOOTHING = 0.25;
+    private static final double SPIKE_FACTOR = 1.5;
+
+    private final int maxWindow;
+    private final int minWindow;
+    private final double timeoutThreshold;
+    private final long maxPacingNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition windowOpen = lock.newCondition();
+
+    private double window;
+    private double slowStartThreshold;
+    private int inFlight;
+    private long pacingNanos;
+    private long lastLaunchNanos;
+
+    private int roundSamples;
+    private int roundTimeouts;
+    private double averageTimeoutRatio;
+    private double srtt;
+
+    public CongestionController(ScannerConfig config) {
+        ScannerConfig.Congestion congestion = config.getCongestion();
+        this.maxWindow = Math.max(1, config.getMaxConcurrentPorts());
+        this.minWindow = Math.max(1, Math.min(congestion.getMinWindow(), maxWindow));
+        this.window = Math.max(minWindow, Math.min(congestion.getInitialWindow(), maxWindow));
+        this.slowStartThreshold = maxWindow;
+        this.timeoutThreshold = congestion.getTimeoutThreshold();
+        this.maxPacingNanos = TimeUnit.MILLISECONDS.toNanos(config.getRateLimitDelay());
+    }
+
+    /**
+     * Blocks until the window has room and the pacing delay since the last launch has passed.
+     */
+    public void acquire() throws InterruptedException {
+        long sleepNanos;
+        lock.lock();
+        try {
+            while (inFlight >= (int) window) {
+                windowOpen.await();
+            }
+            inFlight++;
+            long now = System.nanoTime();
+            long launchAt = Math.max(now, lastLaunchNanos + pacingNanos);
+            lastLaunchNanos = launchAt;
+            sleepNanos = launchAt - now;
+        } finally {
+            lock.unlock();
+        }
+        if (sleepNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+    }
+
+    /**
+     * Releases the slot taken by {@link #acquire()} and feeds the outcome into the controller.
+     * A {@code null} result (probe failed unexpectedly) only releases the slot.
+     */
+    public void release(ProbeResult result) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (result != null) {
+                onSample(result);
+            }
+            windowOpen.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWindow() {
+        lock.lock();
+        try {
+            return (int) window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(ProbeResult result) {
+        roundSamples++;
+        boolean timedOut = result.status() == PortResult.PortStatus.FILTERED;
+        if (timedOut) {
+            roundTimeouts++;
+        } else {
+            srtt = srtt == 0 ? result.responseTime() : 0.875 * srtt + 0.125 * result.responseTime();
+            // Only grow while RTTs are not inflated by queueing
+            if (result.responseTime() <= 2 * srtt + 1) {
+                grow();
+            }
+        }
+
+        if (roundSamples >= (int) window) {
+            endRound();
+        }
+    }
+
+    private void grow() {
+        if (window < slowStartThreshold) {
+            window = Math.min(maxWindow, window + 1);
+        } else {
+            window = Math.min(maxWindow, window + 1.0 / window);
+        }
+    }
+
+    private void endRound() {
+        double ratio = (double) roundTimeouts / roundSamples;
+        boolean spike = ratio >= timeoutThreshold && ratio > averageTimeoutRatio * SPIKE_FACTOR;
+
+        if (spike) {
+            window = Math.max(minWindow, window / 2);
+            slowStartThreshold = window;
+            pacingNanos = Math.min(maxPacingNanos, Math.max(pacingNanos * 2, TimeUnit.MILLISECONDS.toNanos(1)));
+        } else if (ratio < timeoutThreshold) {
+            pacingNanos /= 2;
+            if (pacingNanos < TimeUnit.MICROSECONDS.toNanos(100)) {
+                pacingNanos = 0;
+            }
+        }
+
+        averageTimeoutRatio = (1 - RATIO_SMOOTHING) * averageTimeoutRatio + RATIO_SMOOTHING * ratio;
+        roundSamples = 0;
+        roundTimeouts = 0;
+    }
+}
@@ -0,0 +1,325 @@
+package com.security.scanner.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiled service fingerprints: default service names by protocol and port, and banner
+ * signatures. The literals of all signatures of a protocol form one {@link AhoCorasick}
+ * automaton, so a banner is scanned once whatever the number of signatures; only the
+ * signatures whose literal occurs are checked further.
+ * <p>
+ * The text format is described at the top of {@code service-fingerprints.txt}.
+ */
+public final class FingerprintDatabase {
+
+    public static final String UNKNOWN = "Unknown";
+
+    private static final int PORTS = 65536;
+    // Fits the version column whatever a version regex captures
+    private static final int MAX_VERSION_LENGTH = 128;
+    private static final Pattern TOKEN = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"|(\\S+)");
+
+    private final Map<String, String[]> defaults;
+    private final Map<String, SignatureSet> signatures;
+
+    private FingerprintDatabase(Map<String, String[]> defaults, Map<String, SignatureSet> signatures) {
+        this.defaults = defaults;
+        this.signatures = signatures;
+    }
+
+    public record Match(String service, String version) {
+    }
+
+    /**
+     * Service name for a port without (or with an unrecognised) banner.
+     */
+    public String defaultService(String protocol, int port) {
+        String[] names = defaults.get(protocol);
+        String name = names != null && port >= 0 && port < PORTS ? names[port] : null;
+        return name != null ? name : UNKNOWN;
+    }
+
+    /**
+     * Best signature matching the banner: signatures listing the port win over generic ones,
+     * then earlier signatures over later ones. Falls back to the port's default service.
+     */
+    public Match identify(String protocol, int port, byte[] banner) {
+        return match(protocol, port, banner).orElseGet(() -> new Match(defaultService(protocol, port), null));
+    }
+
+    /**
+     * Same as {@link #identify} without the fallback: empty if no signature matches.
+     */
+    public Optional<Match> match(String protocol, int port, byte[] banner) {
+        SignatureSet set = signatures.get(protocol);
+        if (set == null || banner == null || banner.length == 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(set.identify(port, banner));
+    }
+
+    public int size() {
+        return signatures.values().stream().mapToInt(set -> set.signatures.size()).sum();
+    }
+
+    public static FingerprintDatabase parse(Reader input, String source) throws IOException {
+        Map<String, String[]> defaults = new HashMap<>();
+        Map<String, List<Signature>> signatures = new HashMap<>();
+        BufferedReader reader = new BufferedReader(input);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                List<String> tokens = tokenize(line);
+                String protocol = tokens.size() > 1 ? tokens.get(1).toLowerCase(Locale.ROOT) : "";
+                switch (tokens.get(0)) {
+                    case "port" -> {
+                        expect(tokens.size() == 4, "expected: port <protocol> <ports> <service>");
+                        String[] names = defaults.computeIfAbsent(protocol, p -> new String[PORTS]);
+                        BitSet ports = parsePorts(tokens.get(2));
+                        for (int port = ports.nextSetBit(0); port >= 0; port = ports.nextSetBit(port + 1)) {
+                            names[port] = tokens.get(3);
+                        }
+                    }
+                    case "match" -> {
+                        expect(tokens.size() >= 4, "expected: match <protocol> <service> \"<literal>\" [options]");
+                        signatures.computeIfAbsent(protocol, p -> new ArrayList<>()).add(parseSignature(tokens));
+                    }
+                    default -> throw new IllegalArgumentException("unknown directive '" + tokens.get(0) + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(source + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        Map<String, SignatureSet> compiled = new HashMap<>();
+        signatures.forEach((protocol, list) -> compiled.put(protocol, new SignatureSet(list)));
+        return new FingerprintDatabase(defaults, compiled);
+    }
+
+    private static Signature parseSignature(List<String> tokens) {
+        String service = tokens.get(2);
+        byte[] literal = unescape(tokens.get(3));
+        expect(literal.length > 0, "empty literal");
+        BitSet ports = null;
+        int offset = -1;
+        boolean nocase = false;
+        Pattern pattern = null;
+        Pattern version = null;
+        for (String option : tokens.subList(4, tokens.size())) {
+            int eq = option.indexOf('=');
+            String key = eq < 0 ? option : option.substring(0, eq);
+            String value = eq < 0 ? null : option.substring(eq + 1);
+            switch (key) {
+                case "nocase" -> nocase = true;
+                case "ports" -> ports = parsePorts(require(key, value));
+                case "offset" -> offset = Integer.parseInt(require(key, value));
+                case "pattern" -> pattern = compile(require(key, value));
+                case "version" -> version = compile(require(key, value));
+                default -> throw new IllegalArgumentException("unknown option '" + key + "'");
+            }
+        }
+        return new Signature(service, literal, nocase, offset, ports, pattern, version);
+    }
+
+    /**
+     * Splits on whitespace; quoted tokens may contain spaces and \" escapes, and options may be
+     * written key="value".
+     */
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                i++;
+                continue;
+            }
+            int eq = line.indexOf("=\"", i);
+            int space = indexOfWhitespace(line, i);
+            if (eq >= 0 && eq < space) {
+                // key="quoted value"
+                Matcher quoted = TOKEN.matcher(line).region(eq + 1, line.length());
+                expect(quoted.lookingAt() && quoted.group(1) != null, "unterminated quote");
+                tokens.add(line.substring(i, eq + 1) + unquote(quoted.group(1)));
+                i = quoted.end();
+            } else {
+                Matcher token = TOKEN.matcher(line).region(i, line.length());
+                expect(token.lookingAt(), "unterminated quote");
+                tokens.add(token.group(1) != null ? token.group(1) : token.group(2));
+                i = token.end();
+            }
+        }
+        return tokens;
+    }
+
+    private static int indexOfWhitespace(String line, int from) {
+        for (int i = from; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    // Regexes keep their own escapes; only \" is the file's
+    private static String unquote(String value) {
+        return value.replace("\\\"", "\"");
+    }
+
+    private static byte[] unescape(String literal) {
+        byte[] out = new byte[literal.length()];
+        int length = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c != '\\') {
+                expect(c < 0x100, "literal characters must be Latin-1");
+                out[length++] = (byte) c;
+                continue;
+            }
+            expect(++i < literal.length(), "dangling backslash");
+            char escape = literal.charAt(i);
+            out[length++] = switch (escape) {
+                case 'r' -> '\r';
+                case 'n' -> '\n';
+                case 't' -> '\t';
+                case '0' -> 0;
+                case 'x' -> {
+                    expect(i + 2 < literal.length(), "truncated \\x escape");
+                    i += 2;
+                    yield (byte) Integer.parseInt(literal.substring(i - 1, i + 1), 16);
+                }
+                default -> (byte) escape;
+            };
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    private static BitSet parsePorts(String spec) {
+        BitSet ports = new BitSet(PORTS);
+        for (String part : spec.split(",")) {
+            String[] range = part.split("-", 2);
+            int from = Integer.parseInt(range[0].trim());
+            int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+            expect(from >= 0 && to < PORTS && from <= to, "bad port range '" + part + "'");
+            ports.set(from, to + 1);
+        }
+        return ports;
+    }
+
+    private static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("bad regex: " + e.getDescription(), e);
+        }
+    }
+
+    private static String require(String key, String value) {
+        expect(value != null && !value.isEmpty(), "option " + key + " needs a value");
+        return value;
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private record Signature(String service, byte[] literal, boolean nocase, int offset,
+                             BitSet ports, Pattern pattern, Pattern version) {
+
+        boolean literalAt(byte[] banner, int start) {
+            if (offset >= 0 && start != offset) {
+                return false;
+            }
+            if (nocase) {
+                return true; // the automaton already compared case-insensitively
+            }
+            for (int i = 0; i < literal.length; i++) {
+                if (banner[start + i] != literal[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class SignatureSet {
+
+        private final List<Signature> signatures;
+        private final AhoCorasick automaton;
+
+        private SignatureSet(List<Signature> signatures) {
+            this.signatures = List.copyOf(signatures);
+            AhoCorasick.Builder builder = AhoCorasick.builder();
+            signatures.forEach(signature -> builder.add(signature.literal()));
+            this.automaton = builder.build();
+        }
+
+        private Match identify(int port, byte[] banner) {
+            // Candidates in precedence order: port-specific signatures first, then file order
+            BitSet specific = new BitSet();
+            BitSet generic = new BitSet();
+            automaton.search(banner, (index, end) -> {
+                Signature signature = signatures.get(index);
+                if (signature.ports() != null && !signature.ports().get(port)) {
+                    return;
+                }
+                if (signature.literalAt(banner, end - signature.literal().length)) {
+                    (signature.ports() != null ? specific : generic).set(index);
+                }
+            });
+            if (specific.isEmpty() && generic.isEmpty()) {
+                return null;
+            }
+            // Regexes see the banner bytes one char per byte
+            String text = new String(banner, StandardCharsets.ISO_8859_1);
+            Match match = firstConfirmed(specific, text);
+            return match != null ? match : firstConfirmed(generic, text);
+        }
+
+        private Match firstConfirmed(BitSet candidates, String text) {
+            for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+                Signature signature = signatures.get(index);
+                if (signature.pattern() != null && !signature.pattern().matcher(text).find()) {
+                    continue;
+                }
+                return new Match(signature.service(), extractVersion(signature, text));
+            }
+            return null;
+        }
+
+        private static String extractVersion(Signature signature, String text) {
+            if (signature.version() == null) {
+                return null;
+            }
+            Matcher matcher = signature.version().matcher(text);
+            if (!matcher.find() || matcher.groupCount() < 1 || matcher.group(1) == null) {
+                return null;
+            }
+            String version = matcher.group(1).strip();
+            if (version.length() > MAX_VERSION_LENGTH) {
+                version = version.substring(0, MAX_VERSION_LENGTH);
+            }
+            return version.isEmpty() ? null : version;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.security.scanner.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pause between passes of a selector loop that keeps failing. A loop that logs and reselects
+ * straight away spins a core when every pass fails the same way, so each failure in a row waits
+ * twice as long as the one before, up to a second. A pass that gets through resets the delay.
+ */
+@Slf4j
+final class LoopBackoff {
+
+    private static final long MAX_DELAY_MS = 1000;
+
+    private final String loop;
+    private int failures;
+
+    LoopBackoff(String loop) {
+        this.loop = loop;
+    }
+
+    void succeeded() {
+        failures = 0;
+    }
+
+    /**
+     * Logs the failure and sleeps before the next pass.
+     */
+    void failed(Exception e) throws InterruptedException {
+        failures++;
+        long delay = Math.min(MAX_DELAY_MS, 1L << Math.min(failures, 10));
+        log.error("{} error ({} in a row, next pass in {} ms): {}", loop, failures, delay, e.toString());
+        Thread.sleep(delay);
+    }
+}
@@ -0,0 +1,270 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking connect probes multiplexed over a few selector threads.
+ * The number of sockets open at any time is capped by {@code scanner.nio.max-in-flight};
+ * {@link #probe} blocks the caller while the window is full.
+ */
+@Component
+@ConditionalOnProperty(prefix = "scanner", name = "engine", havingValue = "nio")
+@RequiredArgsConstructor
+@Slf4j
+public class NioScanEngine implements ScanEngine {
+
+    private final ScannerConfig config;
+
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private Semaphore window;
+    private SelectorLoop[] loops;
+
+    @PostConstruct
+    public void start() throws IOException {
+        ScannerConfig.Nio nio = config.getNio();
+        window = new Semaphore(nio.getMaxInFlight());
+        loops = new SelectorLoop[nio.getSelectorThreads()];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new SelectorLoop("nio-scanner-" + i);
+            loops[i].thread.start();
+        }
+        log.info("NIO scan engine started - {} selector threads, {} in-flight probes",
+                 loops.length, nio.getMaxInFlight());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (SelectorLoop loop : loops) {
+            loop.running = false;
+            loop.selector.wakeup();
+        }
+    }
+
+    @Override
+    public CompletableFuture<ProbeResult> probe(InetAddress address, int port, int timeoutMs) {
+        CompletableFuture<ProbeResult> future = new CompletableFuture<>();
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        Probe probe = new Probe(port, future, System.nanoTime(), timeoutMs);
+        future.whenComplete((result, error) -> {
+            window.release();
+            // A cancelled probe never reaches complete(), so release its socket here
+            if (future.isCancelled()) {
+                probe.closeChannel();
+            }
+        });
+
+        try {
+            probe.channel = SocketChannel.open();
+            probe.channel.configureBlocking(false);
+            // RST on close so finished probes don't pile up in TIME_WAIT
+            probe.channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+
+            if (probe.channel.connect(new InetSocketAddress(address, port))) {
+                probe.complete(ProbeResult.open(port, probe.elapsed()));
+            } else {
+                loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].register(probe);
+            }
+        } catch (ConnectException e) {
+            probe.complete(ProbeResult.closed(port, probe.elapsed()));
+        } catch (IOException e) {
+            probe.complete(ProbeResult.error(port, probe.elapsed(), e.getMessage()));
+        } catch (RuntimeException e) {
+            // Unresolved or unsupported address types; the window slot is released on completion
+            probe.complete(ProbeResult.error(port, probe.elapsed(), e.toString()));
+        }
+        return future;
+    }
+
+    private static final class Probe {
+        private final int port;
+        private final CompletableFuture<ProbeResult> future;
+        private final long startNanos;
+        private final long deadlineNanos;
+        private volatile SocketChannel channel;
+
+        private Probe(int port, CompletableFuture<ProbeResult> future, long startNanos, int timeoutMs) {
+            this.port = port;
+            this.future = future;
+            this.startNanos = startNanos;
+            this.deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        }
+
+        private int elapsed() {
+            return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        private void complete(ProbeResult result) {
+            closeChannel();
+            future.complete(result);
+        }
+
+        private void closeChannel() {
+            SocketChannel open = channel;
+            if (open != null) {
+                try {
+                    open.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+    }
+
+    private static final class SelectorLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Probe> registrations = new ConcurrentLinkedQueue<>();
+        // Owned by the loop thread; completed probes are dropped lazily when they reach the head
+        private final PriorityQueue<Probe> deadlines =
+                new PriorityQueue<>(Comparator.comparingLong(p -> p.deadlineNanos));
+        private volatile boolean running = true;
+
+        private SelectorLoop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        private void register(Probe probe) {
+            registrations.add(probe);
+            selector.wakeup();
+            // The loop may have drained the queue for the last time
+            if (!running && registrations.remove(probe)) {
+                probe.complete(ProbeResult.error(probe.port, probe.elapsed(), "Scanner shutting down"));
+            }
+        }
+
+        @Override
+        public void run() {
+            LoopBackoff backoff = new LoopBackoff("Selector loop " + thread.getName());
+            try {
+                while (running) {
+                    try {
+                        registerPending();
+                        selector.select(selectTimeoutMillis());
+                        processSelected();
+                        expireTimedOut();
+                        backoff.succeeded();
+                    } catch (ClosedSelectorException e) {
+                        log.error("Selector loop {} stopped: its selector was closed", thread.getName());
+                        break;
+                    } catch (IOException | RuntimeException e) {
+                        // Keep selecting: probes already registered would otherwise never complete
+                        backoff.failed(e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running = false;
+            closeAll();
+        }
+
+        private void registerPending() {
+            Probe probe;
+            while ((probe = registrations.poll()) != null) {
+                try {
+                    probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                    deadlines.add(probe);
+                } catch (ClosedChannelException e) {
+                    probe.complete(ProbeResult.error(probe.port, probe.elapsed(), "Channel closed"));
+                } catch (RuntimeException e) {
+                    probe.complete(ProbeResult.error(probe.port, probe.elapsed(), e.toString()));
+                }
+            }
+        }
+
+        private long selectTimeoutMillis() {
+            while (!deadlines.isEmpty() && deadlines.peek().future.isDone()) {
+                deadlines.poll().closeChannel();
+            }
+            if (deadlines.isEmpty()) {
+                return 0; // block until woken up
+            }
+            long remaining = deadlines.peek().deadlineNanos - System.nanoTime();
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+        }
+
+        private void processSelected() {
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Probe probe = (Probe) key.attachment();
+                try {
+                    if (probe.channel.finishConnect()) {
+                        probe.complete(ProbeResult.open(probe.port, probe.elapsed()));
+                    }
+                } catch (ConnectException e) {
+                    probe.complete(ProbeResult.closed(probe.port, probe.elapsed()));
+                } catch (IOException e) {
+                    probe.complete(ProbeResult.error(probe.port, probe.elapsed(), e.getMessage()));
+                } catch (RuntimeException e) {
+                    // e.g. CancelledKeyException from a probe cancelled while selected
+                    probe.complete(ProbeResult.error(probe.port, probe.elapsed(), e.toString()));
+                }
+            }
+        }
+
+        private void expireTimedOut() {
+            long now = System.nanoTime();
+            while (!deadlines.isEmpty() && deadlines.peek().deadlineNanos - now <= 0) {
+                Probe probe = deadlines.poll();
+                if (!probe.future.isDone()) {
+                    probe.complete(ProbeResult.filtered(probe.port, probe.elapsed()));
+                } else {
+                    probe.closeChannel();
+                }
+            }
+        }
+
+        private void closeAll() {
+            Probe probe;
+            while ((probe = registrations.poll()) != null) {
+                probe.complete(ProbeResult.error(probe.port, probe.elapsed(), "Scanner shutting down"));
+            }
+            while ((probe = deadlines.poll()) != null) {
+                if (!probe.future.isDone()) {
+                    probe.complete(ProbeResult.error(probe.port, probe.elapsed(), "Scanner shutting down"));
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.security.scanner.engine;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Ports of a scan as a read-only list stored as runs of consecutive ports, so that "all" is one
+ * run instead of 65535 boxed Integers. The list can be permuted: {@link #shuffled} visits the
+ * same ports in the order of an affine bijection {@code i -> (a * i + c) mod n} seeded by the
+ * caller, which costs no memory, spreads consecutive ports far apart and gives every replica
+ * that computes it from the same seed the same order.
+ */
+public final class PortList extends AbstractList<Integer> implements RandomAccess {
+
+    private static final PortList EMPTY = new PortList(new int[0], new int[0], new int[]{0}, 1, 0);
+
+    private final int[] starts;
+    private final int[] ends;
+    // offsets[r] is the list index of the first port of run r; offsets[runs] is the size
+    private final int[] offsets;
+    private final long stride;
+    private final long shift;
+
+    private PortList(int[] starts, int[] ends, int[] offsets, long stride, long shift) {
+        this.starts = starts;
+        this.ends = ends;
+        this.offsets = offsets;
+        this.stride = stride;
+        this.shift = shift;
+    }
+
+    /**
+     * Every port of the set, ascending.
+     */
+    public static PortList of(BitSet ports) {
+        Builder builder = new Builder();
+        for (int start = ports.nextSetBit(0); start >= 0; ) {
+            int end = ports.nextClearBit(start) - 1;
+            builder.add(start, end);
+            start = ports.nextSetBit(end + 1);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The ports in the given order; a port listed again keeps its first position.
+     */
+    public static PortList of(int[] ports) {
+        BitSet seen = new BitSet();
+        Builder builder = new Builder();
+        for (int port : ports) {
+            if (!seen.get(port)) {
+                seen.set(port);
+                builder.add(port, port);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The first {@code count} ports of this list, in this list's order.
+     */
+    public PortList first(int count) {
+        return slice(0, Math.min(count, size()));
+    }
+
+    /**
+     * The {@code count} ports from position {@code offset} on, in this list's order.
+     */
+    public PortList slice(int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > size()) {
+            throw new IndexOutOfBoundsException("Ports " + offset + "+" + count + " out of " + size());
+        }
+        if (offset == 0 && count == size()) {
+            return this;
+        }
+        Builder builder = new Builder();
+        for (int i = offset; i < offset + count; i++) {
+            int port = getInt(i);
+            builder.add(port, port);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The same ports in a pseudo-random order that depends only on {@code seed}.
+     */
+    public PortList shuffled(long seed) {
+        int n = size();
+        if (n < 3) {
+            return this;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        // A stride around the middle of the range keeps neighbours in the list far apart
+        long a = n / 4 + random.nextInt(n / 2);
+        while (gcd(a, n) != 1) {
+            a++;
+        }
+        return new PortList(starts, ends, offsets, a, random.nextInt(n));
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    /**
+     * Same as {@link #get} without boxing the port.
+     */
+    public int getInt(int index) {
+        int n = size();
+        if (index < 0 || index >= n) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + n);
+        }
+        int position = (int) ((stride * index + shift) % n);
+        // Offsets strictly increase: an exact hit is the run starting there, a miss lands after it
+        int run = Arrays.binarySearch(offsets, position);
+        if (run < 0) {
+            run = -run - 2;
+        }
+        return starts[run] + (position - offsets[run]);
+    }
+
+    @Override
+    public int size() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * The ports in this list's order, without boxing them.
+     */
+    public IntStream ints() {
+        return IntStream.range(0, size()).map(this::getInt);
+    }
+
+    /**
+     * The ports as a set, whatever the order.
+     */
+    public BitSet toBitSet() {
+        BitSet set = new BitSet();
+        for (int r = 0; r < starts.length; r++) {
+            set.set(starts[r], ends[r] + 1);
+        }
+        return set;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final class Builder {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int runs;
+
+        // Merges with the previous run when it continues it
+        private void add(int start, int end) {
+            if (runs > 0 && ends[runs - 1] + 1 == start) {
+                ends[runs - 1] = end;
+                return;
+            }
+            if (runs == starts.length) {
+                starts = Arrays.copyOf(starts, runs * 2);
+                ends = Arrays.copyOf(ends, runs * 2);
+            }
+            starts[runs] = start;
+            ends[runs] = end;
+            runs++;
+        }
+
+        private PortList build() {
+            if (runs == 0) {
+                return EMPTY;
+            }
+            int[] offsets = new int[runs + 1];
+            for (int r = 0; r < runs; r++) {
+                offsets[r + 1] = offsets[r] + (ends[r] - starts[r] + 1);
+            }
+            return new PortList(Arrays.copyOf(starts, runs), Arrays.copyOf(ends, runs), offsets, 1, 0);
+        }
+    }
+}
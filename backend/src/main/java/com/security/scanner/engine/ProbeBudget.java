@@ -0,0 +1,50 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Probes allowed in flight across all scans of this instance, whatever the engine, so that the
+ * sum of the per-host congestion windows can never exhaust the local socket tables. The
+ * semaphore is fair: hosts of different scans waiting for a slot are served in arrival order.
+ */
+@Component
+public class ProbeBudget {
+
+    private final int size;
+    private final Semaphore permits;
+    private final MeterRegistry registry;
+
+    public ProbeBudget(ScannerConfig config, MeterRegistry registry) {
+        this.size = Math.max(1, config.getAdmission().getProbeBudget());
+        this.permits = new Semaphore(size, true);
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("scanner.probes.in_flight", this, ProbeBudget::inUse)
+                .description("Probes holding a slot of the global probe budget")
+                .register(registry);
+        Gauge.builder("scanner.probes.budget", this, budget -> budget.size)
+                .description("Size of the global probe budget")
+                .register(registry);
+    }
+
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int inUse() {
+        return size - permits.availablePermits();
+    }
+}
@@ -0,0 +1,32 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.model.PortResult;
+
+public record ProbeResult(int port, PortResult.PortStatus status, int responseTime, String errorMessage) {
+
+    public static ProbeResult open(int port, int responseTime) {
+        return new ProbeResult(port, PortResult.PortStatus.OPEN, responseTime, null);
+    }
+
+    public static ProbeResult closed(int port, int responseTime) {
+        return new ProbeResult(port, PortResult.PortStatus.CLOSED, responseTime,
+                "Connection refused - port is closed");
+    }
+
+    public static ProbeResult filtered(int port, int responseTime) {
+        return new ProbeResult(port, PortResult.PortStatus.FILTERED, responseTime,
+                "Connection timeout - port may be filtered by firewall");
+    }
+
+    // UDP: silence means either a listener that ignored the probe or a firewall dropping it
+    public static ProbeResult noResponse(int port, int responseTime) {
+        return new ProbeResult(port, PortResult.PortStatus.FILTERED, responseTime,
+                "No response - port is open or filtered");
+    }
+
+    // Other network errors - treat as FILTERED
+    public static ProbeResult error(int port, int responseTime, String message) {
+        return new ProbeResult(port, PortResult.PortStatus.FILTERED, responseTime,
+                "Network error: " + message);
+    }
+}
@@ -0,0 +1,41 @@
+package com.security.scanner.engine;
+
+/**
+ * Smoothed round-trip time and variance of one host (RFC 6298), giving the retransmission
+ * timeout for probes to it. Until the first sample the initial timeout applies.
+ */
+public final class RttEstimator {
+
+    private final long initialRto;
+    private final long minRto;
+
+    private double srtt = -1;
+    private double rttvar;
+
+    public RttEstimator(long initialRto, long minRto) {
+        this.initialRto = initialRto;
+        this.minRto = minRto;
+    }
+
+    /**
+     * Feeds one measured round trip. Only probes answered on their first transmission may be
+     * sampled, otherwise the reply cannot be attributed to a transmission (Karn's rule).
+     */
+    public synchronized void sample(long rttMillis) {
+        if (srtt < 0) {
+            srtt = rttMillis;
+            rttvar = rttMillis / 2.0;
+        } else {
+            rttvar = 0.75 * rttvar + 0.25 * Math.abs(srtt - rttMillis);
+            srtt = 0.875 * srtt + 0.125 * rttMillis;
+        }
+    }
+
+    /**
+     * Timeout for the next probe, never below the configured floor nor above {@code maxRto}.
+     */
+    public synchronized long rto(long maxRto) {
+        long rto = srtt < 0 ? initialRto : Math.round(srtt + Math.max(1, 4 * rttvar));
+        return Math.min(maxRto, Math.max(minRto, rto));
+    }
+}
@@ -0,0 +1,101 @@
+package com.security.scanner.engine;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancellation and resource accounting for one running scan.
+ */
+public class ScanControl {
+
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeHosts = new AtomicInteger();
+    private final AtomicInteger bannerGrabs = new AtomicInteger();
+    private final AtomicLong probesCompleted = new AtomicLong();
+    private final long startedNanos = System.nanoTime();
+
+    private volatile boolean cancelled;
+    private volatile double probesPerSecond;
+    private long sampleNanos = startedNanos;
+    private long sampleCount;
+
+    /**
+     * Stops launching new probes and aborts the ones in flight.
+     */
+    public void cancel() {
+        cancelled = true;
+        inFlight.forEach(future -> future.cancel(true));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void track(CompletableFuture<?> probe) {
+        inFlight.add(probe);
+        probe.whenComplete((result, error) -> {
+            inFlight.remove(probe);
+            probesCompleted.incrementAndGet();
+        });
+        // Cancelled between the check in the scan loop and registration
+        if (cancelled) {
+            probe.cancel(true);
+        }
+    }
+
+    public void hostStarted() {
+        activeHosts.incrementAndGet();
+    }
+
+    public void hostFinished() {
+        activeHosts.decrementAndGet();
+    }
+
+    public void bannerStarted() {
+        bannerGrabs.incrementAndGet();
+    }
+
+    public void bannerFinished() {
+        bannerGrabs.decrementAndGet();
+    }
+
+    public int getActiveHosts() {
+        return activeHosts.get();
+    }
+
+    public int getProbesInFlight() {
+        return inFlight.size();
+    }
+
+    public int getBannerGrabsInFlight() {
+        return bannerGrabs.get();
+    }
+
+    public long getProbesCompleted() {
+        return probesCompleted.get();
+    }
+
+    public double getProbesPerSecond() {
+        return probesPerSecond;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    /**
+     * Updates the probes/sec figure from the completions since the previous sample.
+     */
+    public synchronized void sampleRate() {
+        long now = System.nanoTime();
+        long count = probesCompleted.get();
+        if (now > sampleNanos) {
+            probesPerSecond = (count - sampleCount) * 1_000_000_000.0 / (now - sampleNanos);
+        }
+        sampleNanos = now;
+        sampleCount = count;
+    }
+}
@@ -0,0 +1,12 @@
+package com.security.scanner.engine;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Performs TCP connect probes. Selected with {@code scanner.engine} ("blocking" or "nio").
+ */
+public interface ScanEngine {
+
+    CompletableFuture<ProbeResult> probe(InetAddress address, int port, int timeoutMs);
+}
@@ -0,0 +1,39 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.model.PortResult;
+
+/**
+ * Receives scan output as it is produced. Called concurrently from the scanner threads.
+ */
+@FunctionalInterface
+public interface ScanSink {
+
+    void accept(PortResult result);
+
+    /**
+     * Called once all ports of a host have been reported.
+     */
+    default void hostCompleted(String host) {
+    }
+    
+    /**
+     * Called instead of any result when host discovery found the host down; {@code ports} is the
+     * number of its ports that were not probed.
+     */
+    default void hostDown(String host, int ports) {
+    }
+    
+    /**
+     * True if the host was fully covered by an earlier run of the same scan.
+     */
+    default boolean skipHost(String host) {
+        return false;
+    }
+    
+    /**
+     * True if the port was already covered by an earlier run of the same scan.
+     */
+    default boolean skipPort(String host, int port) {
+        return false;
+    }
+}
@@ -0,0 +1,152 @@
+package com.security.scanner.engine;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Scan target: a hostname, a single IPv4 address, a CIDR block ({@code 10.0.0.0/16})
+ * or an address range ({@code 10.0.1.5-10.0.1.200} or {@code 10.0.1.5-200}).
+ * Addresses are generated on iteration; nothing is materialized up front.
+ */
+public final class TargetSpec implements Iterable<String> {
+
+    private final String hostname;
+    private final long first;
+    private final long last;
+
+    private TargetSpec(String hostname, long first, long last) {
+        this.hostname = hostname;
+        this.first = first;
+        this.last = last;
+    }
+
+    public static TargetSpec parse(String target) {
+        String spec = target.trim();
+
+        int slash = spec.indexOf('/');
+        if (slash >= 0) {
+            long network = parseIPv4(spec.substring(0, slash));
+            int prefix = parseInt(spec.substring(slash + 1), 0, 32, "CIDR prefix");
+            long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+            long start = network & mask;
+            long end = start | (~mask & 0xFFFFFFFFL);
+            // Skip network and broadcast addresses except for /31 and /32
+            if (prefix < 31) {
+                start++;
+                end--;
+            }
+            return new TargetSpec(null, start, end);
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash >= 0 && isIPv4(spec.substring(0, dash))) {
+            long start = parseIPv4(spec.substring(0, dash));
+            String upper = spec.substring(dash + 1);
+            long end = upper.contains(".")
+                    ? parseIPv4(upper)
+                    : (start & 0xFFFFFF00L) | parseInt(upper, 0, 255, "range end");
+            if (end < start) {
+                throw new IllegalArgumentException("Invalid address range: " + target);
+            }
+            return new TargetSpec(null, start, end);
+        }
+
+        if (isIPv4(spec)) {
+            long address = parseIPv4(spec);
+            return new TargetSpec(null, address, address);
+        }
+
+        return new TargetSpec(spec, 0, 0);
+    }
+
+    public long size() {
+        return hostname != null ? 1 : last - first + 1;
+    }
+
+    /**
+     * Position of the host in iteration order, or -1 if it is not part of this spec.
+     */
+    public long indexOf(String host) {
+        if (hostname != null) {
+            return hostname.equals(host) ? 0 : -1;
+        }
+        if (!isIPv4(host)) {
+            return -1;
+        }
+        long address = parseIPv4(host);
+        return address >= first && address <= last ? address - first : -1;
+    }
+
+    public String hostAt(long index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Host index " + index + " out of " + size());
+        }
+        return hostname != null ? hostname : formatIPv4(first + index);
+    }
+
+    /**
+     * The {@code count} hosts starting at position {@code offset}.
+     */
+    public TargetSpec slice(long offset, long count) {
+        if (offset < 0 || count < 1 || offset + count > size()) {
+            throw new IndexOutOfBoundsException("Hosts " + offset + "+" + count + " out of " + size());
+        }
+        return hostname != null ? this : new TargetSpec(null, first + offset, first + offset + count - 1);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        if (hostname != null) {
+            return List.of(hostname).iterator();
+        }
+        return new Iterator<>() {
+            private long next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next <= last;
+            }
+
+            @Override
+            public String next() {
+                if (next > last) {
+                    throw new NoSuchElementException();
+                }
+                return formatIPv4(next++);
+            }
+        };
+    }
+
+    private static boolean isIPv4(String value) {
+        return value.matches("([0-9]{1,3}\\.){3}[0-9]{1,3}");
+    }
+
+    private static long parseIPv4(String value) {
+        if (!isIPv4(value)) {
+            throw new IllegalArgumentException("Invalid IPv4 address: " + value);
+        }
+        long address = 0;
+        for (String octet : value.split("\\.")) {
+            address = (address << 8) | parseInt(octet, 0, 255, "octet");
+        }
+        return address;
+    }
+
+    private static int parseInt(String value, int min, int max, String what) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid " + what + ": " + value);
+    }
+
+    private static String formatIPv4(long address) {
+        return ((address >> 24) & 0xFF) + "." + ((address >> 16) & 0xFF) + "."
+                + ((address >> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+}
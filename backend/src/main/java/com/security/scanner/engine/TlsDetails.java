@@ -0,0 +1,12 @@
+package com.security.scanner.engine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Negotiated TLS session and the server's leaf certificate, as seen by a probe that trusts
+ * every certificate.
+ */
+public record TlsDetails(String protocol, String cipher, boolean starttls,
+                         String subject, String issuer, List<String> subjectAltNames, LocalDateTime notAfter) {
+}
@@ -0,0 +1,311 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * TLS handshakes for banner grabbing: implicit TLS ports get the handshake first and the probe's
+ * request inside the session; STARTTLS ports get their plaintext greeting read, the upgrade
+ * command sent, and then the handshake. Every certificate is accepted, since the point is to
+ * record it, not to trust it.
+ * <p>
+ * Handshakes run on virtual threads, at most {@code scanner.tls.max-concurrent} at a time.
+ * All of them share one SSLContext, whose client session cache lets repeated probes of the same
+ * host and port resume the earlier session instead of paying for a full handshake.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TlsProber {
+
+    private final ScannerConfig config;
+
+    private SSLSocketFactory socketFactory;
+    private Semaphore handshakes;
+
+    @PostConstruct
+    public void init() throws GeneralSecurityException {
+        ScannerConfig.Tls tls = config.getTls();
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{new AcceptAll()}, null);
+        context.getClientSessionContext().setSessionCacheSize(tls.getSessionCacheSize());
+        context.getClientSessionContext().setSessionTimeout(tls.getSessionTimeout());
+        socketFactory = context.getSocketFactory();
+        handshakes = new Semaphore(Math.max(1, tls.getMaxConcurrent()));
+    }
+
+    /**
+     * Completes exceptionally if the connection or the handshake fails, e.g. because the service
+     * does not speak TLS after all; a refused STARTTLS upgrade completes with the greeting alone.
+     */
+    public CompletableFuture<Banner> probe(InetSocketAddress address, BannerProbe probe) {
+        CompletableFuture<Banner> result = new CompletableFuture<>();
+        Thread.ofVirtual().name("tls-probe").start(() -> {
+            try {
+                handshakes.acquire();
+                try {
+                    result.complete(run(address, probe));
+                } finally {
+                    handshakes.release();
+                }
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private Banner run(InetSocketAddress address, BannerProbe probe) throws IOException {
+        ScannerConfig.Banner limits = config.getBanner();
+        try (Socket socket = new Socket()) {
+            socket.connect(address, limits.getConnectTimeout());
+            socket.setSoTimeout(limits.getReadTimeout());
+
+            byte[] greeting = null;
+            if (probe.tls() != BannerProbe.Tls.IMPLICIT) {
+                greeting = readReply(socket, finalLine(probe.tls()));
+                if (!startTls(socket, probe.tls())) {
+                    return Banner.plain(greeting);
+                }
+            }
+
+            // Keyed by host and port, which is what the session cache resumes on
+            try (SSLSocket ssl = (SSLSocket) socketFactory.createSocket(
+                    socket, address.getHostString(), address.getPort(), true)) {
+                ssl.startHandshake();
+                TlsDetails details = describe(ssl.getSession(), greeting != null);
+                if (greeting != null) {
+                    return new Banner(greeting, details);
+                }
+                return new Banner(exchange(ssl, probe), details);
+            }
+        }
+    }
+
+    /**
+     * Sends the probe's request inside the session and reads the answer up to its terminator,
+     * the byte cap or the read timeout. As in {@link #readReply}, the timeout bounds the whole
+     * answer rather than each read.
+     */
+    private byte[] exchange(SSLSocket ssl, BannerProbe probe) throws IOException {
+        if (probe.request().length > 0) {
+            OutputStream out = ssl.getOutputStream();
+            out.write(probe.request());
+            out.flush();
+        }
+        byte[] data = new byte[Math.max(1, config.getBanner().getMaxBytes())];
+        int length = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBanner().getReadTimeout());
+        InputStream in = ssl.getInputStream();
+        try {
+            while (length < data.length) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    break;
+                }
+                ssl.setSoTimeout((int) remaining);
+                int read = in.read(data, length, data.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+                if (probe.isComplete(ByteBuffer.wrap(data, 0, length))) {
+                    break;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // Keep whatever arrived
+        }
+        return Arrays.copyOf(data, length);
+    }
+
+    private boolean startTls(Socket socket, BannerProbe.Tls tls) throws IOException {
+        String command = switch (tls) {
+            case SMTP -> "EHLO scanner.invalid\r\n";
+            case POP3 -> "STLS\r\n";
+            case IMAP -> "a1 STARTTLS\r\n";
+            case FTP -> "AUTH TLS\r\n";
+            default -> throw new IllegalArgumentException("No STARTTLS for " + tls);
+        };
+        OutputStream out = socket.getOutputStream();
+        send(out, command);
+        String reply = new String(readReply(socket, finalLine(tls)), StandardCharsets.ISO_8859_1);
+        if (tls == BannerProbe.Tls.SMTP) {
+            // EHLO only tells whether the server offers the upgrade
+            if (!reply.startsWith("250") || !reply.toUpperCase(Locale.ROOT).contains("STARTTLS")) {
+                return false;
+            }
+            send(out, "STARTTLS\r\n");
+            reply = new String(readReply(socket, finalLine(tls)), StandardCharsets.ISO_8859_1);
+        }
+        return switch (tls) {
+            case SMTP -> reply.startsWith("220");
+            case POP3 -> reply.startsWith("+OK");
+            case IMAP -> reply.contains("a1 OK");
+            case FTP -> reply.startsWith("234");
+            default -> false;
+        };
+    }
+
+    private static void send(OutputStream out, String command) throws IOException {
+        out.write(command.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Reads CRLF-terminated lines until one satisfies {@code isFinal}, byte by byte so nothing
+     * past the reply (the start of a TLS handshake) is consumed. The whole reply must arrive
+     * within the read timeout, not just each byte, so a service trickling bytes cannot hold the
+     * probe open.
+     */
+    private byte[] readReply(Socket socket, Predicate<String> isFinal) throws IOException {
+        int cap = Math.max(1, config.getBanner().getMaxBytes());
+        int timeout = config.getBanner().getReadTimeout();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        try {
+            while (reply.size() < cap) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    break;
+                }
+                socket.setSoTimeout((int) remaining);
+                if ((b = in.read()) < 0) {
+                    break;
+                }
+                reply.write(b);
+                line.write(b);
+                if (b == '\n') {
+                    if (isFinal.test(line.toString(StandardCharsets.ISO_8859_1))) {
+                        break;
+                    }
+                    line.reset();
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // Keep whatever arrived; an incomplete reply never counts as an accepted upgrade
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+        return reply.toByteArray();
+    }
+
+    private static Predicate<String> finalLine(BannerProbe.Tls tls) {
+        return switch (tls) {
+            // Multi-line replies continue with "NNN-" and end with "NNN "
+            case SMTP, FTP -> line -> line.length() < 4 || line.charAt(3) != '-';
+            // Untagged "* ..." lines precede the tagged completion, except for the greeting
+            case IMAP -> line -> !line.startsWith("* ") || line.startsWith("* OK") || line.startsWith("* BYE");
+            default -> line -> true;
+        };
+    }
+
+    private static TlsDetails describe(SSLSession session, boolean starttls) {
+        X509Certificate leaf = null;
+        try {
+            Certificate[] chain = session.getPeerCertificates();
+            if (chain.length > 0 && chain[0] instanceof X509Certificate certificate) {
+                leaf = certificate;
+            }
+        } catch (IOException e) {
+            // Anonymous cipher suite: no certificate to record
+        }
+        return new TlsDetails(
+                session.getProtocol(),
+                session.getCipherSuite(),
+                starttls,
+                leaf != null ? leaf.getSubjectX500Principal().getName() : null,
+                leaf != null ? leaf.getIssuerX500Principal().getName() : null,
+                leaf != null ? subjectAltNames(leaf) : List.of(),
+                leaf != null ? LocalDateTime.ofInstant(leaf.getNotAfter().toInstant(), ZoneId.systemDefault()) : null);
+    }
+
+    private static List<String> subjectAltNames(X509Certificate certificate) {
+        List<String> names = new ArrayList<>();
+        try {
+            Collection<List<?>> entries = certificate.getSubjectAlternativeNames();
+            if (entries != null) {
+                for (List<?> entry : entries) {
+                    // 2 = dNSName, 7 = iPAddress
+                    Object type = entry.get(0);
+                    if ((Integer.valueOf(2).equals(type) || Integer.valueOf(7).equals(type)) && entry.get(1) instanceof String name) {
+                        names.add(name);
+                    }
+                }
+            }
+        } catch (CertificateParsingException e) {
+            log.debug("Unreadable subjectAltName extension: {}", e.getMessage());
+        }
+        return names;
+    }
+
+    // Extended, so JSSE does not wrap it with its own hostname and algorithm checks
+    private static final class AcceptAll extends X509ExtendedTrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
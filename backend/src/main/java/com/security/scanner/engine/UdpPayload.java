@@ -0,0 +1,141 @@
+package com.security.scanner.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Datagram sent to a UDP port and how to recognise the reply to it. Most UDP services ignore
+ * anything that is not a well-formed request, so well-known ports get a real query; the reply
+ * must carry the query's transaction id (or other token) at the given offset, so stray or late
+ * datagrams from the same host and port are not taken for it.
+ */
+public record UdpPayload(byte[] data, byte[] token, int tokenOffset) {
+
+    // The token may appear anywhere in the reply
+    private static final int ANYWHERE = -1;
+
+    private static final UdpPayload EMPTY = new UdpPayload(new byte[0], null, 0);
+
+    // QNAME version.bind, QTYPE TXT, QCLASS CHAOS: answered by BIND, Unbound, dnsmasq, ... with their version
+    private static final byte[] VERSION_BIND = {
+            7, 'v', 'e', 'r', 's', 'i', 'o', 'n', 4, 'b', 'i', 'n', 'd', 0, 0, 0x10, 0, 0x03};
+
+    // QNAME _services._dns-sd._udp.local, QTYPE PTR, QCLASS IN
+    private static final byte[] DNS_SD_SERVICES = {
+            9, '_', 's', 'e', 'r', 'v', 'i', 'c', 'e', 's', 7, '_', 'd', 'n', 's', '-', 's', 'd',
+            4, '_', 'u', 'd', 'p', 5, 'l', 'o', 'c', 'a', 'l', 0, 0, 0x0c, 0, 0x01};
+
+    // OID 1.3.6.1.2.1.1.1.0 (sysDescr.0)
+    private static final byte[] SYS_DESCR = {0x2b, 0x06, 0x01, 0x02, 0x01, 0x01, 0x01, 0x00};
+
+    private static final byte[] SSDP_SEARCH = ascii("M-SEARCH * HTTP/1.1\r\n"
+            + "HOST: 239.255.255.250:1900\r\n"
+            + "MAN: \"ssdp:discover\"\r\n"
+            + "MX: 1\r\n"
+            + "ST: ssdp:all\r\n\r\n");
+
+    public static UdpPayload forPort(int port) {
+        return switch (port) {
+            case 53 -> dns(VERSION_BIND);
+            case 5353 -> dns(DNS_SD_SERVICES);
+            case 123 -> ntp();
+            case 161 -> snmp("public");
+            case 1900 -> new UdpPayload(SSDP_SEARCH, ascii("HTTP/"), 0);
+            // Unknown service: an empty datagram, answered by echo-style services and little else
+            default -> EMPTY;
+        };
+    }
+
+    public boolean matches(ByteBuffer reply) {
+        if (token == null) {
+            return true;
+        }
+        int limit = reply.limit() - token.length;
+        int from = tokenOffset == ANYWHERE ? 0 : tokenOffset;
+        int to = tokenOffset == ANYWHERE ? limit : Math.min(tokenOffset, limit);
+        for (int start = from; start <= to; start++) {
+            if (tokenAt(reply, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tokenAt(ByteBuffer reply, int start) {
+        for (int i = 0; i < token.length; i++) {
+            if (reply.get(start + i) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static UdpPayload dns(byte[] question) {
+        byte[] id = random(2);
+        ByteBuffer query = ByteBuffer.allocate(12 + question.length)
+                .put(id)
+                .putShort((short) 0)   // standard query, no recursion
+                .putShort((short) 1)   // one question
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .put(question);
+        return new UdpPayload(query.array(), id, 0);
+    }
+
+    private static UdpPayload ntp() {
+        // NTPv4 client request; the server echoes our transmit timestamp as its originate timestamp
+        byte[] transmit = random(8);
+        byte[] request = new byte[48];
+        request[0] = (byte) 0xe3;
+        System.arraycopy(transmit, 0, request, 40, transmit.length);
+        return new UdpPayload(request, transmit, 24);
+    }
+
+    private static UdpPayload snmp(String community) {
+        // SNMPv2c GetRequest for sysDescr.0. The request id's top bits are fixed so its 4-byte
+        // encoding is minimal and agents echo it unchanged
+        byte[] requestId = random(4);
+        requestId[0] = (byte) (0x40 | (requestId[0] & 0x3f));
+        byte[] idField = tlv(0x02, requestId);
+
+        byte[] varbind = tlv(0x30, concat(tlv(0x06, SYS_DESCR), tlv(0x05, new byte[0])));
+        byte[] pdu = tlv(0xa0, concat(idField, tlv(0x02, new byte[]{0}), tlv(0x02, new byte[]{0}),
+                                     tlv(0x30, varbind)));
+        byte[] message = tlv(0x30, concat(tlv(0x02, new byte[]{1}),
+                                          tlv(0x04, community.getBytes(StandardCharsets.US_ASCII)), pdu));
+        return new UdpPayload(message, idField, ANYWHERE);
+    }
+
+    // Short-form BER length only: every element here is below 128 bytes
+    private static byte[] tlv(int tag, byte[] value) {
+        byte[] out = new byte[2 + value.length];
+        out[0] = (byte) tag;
+        out[1] = (byte) value.length;
+        System.arraycopy(value, 0, out, 2, value.length);
+        return out;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(length);
+        for (byte[] part : parts) {
+            out.put(part);
+        }
+        return out.array();
+    }
+
+    private static byte[] random(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,7 @@
+package com.security.scanner.engine;
+
+/**
+ * Outcome of a UDP probe and the reply that decided it ({@code null} when there was none).
+ */
+public record UdpProbeResult(ProbeResult result, byte[] reply) {
+}
@@ -0,0 +1,311 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UDP probes multiplexed over a few unconnected datagram channels served by one selector thread.
+ * <p>
+ * Every port gets the payload of {@link UdpPayload#forPort}; a datagram coming back from the
+ * probed address and port that carries the payload's token answers the probe (OPEN). Silent
+ * probes are retransmitted up to {@code scanner.udp.retries} times, each after the host's RTO
+ * (learned from the replies it gave) doubled per attempt, and are then reported FILTERED:
+ * unconnected sockets never see ICMP port-unreachable, so a closed port cannot be told apart
+ * from a dropped probe. At most {@code scanner.udp.max-in-flight} probes are outstanding;
+ * {@link #probe} blocks the caller while the window is full.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UdpScanEngine {
+
+    // Per-host RTT estimates kept; the least recently probed hosts are forgotten first
+    private static final int MAX_HOSTS = 65536;
+
+    private final ScannerConfig config;
+
+    private final Queue<Probe> submissions = new ConcurrentLinkedQueue<>();
+    private Semaphore window;
+    private Selector selector;
+    private DatagramChannel[] channels;
+    private Thread thread;
+    private volatile boolean running = true;
+
+    // Owned by the loop thread
+    private final Map<InetSocketAddress, List<Probe>> outstanding = new HashMap<>();
+    // Completed probes are dropped lazily when they reach the head
+    private final PriorityQueue<Probe> timers = new PriorityQueue<>(Comparator.comparingLong(p -> p.deadlineNanos));
+    private final Map<InetAddress, RttEstimator> hosts = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<InetAddress, RttEstimator> eldest) {
+            return size() > MAX_HOSTS;
+        }
+    };
+    private ByteBuffer receiveBuffer;
+    private int nextChannel;
+
+    @PostConstruct
+    public void start() throws IOException {
+        ScannerConfig.Udp udp = config.getUdp();
+        window = new Semaphore(udp.getMaxInFlight());
+        receiveBuffer = ByteBuffer.allocateDirect(65536);
+        selector = Selector.open();
+        channels = new DatagramChannel[Math.max(1, udp.getChannels())];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = DatagramChannel.open();
+            channels[i].configureBlocking(false);
+            channels[i].setOption(StandardSocketOptions.SO_RCVBUF, 1 << 20);
+            channels[i].bind(null);
+            channels[i].register(selector, SelectionKey.OP_READ);
+        }
+        thread = new Thread(this::run, "udp-scanner");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("UDP scan engine started - {} channels, {} in-flight probes", channels.length, udp.getMaxInFlight());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Probes one UDP port; {@code timeoutMs} caps the wait for a reply to any single transmission.
+     */
+    public CompletableFuture<UdpProbeResult> probe(InetAddress address, int port, int timeoutMs) {
+        CompletableFuture<UdpProbeResult> future = new CompletableFuture<>();
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete((result, error) -> window.release());
+        Probe probe = new Probe(new InetSocketAddress(address, port), UdpPayload.forPort(port), timeoutMs, future);
+        submissions.add(probe);
+        selector.wakeup();
+        // The loop may have drained the queue for the last time
+        if (!running && submissions.remove(probe)) {
+            future.complete(new UdpProbeResult(ProbeResult.error(port, 0, "Scanner shutting down"), null));
+        }
+        return future;
+    }
+
+    private void run() {
+        LoopBackoff backoff = new LoopBackoff("UDP selector loop");
+        try {
+            while (running) {
+                try {
+                    startSubmitted();
+                    selector.select(selectTimeoutMillis());
+                    receive();
+                    expireTimedOut();
+                    backoff.succeeded();
+                } catch (ClosedSelectorException e) {
+                    log.error("UDP selector loop stopped: its selector was closed");
+                    break;
+                } catch (IOException | RuntimeException e) {
+                    // Keep selecting: outstanding probes would otherwise never complete
+                    backoff.failed(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        closeAll();
+    }
+
+    private void startSubmitted() {
+        Probe probe;
+        while ((probe = submissions.poll()) != null) {
+            if (probe.future.isDone()) {
+                continue;
+            }
+            probe.channel = channels[nextChannel];
+            nextChannel = (nextChannel + 1) % channels.length;
+            outstanding.computeIfAbsent(probe.target, target -> new ArrayList<>(1)).add(probe);
+            transmit(probe, System.nanoTime());
+        }
+    }
+
+    private void transmit(Probe probe, long now) {
+        RttEstimator rtt = hosts.computeIfAbsent(probe.target.getAddress(),
+                address -> new RttEstimator(config.getUdp().getInitialRto(), config.getUdp().getMinRto()));
+        long rto = Math.min(probe.maxRto, rtt.rto(probe.maxRto) << probe.attempts);
+        if (probe.attempts == 0) {
+            probe.firstSentNanos = now;
+        }
+        try {
+            // A full send buffer drops the datagram like the network would; the retransmit covers it
+            probe.channel.send(ByteBuffer.wrap(probe.payload.data()), probe.target);
+        } catch (IOException e) {
+            finish(probe, ProbeResult.error(probe.target.getPort(), probe.elapsed(now), e.getMessage()), null);
+            return;
+        } catch (RuntimeException e) {
+            // Unresolved target, IPv6 target on an IPv4 channel, or a security manager veto
+            finish(probe, ProbeResult.error(probe.target.getPort(), probe.elapsed(now), e.toString()), null);
+            return;
+        }
+        probe.attempts++;
+        probe.deadlineNanos = now + TimeUnit.MILLISECONDS.toNanos(rto);
+        timers.add(probe);
+    }
+
+    private long selectTimeoutMillis() {
+        while (!timers.isEmpty() && timers.peek().future.isDone()) {
+            forget(timers.poll());
+        }
+        if (timers.isEmpty()) {
+            return 0; // block until woken up
+        }
+        long remaining = timers.peek().deadlineNanos - System.nanoTime();
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+
+    private void receive() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            DatagramChannel channel = (DatagramChannel) key.channel();
+            try {
+                SocketAddress from;
+                while ((from = channel.receive(receiveBuffer.clear())) != null) {
+                    answer((InetSocketAddress) from, receiveBuffer.flip());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("UDP receive failed: {}", e.toString());
+            }
+        }
+    }
+
+    private void answer(InetSocketAddress from, ByteBuffer reply) {
+        List<Probe> probes = outstanding.get(from);
+        if (probes == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Probe probe : List.copyOf(probes)) {
+            if (probe.future.isDone()) {
+                forget(probe);
+            } else if (probe.payload.matches(reply)) {
+                if (probe.attempts == 1) {
+                    hosts.computeIfPresent(from.getAddress(), (address, rtt) -> {
+                        rtt.sample(TimeUnit.NANOSECONDS.toMillis(now - probe.firstSentNanos));
+                        return rtt;
+                    });
+                }
+                byte[] data = new byte[Math.min(reply.remaining(), config.getUdp().getMaxReplyBytes())];
+                reply.get(data);
+                finish(probe, ProbeResult.open(from.getPort(), probe.elapsed(now)), data);
+                return;
+            }
+        }
+    }
+
+    private void expireTimedOut() {
+        long now = System.nanoTime();
+        while (!timers.isEmpty() && timers.peek().deadlineNanos - now <= 0) {
+            Probe probe = timers.poll();
+            if (probe.future.isDone()) {
+                forget(probe);
+            } else if (probe.attempts <= config.getUdp().getRetries()) {
+                transmit(probe, now);
+            } else {
+                finish(probe, ProbeResult.noResponse(probe.target.getPort(), probe.elapsed(now)), null);
+            }
+        }
+    }
+
+    private void finish(Probe probe, ProbeResult result, byte[] reply) {
+        forget(probe);
+        probe.future.complete(new UdpProbeResult(result, reply));
+    }
+
+    private void forget(Probe probe) {
+        List<Probe> probes = outstanding.get(probe.target);
+        if (probes != null && probes.remove(probe) && probes.isEmpty()) {
+            outstanding.remove(probe.target);
+        }
+    }
+
+    private void closeAll() {
+        Probe probe;
+        while ((probe = submissions.poll()) != null) {
+            probe.future.complete(new UdpProbeResult(
+                    ProbeResult.error(probe.target.getPort(), 0, "Scanner shutting down"), null));
+        }
+        long now = System.nanoTime();
+        while ((probe = timers.poll()) != null) {
+            if (!probe.future.isDone()) {
+                finish(probe, ProbeResult.error(probe.target.getPort(), probe.elapsed(now), "Scanner shutting down"), null);
+            }
+        }
+        for (DatagramChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // shutting down anyway
+        }
+    }
+
+    private static final class Probe {
+        private final InetSocketAddress target;
+        private final UdpPayload payload;
+        private final long maxRto;
+        private final CompletableFuture<UdpProbeResult> future;
+        private DatagramChannel channel;
+        private int attempts;
+        private long firstSentNanos;
+        private long deadlineNanos;
+
+        private Probe(InetSocketAddress target, UdpPayload payload, int timeoutMs,
+                      CompletableFuture<UdpProbeResult> future) {
+            this.target = target;
+            this.payload = payload;
+            this.maxRto = Math.max(1, timeoutMs);
+            this.future = future;
+        }
+
+        private int elapsed(long now) {
+            return (int) TimeUnit.NANOSECONDS.toMillis(now - firstSentNanos);
+        }
+    }
+}
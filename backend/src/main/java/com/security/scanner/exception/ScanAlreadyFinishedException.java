@@ -0,0 +1,7 @@
+package com.security.scanner.exception;
+
+public class ScanAlreadyFinishedException extends RuntimeException {
+    public ScanAlreadyFinishedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,45 @@
+package com.security.scanner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One open port of a {@link ScanBaseline}.
+ */
+@Entity
+@Table(name = "baseline_ports",
+       uniqueConstraints = @UniqueConstraint(name = "uk_baseline_ports_host_port",
+                                             columnNames = {"baseline_id", "host", "port"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BaselinePort {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "baseline_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private ScanBaseline baseline;
+    
+    @Column(nullable = false)
+    private String host;
+    
+    @Column(nullable = false)
+    private Integer port;
+    
+    private String service;
+    
+    private String version;
+    
+    // SHA-256 of the banner without volatile headers, plus the TLS certificate
+    private String bannerHash;
+}
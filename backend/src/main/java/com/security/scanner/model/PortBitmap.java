@@ -0,0 +1,49 @@
+package com.security.scanner.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Compressed set of ports of one host that ended in the same status, used instead of
+ * one PortResult row per port for jobs with compact results.
+ */
+@Entity
+@Table(name = "port_bitmaps", indexes = @Index(name = "idx_port_bitmaps_job", columnList = "scan_job_id"),
+       uniqueConstraints = @UniqueConstraint(name = "uk_port_bitmaps_job_host_status",
+                                             columnNames = {"scan_job_id", "host", "status"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortBitmap {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    private String host;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PortResult.PortStatus status;
+    
+    @Column(nullable = false)
+    private Integer portCount;
+    
+    // Deflate-compressed java.util.BitSet, bit n set = port n
+    @Column(nullable = false, columnDefinition = "bytea")
+    @JsonIgnore
+    private byte[] bitmap;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "scan_job_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private ScanJob scanJob;
+}
@@ -7,8 +7,16 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "port_results")
+@Table(name = "port_results", indexes = {
+        @Index(name = "idx_port_results_job", columnList = "scan_job_id, id"),
+        @Index(name = "idx_port_results_job_status", columnList = "scan_job_id, status, id")
+}, uniqueConstraints = {
+        // Lets a resumed scan re-insert ports written after its last checkpoint without duplicates
+        @UniqueConstraint(name = "uk_port_results_job_host_port", columnNames = {"scan_job_id", "host", "port"})
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -19,6 +27,8 @@ public class PortResult {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    private String host;  // Address scanned, for multi-host targets
+    
     @Column(nullable = false)
     private Integer port;
     
@@ -28,11 +38,29 @@ public class PortResult {
     
     private String service;
     
+    private String version;  // Product / version taken from the banner by the matching fingerprint
+    
     @Column(columnDefinition = "TEXT")
     private String banner;
     
     private Integer responseTime;
     
+    // Negotiated TLS session and leaf certificate, for ports probed over (STARTTLS) TLS
+    private String tlsProtocol;
+    
+    private String tlsCipher;
+    
+    @Column(columnDefinition = "TEXT")
+    private String certSubject;
+    
+    @Column(columnDefinition = "TEXT")
+    private String certIssuer;
+    
+    @Column(columnDefinition = "TEXT")
+    private String certSubjectAltNames;  // Comma-separated DNS names and IP addresses
+    
+    private LocalDateTime certNotAfter;
+    
     @Column(columnDefinition = "TEXT")
     private String errorMessage;  // For closed/filtered ports
     
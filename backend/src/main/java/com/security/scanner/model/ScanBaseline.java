@@ -0,0 +1,45 @@
+package com.security.scanner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Open ports last seen on a target and port range, which diff-mode scans are compared with.
+ * Seeded by the first completed diff-mode scan and moved forward by the changes of each later one.
+ */
+@Entity
+@Table(name = "scan_baselines",
+       uniqueConstraints = @UniqueConstraint(name = "uk_scan_baselines_scope",
+                                             columnNames = {"target", "port_range", "protocol"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanBaseline {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String target;
+    
+    @Column(nullable = false)
+    private String portRange;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ScanJob.Protocol protocol;
+    
+    // Last completed scan folded into the baseline
+    @Column(nullable = false)
+    private Long lastJobId;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
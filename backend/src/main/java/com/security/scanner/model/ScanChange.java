@@ -0,0 +1,80 @@
+package com.security.scanner.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A port of a diff-mode scan that differs from the target's baseline.
+ */
+@Entity
+@Table(name = "scan_changes", indexes = {
+        @Index(name = "idx_scan_changes_job", columnList = "scan_job_id, id"),
+        @Index(name = "idx_scan_changes_target", columnList = "target, id")
+}, uniqueConstraints = {
+        // A resumed scan reports the ports after its last checkpoint again
+        @UniqueConstraint(name = "uk_scan_changes_job_host_port", columnNames = {"scan_job_id", "host", "port"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "scan_job_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private ScanJob scanJob;
+    
+    @Column(nullable = false)
+    private String target;
+    
+    @Column(nullable = false)
+    private String host;
+    
+    @Column(nullable = false)
+    private Integer port;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChangeType changeType;
+    
+    // Status the port was found in: OPEN, CLOSED or FILTERED; FILTERED for every port of a host found down
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PortResult.PortStatus status;
+    
+    private String previousService;
+    
+    private String service;
+    
+    private String previousVersion;
+    
+    private String version;
+    
+    @Column(columnDefinition = "TEXT")
+    private String banner;
+    
+    private String bannerHash;
+    
+    @Column(nullable = false)
+    private LocalDateTime detectedAt;
+    
+    public enum ChangeType {
+        OPENED, CLOSED, SERVICE_CHANGED, BANNER_CHANGED,
+        // A known-open port that did not answer; unlike CLOSED it stays in the baseline
+        FILTERED
+    }
+}
@@ -0,0 +1,31 @@
+package com.security.scanner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last durable coverage of a running scan, so it can be resumed after the instance running it dies.
+ */
+@Entity
+@Table(name = "scan_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanCheckpoint {
+    
+    @Id
+    private Long scanJobId;
+    
+    // Deflated CheckpointTracker state: finished hosts, ports covered on hosts in progress, counters
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
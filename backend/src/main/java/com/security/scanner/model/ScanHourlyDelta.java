@@ -0,0 +1,33 @@
+package com.security.scanner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change in the number of scan jobs created in an hour, appended by a trigger on scan_jobs; the
+ * count of an hour is the sum of its rows (see {@link com.security.scanner.service.ScanStatsService}).
+ */
+@Entity
+@Table(name = "scan_hourly_deltas", indexes = @Index(name = "idx_scan_hourly_deltas_bucket", columnList = "bucket"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanHourlyDelta {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Start of the hour
+    @Column(nullable = false)
+    private LocalDateTime bucket;
+    
+    @Column(nullable = false)
+    private Long delta;
+}
@@ -1,5 +1,6 @@
 package com.security.scanner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,7 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "scan_jobs")
+@Table(name = "scan_jobs", indexes = @Index(name = "idx_scan_jobs_created", columnList = "created_at"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -30,12 +31,48 @@ public class ScanJob {
     @Column(nullable = false)
     private String portRange;
     
+    // Transport probed on every port (null means TCP)
+    @Enumerated(EnumType.STRING)
+    private Protocol protocol;
+    
+    // Upper bound of the per-host adaptive connect timeout (ms)
+    private Integer timeout;
+    
+    // Check each host is up before probing its ports; hosts found down get no results
+    private Boolean hostDiscovery;
+    
+    // Store only the ports that differ from the baseline of the target and port range
+    private Boolean diffMode;
+    
+    // Last job of the baseline this one is compared with, as read when the scan started; null
+    // while it seeds the baseline
+    private Long baselineJobId;
+    
+    // Set once the scan has read its baseline: resumed runs and later work units keep baselineJobId
+    private Boolean baselineLoaded;
+    
+    // Changes from the baseline found by a completed diff-mode job
+    private Integer changedPorts;
+    
+    // Verify-known-open rescan: the ports found open by the last completed scan of the target and
+    // port range (as ranges, probed first), then sweepCount ports of the range from sweepOffset on
+    private Boolean verifyOpen;
+    
+    @Column(columnDefinition = "TEXT")
+    private String knownOpenPorts;
+    
+    private Integer sweepOffset;
+    
+    private Integer sweepCount;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private ScanStatus status;
     
     private Integer progress;
     
+    private Integer totalHosts;
+    
     private Integer totalPorts;
     
     private Integer scannedPorts;
@@ -47,6 +84,14 @@ public class ScanJob {
     
     private Integer filteredPorts;
     
+    // Whether CLOSED / FILTERED rows are persisted (they are always counted)
+    private Boolean includeClosedPorts;
+    
+    private Boolean includeFilteredPorts;
+    
+    // CLOSED / FILTERED ports stored as port_bitmaps instead of port_results rows
+    private Boolean compactResults;
+    
     @CreationTimestamp
     private LocalDateTime createdAt;
     
@@ -55,8 +100,22 @@ public class ScanJob {
     
     private LocalDateTime completedAt;
     
+    // Instance running the job and its last sign of life; stale PENDING / RUNNING jobs are resumed elsewhere
+    private String owner;
+    
+    private LocalDateTime heartbeatAt;
+    
+    // Split into scan_work_units and run by whichever replicas claim them
+    private Boolean distributed;
+    
+    // Admission class: ad-hoc scans are started before scheduled ones (null means AD_HOC)
+    @Enumerated(EnumType.STRING)
+    private Priority priority;
+    
+    // Up to 65k rows per host: served page by page by /api/scans/{id}/ports, never with the job
     @OneToMany(mappedBy = "scanJob", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
+    @JsonIgnore
     private List<PortResult> results = new ArrayList<>();
     
     @Column(columnDefinition = "TEXT")
@@ -65,4 +124,12 @@ public class ScanJob {
     public enum ScanStatus {
         PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
     }
+    
+    public enum Priority {
+        AD_HOC, SCHEDULED
+    }
+    
+    public enum Protocol {
+        TCP, UDP
+    }
 }
\ No newline at end of file
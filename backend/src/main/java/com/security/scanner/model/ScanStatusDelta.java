@@ -0,0 +1,31 @@
+package com.security.scanner.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change in the number of scan jobs of a status, appended by a trigger on scan_jobs; the count of
+ * a status is the sum of its rows (see {@link com.security.scanner.service.ScanStatsService}).
+ */
+@Entity
+@Table(name = "scan_status_deltas")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanStatusDelta {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ScanJob.ScanStatus status;
+    
+    @Column(nullable = false)
+    private Long delta;
+}
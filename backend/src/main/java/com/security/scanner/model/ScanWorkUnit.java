@@ -0,0 +1,80 @@
+package com.security.scanner.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slice of a distributed scan: a run of consecutive hosts of the target crossed with a run of
+ * consecutive entries of the port list. Replicas claim PENDING units with SKIP LOCKED and keep
+ * them alive with heartbeats; units of a dead replica go back to PENDING.
+ */
+@Entity
+@Table(name = "scan_work_units", indexes = {
+        @Index(name = "idx_scan_work_units_status", columnList = "status, id"),
+        @Index(name = "idx_scan_work_units_job", columnList = "scan_job_id, status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanWorkUnit {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "scan_job_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private ScanJob scanJob;
+    
+    // Position in the target's host order and number of hosts
+    @Column(nullable = false)
+    private Long hostOffset;
+    
+    @Column(nullable = false)
+    private Integer hostCount;
+    
+    // Position in the job's port list and number of ports
+    @Column(nullable = false)
+    private Integer portOffset;
+    
+    @Column(nullable = false)
+    private Integer portCount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UnitStatus status;
+    
+    private String owner;
+    
+    private LocalDateTime heartbeatAt;
+    
+    @Column(nullable = false)
+    private Integer attempts;
+    
+    // Progress of a CLAIMED unit so far; counts of a DONE unit, already added to the job
+    private Integer scannedPorts;
+    
+    private Integer openPorts;
+    
+    private Integer closedPorts;
+    
+    private Integer filteredPorts;
+    
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    public enum UnitStatus {
+        PENDING, CLAIMED, DONE, FAILED
+    }
+}
@@ -1,5 +1,6 @@
 package com.security.scanner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,7 +11,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "scheduled_scans")
+@Table(name = "scheduled_scans", indexes = @Index(name = "idx_scheduled_scans_due", columnList = "enabled, next_run_at"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -30,16 +31,34 @@ public class ScheduledScan {
     @Column(nullable = false)
     private String portRange;
     
+    // Protocol of the runs; null is TCP
+    @Enumerated(EnumType.STRING)
+    private ScanJob.Protocol protocol;
+    
     @Column(nullable = false)
     private String cronExpression;
     
     @Column(nullable = false)
     private Boolean enabled;
     
+    // Runs are diff-mode scans: each stores only what changed since the previous one
+    private Boolean diffMode;
+    
+    // Runs verify the ports found open by the previous run and sweep the next slice of the range
+    private Boolean verifyOpen;
+    
     @CreationTimestamp
     private LocalDateTime createdAt;
     
     private LocalDateTime lastRunAt;
     
+    // Next fire time of the cron expression; null while disabled
     private LocalDateTime nextRunAt;
+    
+    // Replica currently firing this schedule, and until when the claim holds
+    @JsonIgnore
+    private String leaseOwner;
+    
+    @JsonIgnore
+    private LocalDateTime leaseUntil;
 }
@@ -0,0 +1,21 @@
+package com.security.scanner.repository;
+
+import com.security.scanner.model.PortBitmap;
+import com.security.scanner.model.PortResult;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PortBitmapRepository extends JpaRepository<PortBitmap, Long> {
+    
+    List<PortBitmap> findByScanJobIdOrderByIdAsc(Long scanJobId);
+    
+    List<PortBitmap> findByScanJobIdAndStatusInOrderByIdAsc(Long scanJobId, Collection<PortResult.PortStatus> statuses);
+    
+    List<PortBitmap> findByScanJobIdAndStatusInAndIdGreaterThanEqualOrderByIdAsc(
+            Long scanJobId, Collection<PortResult.PortStatus> statuses, Long id, Pageable pageable);
+}
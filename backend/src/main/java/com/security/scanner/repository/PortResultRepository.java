@@ -1,11 +1,14 @@
 
 package com.security.scanner.repository;
 
+import com.security.scanner.dto.PortResultView;
 import com.security.scanner.model.PortResult;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,6 +21,9 @@ public interface PortResultRepository extends JpaRepository<PortResult, Long> {
     @Query("SELECT pr FROM PortResult pr WHERE pr.scanJob.id = :scanJobId AND pr.status = 'OPEN'")
     List<PortResult> findOpenPortsByScanJobId(Long scanJobId);
     
+    @Query("SELECT DISTINCT pr.port FROM PortResult pr WHERE pr.scanJob.id = :scanJobId AND pr.status = 'OPEN'")
+    List<Integer> findOpenPortNumbersByScanJobId(Long scanJobId);
+    
     @Query("SELECT pr FROM PortResult pr WHERE pr.scanJob.id = :scanJobId AND pr.status = 'CLOSED'")
     List<PortResult> findClosedPortsByScanJobId(Long scanJobId);
     
@@ -26,4 +32,11 @@ public interface PortResultRepository extends JpaRepository<PortResult, Long> {
     
     @Query("SELECT COUNT(pr) FROM PortResult pr WHERE pr.scanJob.id = :scanJobId AND pr.status = :status")
     long countByScanJobIdAndStatus(Long scanJobId, PortResult.PortStatus status);
-}
\ No newline at end of file
+    
+    // Keyset page: results of a job with the given statuses and id > after, in id order
+    @Query("SELECT new com.security.scanner.dto.PortResultView(pr.id, pr.host, pr.port, pr.status, pr.service, " +
+           "pr.version, pr.banner, pr.responseTime, pr.errorMessage, pr.tlsProtocol, pr.tlsCipher, pr.certSubject, " +
+           "pr.certIssuer, pr.certSubjectAltNames, pr.certNotAfter) FROM PortResult pr " +
+           "WHERE pr.scanJob.id = :scanJobId AND pr.status IN :statuses AND pr.id > :after ORDER BY pr.id")
+    List<PortResultView> findPage(Long scanJobId, Collection<PortResult.PortStatus> statuses, Long after, Pageable pageable);
+}
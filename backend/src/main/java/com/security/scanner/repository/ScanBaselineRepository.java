@@ -0,0 +1,14 @@
+package com.security.scanner.repository;
+
+import com.security.scanner.model.ScanBaseline;
+import com.security.scanner.model.ScanJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ScanBaselineRepository extends JpaRepository<ScanBaseline, Long> {
+    
+    Optional<ScanBaseline> findByTargetAndPortRangeAndProtocol(String target, String portRange, ScanJob.Protocol protocol);
+}
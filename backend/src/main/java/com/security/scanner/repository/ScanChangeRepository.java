@@ -0,0 +1,30 @@
+package com.security.scanner.repository;
+
+import com.security.scanner.dto.ScanChangeView;
+import com.security.scanner.model.ScanChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScanChangeRepository extends JpaRepository<ScanChange, Long> {
+    
+    long countByScanJobId(Long scanJobId);
+    
+    // Keyset page: changes found by a job with id > after, in id order
+    @Query("SELECT new com.security.scanner.dto.ScanChangeView(c.id, c.scanJob.id, c.target, c.host, c.port, " +
+           "c.changeType, c.status, c.previousService, c.service, c.previousVersion, c.version, c.banner, c.detectedAt) " +
+           "FROM ScanChange c WHERE c.scanJob.id = :scanJobId AND c.id > :after ORDER BY c.id")
+    List<ScanChangeView> findPage(Long scanJobId, Long after, Pageable pageable);
+    
+    // Keyset page of the changes of completed jobs, optionally of one target
+    @Query("SELECT new com.security.scanner.dto.ScanChangeView(c.id, c.scanJob.id, c.target, c.host, c.port, " +
+           "c.changeType, c.status, c.previousService, c.service, c.previousVersion, c.version, c.banner, c.detectedAt) " +
+           "FROM ScanChange c WHERE c.scanJob.status = 'COMPLETED' AND (:target IS NULL OR c.target = :target) " +
+           "AND c.detectedAt >= :since AND c.id > :after ORDER BY c.id")
+    List<ScanChangeView> findFeed(String target, LocalDateTime since, Long after, Pageable pageable);
+}
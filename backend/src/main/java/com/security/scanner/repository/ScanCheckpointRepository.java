@@ -0,0 +1,9 @@
+package com.security.scanner.repository;
+
+import com.security.scanner.model.ScanCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScanCheckpointRepository extends JpaRepository<ScanCheckpoint, Long> {
+}
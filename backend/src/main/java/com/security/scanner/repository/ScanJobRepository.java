@@ -1,13 +1,17 @@
 package com.security.scanner.repository;
 
+import com.security.scanner.dto.RecentScanView;
 import com.security.scanner.model.ScanJob;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,11 +21,64 @@ public interface ScanJobRepository extends JpaRepository<ScanJob, Long> {
     
     List<ScanJob> findByStatus(ScanJob.ScanStatus status);
     
-    @Query("SELECT s FROM ScanJob s WHERE s.createdAt >= :since ORDER BY s.createdAt DESC")
-    List<ScanJob> findRecentScans(LocalDateTime since);
+    // Newest scans created since the given time, without their results
+    @Query("SELECT new com.security.scanner.dto.RecentScanView(s.id, s.target, s.portRange, s.status, s.progress, " +
+           "s.openPorts, s.createdAt, s.completedAt) FROM ScanJob s WHERE s.createdAt >= :since ORDER BY s.createdAt DESC")
+    List<RecentScanView> findRecent(LocalDateTime since, Pageable pageable);
     
-    long countByStatus(ScanJob.ScanStatus status);
+    // Latest completed scan of a target and port range that stored all its open ports (not a diff)
+    @Query("SELECT s FROM ScanJob s WHERE s.target = :target AND s.portRange = :portRange " +
+           "AND s.protocol = :protocol AND s.status = 'COMPLETED' AND (s.diffMode IS NULL OR s.diffMode = false) " +
+           "ORDER BY s.completedAt DESC, s.id DESC")
+    List<ScanJob> findLastCompleted(String target, String portRange, ScanJob.Protocol protocol, Pageable pageable);
     
-    @Query("SELECT COUNT(s) FROM ScanJob s WHERE s.createdAt >= :since")
-    long countScansSince(LocalDateTime since);
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScanJob s SET s.progress = :progress, s.scannedPorts = :scanned, s.openPorts = :open, " +
+           "s.closedPorts = :closed, s.filteredPorts = :filtered, s.heartbeatAt = :now " +
+           "WHERE s.id = :id AND s.status = 'RUNNING' AND s.owner = :owner")
+    int updateProgress(Long id, String owner, LocalDateTime now,
+                       int progress, int scanned, int open, int closed, int filtered);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScanJob s SET s.status = 'CANCELLED', s.completedAt = :now " +
+           "WHERE s.id = :id AND s.status IN ('PENDING', 'RUNNING')")
+    int markCancelled(Long id, LocalDateTime now);
+    
+    @Query("SELECT s.id FROM ScanJob s WHERE s.status IN ('PENDING', 'RUNNING') " +
+           "AND (s.distributed IS NULL OR s.distributed = false) " +
+           "AND (s.heartbeatAt IS NULL OR s.heartbeatAt < :staleBefore OR (:includeOwn = true AND s.owner = :owner)) " +
+           "ORDER BY s.createdAt")
+    List<Long> findOrphaned(LocalDateTime staleBefore, String owner, boolean includeOwn);
+    
+    /**
+     * Takes over an orphaned job; returns 0 if another instance claimed it first or it came back to life.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScanJob s SET s.owner = :owner, s.heartbeatAt = :now " +
+           "WHERE s.id = :id AND s.status IN ('PENDING', 'RUNNING') " +
+           "AND (s.heartbeatAt IS NULL OR s.heartbeatAt < :staleBefore OR (:includeOwn = true AND s.owner = :owner))")
+    int claim(Long id, String owner, LocalDateTime now, LocalDateTime staleBefore, boolean includeOwn);
+    
+    /**
+     * Heartbeats jobs waiting in this instance's admission queue, so recovery leaves them alone.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScanJob s SET s.heartbeatAt = :now WHERE s.id IN :ids AND s.owner = :owner " +
+           "AND s.status IN ('PENDING', 'RUNNING')")
+    int touchQueued(Collection<Long> ids, String owner, LocalDateTime now);
+    
+    boolean existsByIdAndOwner(Long id, String owner);
+    
+    /**
+     * Clears the heartbeat of a job this instance gives up, so recovery takes it over right away.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScanJob s SET s.heartbeatAt = NULL WHERE s.id = :id AND s.owner = :owner " +
+           "AND s.status IN ('PENDING', 'RUNNING')")
+    int release(Long id, String owner);
 }
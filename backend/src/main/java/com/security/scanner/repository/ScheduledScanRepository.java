@@ -1,13 +1,40 @@
 package com.security.scanner.repository;
 
 import com.security.scanner.model.ScheduledScan;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ScheduledScanRepository extends JpaRepository<ScheduledScan, Long> {
     
     List<ScheduledScan> findByEnabledTrue();
+    
+    /**
+     * Due schedules nobody holds a lease on, row-locked; rows locked by another replica are skipped.
+     */
+    @Query(value = "SELECT * FROM scheduled_scans WHERE enabled = true AND next_run_at <= :now " +
+                   "AND (lease_until IS NULL OR lease_until < :now) " +
+                   "ORDER BY next_run_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScheduledScan> lockDue(LocalDateTime now, int limit);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScheduledScan s WHERE s.id = :id")
+    Optional<ScheduledScan> findForUpdate(Long id);
+    
+    @Query("SELECT MIN(s.nextRunAt) FROM ScheduledScan s WHERE s.enabled = true " +
+           "AND (s.leaseUntil IS NULL OR s.leaseUntil < :now)")
+    LocalDateTime findNextRunAt(LocalDateTime now);
+    
+    @Query("SELECT MIN(s.leaseUntil) FROM ScheduledScan s WHERE s.enabled = true AND s.leaseUntil >= :now")
+    LocalDateTime findNextLeaseExpiry(LocalDateTime now);
+    
+    List<ScheduledScan> findByEnabledTrueAndNextRunAtIsNull(Pageable pageable);
 }
@@ -1,65 +1,107 @@
 package com.security.scanner.service;
 
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.Banner;
+import com.security.scanner.engine.BannerProbe;
+import com.security.scanner.engine.BannerReader;
+import com.security.scanner.engine.TlsProber;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class BannerGrabberService {
     
-    public String grabBanner(Socket socket, int port) {
-        try {
-            socket.setSoTimeout(2000);
-            
-            InputStream input = socket.getInputStream();
-            OutputStream output = socket.getOutputStream();
-            
-            // Send protocol-specific probes
-            sendProbe(output, port);
-            
-            // Read response
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(input, StandardCharsets.UTF_8));
-            
-            StringBuilder banner = new StringBuilder();
-            String line;
-            int linesRead = 0;
-            
-            while (linesRead < 10 && (line = reader.readLine()) != null) {
-                banner.append(line).append("\n");
-                linesRead++;
-                
-                // Break early for some services
-                if (line.contains("SSH-") || line.contains("HTTP/")) {
-                    break;
+    private final BannerReader bannerReader;
+    private final TlsProber tlsProber;
+    private final ScannerConfig config;
+    
+    /**
+     * Grabs the raw banner of an open port with the probe for its well-known protocol, over TLS
+     * where the port calls for it. Completes with no bytes if the service stayed silent or the
+     * connection failed; never exceptionally.
+     */
+    public CompletableFuture<Banner> grabBanner(InetSocketAddress address) {
+        BannerProbe probe = BannerProbe.forPort(address.getPort());
+        if (!usesTls(probe)) {
+            return bannerReader.read(address, probe.plaintext()).thenApply(Banner::plain);
+        }
+        return tlsProber.probe(address, probe)
+                .handle((banner, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(banner);
+                    }
+                    // Not TLS after all (plain HTTP on 8443, ...): ask again in plaintext
+                    log.debug("TLS probe of {} failed, retrying in plaintext: {}", address, error.getMessage());
+                    return bannerReader.read(address, probe.plaintext()).thenApply(Banner::plain);
+                })
+                .thenCompose(banner -> banner);
+    }
+    
+    private boolean usesTls(BannerProbe probe) {
+        ScannerConfig.Tls tls = config.getTls();
+        return switch (probe.tls()) {
+            case NONE -> false;
+            case IMPLICIT -> tls.isEnabled();
+            default -> tls.isEnabled() && tls.isStarttls();
+        };
+    }
+    
+    /**
+     * Text banners are kept as text. Anything else (MySQL handshakes, TLS alerts, ...) is rendered
+     * with {@code \xNN} escapes, which keeps every byte and keeps NULs out of the text column.
+     */
+    public static String decode(byte[] data) {
+        if (data.length == 0) {
+            return "";
+        }
+        String text = asText(data);
+        if (text != null) {
+            return text.replace("\r\n", "\n").trim();
+        }
+        StringBuilder escaped = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            int c = b & 0xff;
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\r' -> escaped.append("\\r");
+                case '\n' -> escaped.append("\\n");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c >= 0x20 && c < 0x7f) {
+                        escaped.append((char) c);
+                    } else {
+                        escaped.append(String.format("\\x%02x", c));
+                    }
                 }
             }
-            
-            return banner.toString().trim();
-            
-        } catch (Exception e) {
-            log.debug("Banner grab failed for port {}: {}", port, e.getMessage());
-            return "";
         }
+        return escaped.toString();
     }
     
-    private void sendProbe(OutputStream output, int port) throws IOException {
-        String probe = switch (port) {
-            case 80, 8080 -> "GET / HTTP/1.0\r\n\r\n";
-            case 443, 8443 -> "GET / HTTP/1.0\r\n\r\n";
-            case 6379 -> "PING\r\n";
-            case 3306 -> "";  // MySQL sends banner immediately
-            case 5432 -> "";  // PostgreSQL sends banner immediately
-            default -> "\r\n";
-        };
-        
-        if (!probe.isEmpty()) {
-            output.write(probe.getBytes(StandardCharsets.UTF_8));
-            output.flush();
+    private static String asText(byte[] data) {
+        for (byte b : data) {
+            if ((b >= 0 && b < 0x20 && b != '\r' && b != '\n' && b != '\t') || b == 0x7f) {
+                return null;
+            }
+        }
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return null;
         }
     }
 }
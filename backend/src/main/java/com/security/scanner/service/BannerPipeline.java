@@ -0,0 +1,113 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.Banner;
+import com.security.scanner.engine.BannerReader;
+import com.security.scanner.engine.ScanControl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.net.InetSocketAddress;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Banner grabbing as a pipeline stage of its own. Scanners queue their OPEN ports here and carry
+ * on probing; at most {@code scanner.banner.max-concurrent} grabs run at a time across all scans,
+ * so a target full of silent services neither stalls port discovery nor opens a second socket
+ * for every open port at once. The same limit sizes the {@link BannerReader}'s buffer pool.
+ */
+@Service
+@Slf4j
+public class BannerPipeline {
+
+    private final BannerGrabberService bannerGrabber;
+    private final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final Semaphore slots;
+    private final int size;
+    private final MeterRegistry registry;
+
+    public BannerPipeline(BannerGrabberService bannerGrabber, ScannerConfig config, MeterRegistry registry) {
+        this.bannerGrabber = bannerGrabber;
+        this.size = Math.max(1, config.getBanner().getMaxConcurrent());
+        this.slots = new Semaphore(size);
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("scanner.banner.queued", queued, AtomicInteger::get)
+                .description("OPEN ports waiting for a banner grab")
+                .register(registry);
+        Gauge.builder("scanner.banner.in_flight", this, pipeline -> pipeline.size - pipeline.slots.availablePermits())
+                .description("Banner grabs in progress")
+                .register(registry);
+    }
+
+    /**
+     * Queues a banner grab for the port; the future completes with the banner, which has no bytes
+     * if the service stayed silent, refused the connection or the scan was cancelled.
+     */
+    public CompletableFuture<Banner> submit(InetSocketAddress address, ScanControl control) {
+        Request request = new Request(address, control, new CompletableFuture<>());
+        queue.add(request);
+        queued.incrementAndGet();
+        drain();
+        return request.banner;
+    }
+
+    private void drain() {
+        // One drainer at a time; callers arriving meanwhile make it go round again. A finishing
+        // grab frees its slot before draining, so a request queued while all slots were taken
+        // is always picked up, and grabs that complete right away cannot recurse through here
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!queue.isEmpty() && slots.tryAcquire()) {
+                Request request = queue.poll();
+                if (request == null) {
+                    slots.release();
+                    break;
+                }
+                queued.decrementAndGet();
+                start(request);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void start(Request request) {
+        if (request.control.isCancelled()) {
+            finish(request, Banner.NONE);
+            return;
+        }
+        request.control.bannerStarted();
+        bannerGrabber.grabBanner(request.address).whenComplete((banner, error) -> {
+            request.control.bannerFinished();
+            if (error != null) {
+                log.debug("Banner grab failed for {}: {}", request.address, error.getMessage());
+            }
+            finish(request, error == null ? banner : Banner.NONE);
+        });
+    }
+
+    private void finish(Request request, Banner banner) {
+        slots.release();
+        drain();
+        // Completed after the slot is free; callers must not block the completing thread
+        request.banner.complete(banner);
+    }
+
+    private record Request(InetSocketAddress address, ScanControl control, CompletableFuture<Banner> banner) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.security.scanner.service;
+
+import com.security.scanner.engine.TargetSpec;
+import com.security.scanner.model.PortResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Coverage of a running scan: which hosts are finished and, for the hosts in progress, which
+ * ports have been reported. Serialized into scan_checkpoints so a restarted scan can skip them.
+ * <p>
+ * Only ports whose results are durable may be part of a snapshot, so in compact mode (where
+ * CLOSED / FILTERED ports sit in memory until the host completes) hosts in progress are left out.
+ */
+public class CheckpointTracker {
+
+    private static final int FORMAT_VERSION = 1;
+
+    // scanned, open, closed, filtered
+    private static final int COUNTERS = 4;
+
+    private final TargetSpec targets;
+    private final boolean compact;
+    private final BitSet completedHosts = new BitSet();
+    private final long[] completedCounts = new long[COUNTERS];
+    private final Map<String, HostCoverage> activeHosts = new HashMap<>();
+
+    CheckpointTracker(TargetSpec targets, boolean compact) {
+        this.targets = targets;
+        this.compact = compact;
+    }
+
+    /**
+     * Rebuilds the coverage recorded by {@link #snapshot()}.
+     */
+    static CheckpointTracker restore(TargetSpec targets, boolean compact, byte[] data) {
+        CheckpointTracker tracker = new CheckpointTracker(targets, compact);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(PortSetCodec.inflate(data)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported checkpoint format " + version);
+            }
+            for (int i = 0; i < COUNTERS; i++) {
+                tracker.completedCounts[i] = in.readLong();
+            }
+            tracker.completedHosts.or(BitSet.valueOf(readBytes(in)));
+
+            int active = in.readInt();
+            for (int i = 0; i < active; i++) {
+                String host = targets.hostAt(in.readInt());
+                HostCoverage coverage = new HostCoverage();
+                for (int c = 0; c < COUNTERS; c++) {
+                    coverage.counts[c] = in.readLong();
+                }
+                coverage.ports.or(BitSet.valueOf(readBytes(in)));
+                tracker.activeHosts.put(host, coverage);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt checkpoint", e);
+        }
+        return tracker;
+    }
+
+    public synchronized boolean isHostDone(String host) {
+        long index = targets.indexOf(host);
+        return index >= 0 && completedHosts.get((int) index);
+    }
+
+    public synchronized boolean isPortDone(String host, int port) {
+        HostCoverage coverage = activeHosts.get(host);
+        return coverage != null && coverage.ports.get(port);
+    }
+
+    /**
+     * Must only be called once the result has been handed to the result writer.
+     */
+    public synchronized void record(String host, int port, PortResult.PortStatus status) {
+        HostCoverage coverage = activeHosts.computeIfAbsent(host, h -> new HostCoverage());
+        coverage.ports.set(port);
+        coverage.counts[0]++;
+        coverage.counts[1 + status.ordinal()]++;
+    }
+
+    public synchronized void hostCompleted(String host) {
+        HostCoverage coverage = activeHosts.remove(host);
+        long index = targets.indexOf(host);
+        if (index < 0) {
+            return;
+        }
+        completedHosts.set((int) index);
+        if (coverage != null) {
+            for (int i = 0; i < COUNTERS; i++) {
+                completedCounts[i] += coverage.counts[i];
+            }
+        }
+    }
+
+    /**
+     * Completes a host whose remaining ports were skipped rather than probed.
+     */
+    public synchronized void hostSkipped(String host, int ports) {
+        activeHosts.computeIfAbsent(host, h -> new HostCoverage()).counts[0] += ports;
+        hostCompleted(host);
+    }
+
+    /**
+     * Counters covered by the restored checkpoint, in the order scanned, open, closed, filtered.
+     */
+    public synchronized long[] coveredCounts() {
+        long[] counts = completedCounts.clone();
+        for (HostCoverage coverage : activeHosts.values()) {
+            for (int i = 0; i < COUNTERS; i++) {
+                counts[i] += coverage.counts[i];
+            }
+        }
+        return counts;
+    }
+
+    public synchronized byte[] snapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            for (long count : completedCounts) {
+                out.writeLong(count);
+            }
+            writeBytes(out, completedHosts.toByteArray());
+
+            if (compact) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(activeHosts.size());
+                for (Map.Entry<String, HostCoverage> entry : activeHosts.entrySet()) {
+                    out.writeInt((int) targets.indexOf(entry.getKey()));
+                    for (long count : entry.getValue().counts) {
+                        out.writeLong(count);
+                    }
+                    writeBytes(out, entry.getValue().ports.toByteArray());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PortSetCodec.deflate(bytes.toByteArray());
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return data;
+    }
+
+    private static final class HostCoverage {
+        private final BitSet ports = new BitSet();
+        private final long[] counts = new long[COUNTERS];
+    }
+}
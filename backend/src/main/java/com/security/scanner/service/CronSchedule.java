@@ -0,0 +1,83 @@
+package com.security.scanner.service;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fire times of a schedule's cron expression. Accepts classic 5-field Unix cron
+ * ({@code 0 2 * * *}), Spring's 6-field form with seconds, the {@code @hourly}-style macros and
+ * {@code @every <duration>} ({@code @every 1h30m}).
+ */
+final class CronSchedule {
+
+    private static final Pattern EVERY = Pattern.compile("@every\\s+(.+)");
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+)(ms|s|m|h)");
+    private static final Duration MIN_INTERVAL = Duration.ofMinutes(1);
+
+    private final CronExpression cron;
+    private final Duration interval;
+
+    private CronSchedule(CronExpression cron, Duration interval) {
+        this.cron = cron;
+        this.interval = interval;
+    }
+
+    static CronSchedule parse(String expression) {
+        String spec = expression == null ? "" : expression.trim();
+
+        Matcher every = EVERY.matcher(spec);
+        if (every.matches()) {
+            return new CronSchedule(null, parseInterval(every.group(1), expression));
+        }
+        if ("@annually".equals(spec)) {
+            spec = "@yearly";
+        }
+        if (!spec.startsWith("@") && spec.split("\\s+").length == 5) {
+            spec = "0 " + spec;
+        }
+        try {
+            return new CronSchedule(CronExpression.parse(spec), null);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cron expression '" + expression + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * First fire time strictly after {@code after}.
+     */
+    LocalDateTime next(LocalDateTime after) {
+        if (interval != null) {
+            return after.plus(interval);
+        }
+        LocalDateTime next = cron.next(after);
+        if (next == null) {
+            throw new IllegalArgumentException("Cron expression never fires: " + cron);
+        }
+        return next;
+    }
+
+    private static Duration parseInterval(String value, String expression) {
+        Matcher part = DURATION_PART.matcher(value.replace(" ", ""));
+        Duration total = Duration.ZERO;
+        int end = 0;
+        while (part.find() && part.start() == end) {
+            long amount = Long.parseLong(part.group(1));
+            total = total.plus(switch (part.group(2)) {
+                case "ms" -> Duration.ofMillis(amount);
+                case "s" -> Duration.ofSeconds(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                default -> Duration.ofHours(amount);
+            });
+            end = part.end();
+        }
+        if (end == 0 || end != value.replace(" ", "").length()) {
+            throw new IllegalArgumentException("Invalid @every interval: " + expression);
+        }
+        // Schedules are dispatched with minute precision
+        return total.compareTo(MIN_INTERVAL) < 0 ? MIN_INTERVAL : total;
+    }
+}
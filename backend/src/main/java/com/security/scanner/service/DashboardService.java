@@ -1,38 +1,66 @@
 package com.security.scanner.service;
 
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.dto.RecentScanView;
 import com.security.scanner.model.ScanJob;
 import com.security.scanner.repository.ScanJobRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Dashboard figures read from the counters of {@link ScanStatsService} and the newest scans, and
+ * kept for {@code scanner.dashboard.cache-ttl} so polling dashboards share one read.
+ */
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
-    
+
     private final ScanJobRepository scanJobRepository;
-    
+    private final ScanStatsService scanStats;
+    private final ScannerConfig config;
+
+    private volatile Snapshot cached;
+
     public Map<String, Object> getDashboardStats() {
+        Snapshot snapshot = cached;
+        long now = System.nanoTime();
+        if (snapshot == null || now - snapshot.takenAt() > TimeUnit.MILLISECONDS.toNanos(config.getDashboard().getCacheTtl())) {
+            snapshot = new Snapshot(load(), now);
+            cached = snapshot;
+        }
+        return snapshot.stats();
+    }
+
+    private Map<String, Object> load() {
         Map<String, Object> stats = new HashMap<>();
-        
+
         LocalDateTime last24Hours = LocalDateTime.now().minusDays(1);
         LocalDateTime last7Days = LocalDateTime.now().minusDays(7);
-        
-        stats.put("totalScans", scanJobRepository.count());
-        stats.put("scansLast24h", scanJobRepository.countScansSince(last24Hours));
-        stats.put("scansLast7d", scanJobRepository.countScansSince(last7Days));
-        
-        stats.put("runningScans", scanJobRepository.countByStatus(ScanJob.ScanStatus.RUNNING));
-        stats.put("completedScans", scanJobRepository.countByStatus(ScanJob.ScanStatus.COMPLETED));
-        stats.put("failedScans", scanJobRepository.countByStatus(ScanJob.ScanStatus.FAILED));
-        
-        List<ScanJob> recentScans = scanJobRepository.findRecentScans(last7Days);
+
+        Map<ScanJob.ScanStatus, Long> byStatus = scanStats.countByStatus();
+        stats.put("totalScans", byStatus.values().stream().mapToLong(Long::longValue).sum());
+        stats.put("scansLast24h", scanStats.countCreatedSince(last24Hours));
+        stats.put("scansLast7d", scanStats.countCreatedSince(last7Days));
+
+        stats.put("runningScans", byStatus.get(ScanJob.ScanStatus.RUNNING));
+        stats.put("completedScans", byStatus.get(ScanJob.ScanStatus.COMPLETED));
+        stats.put("failedScans", byStatus.get(ScanJob.ScanStatus.FAILED));
+
+        List<RecentScanView> recentScans = scanJobRepository.findRecent(
+                last7Days, PageRequest.of(0, config.getDashboard().getRecentScans()));
         stats.put("recentScans", recentScans);
-        
-        return stats;
+
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private record Snapshot(Map<String, Object> stats, long takenAt) {
     }
 }
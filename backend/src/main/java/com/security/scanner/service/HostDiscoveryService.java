@@ -0,0 +1,99 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.ProbeBudget;
+import com.security.scanner.engine.ProbeResult;
+import com.security.scanner.engine.ScanControl;
+import com.security.scanner.engine.ScanEngine;
+import com.security.scanner.model.PortResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Liveness check run before a host's port scan. A host is up as soon as any canary port
+ * ({@code scanner.discovery.canary-ports}) accepts or refuses a connection, since either answer
+ * comes from the host itself; if all of them time out, {@link InetAddress#isReachable} (ICMP
+ * echo when the JVM may send it, a TCP connect to port 7 otherwise) gets the last word.
+ */
+@Service
+@Slf4j
+public class HostDiscoveryService {
+
+    private final ScannerConfig config;
+    private final ScanEngine scanEngine;
+    private final ProbeBudget probeBudget;
+    private final Counter hostsUp;
+    private final Counter hostsDown;
+
+    public HostDiscoveryService(ScannerConfig config, ScanEngine scanEngine, ProbeBudget probeBudget,
+                                MeterRegistry registry) {
+        this.config = config;
+        this.scanEngine = scanEngine;
+        this.probeBudget = probeBudget;
+        this.hostsUp = Counter.builder("scanner.discovery.hosts").tag("state", "up")
+                .description("Hosts found up by the discovery pass")
+                .register(registry);
+        this.hostsDown = Counter.builder("scanner.discovery.hosts").tag("state", "down")
+                .description("Hosts skipped because the discovery pass found them down")
+                .register(registry);
+    }
+
+    public boolean isAlive(InetAddress address, ScanControl control) {
+        boolean alive = answersCanary(address, control) || (!control.isCancelled() && isReachable(address));
+        (alive ? hostsUp : hostsDown).increment();
+        return alive;
+    }
+
+    private boolean answersCanary(InetAddress address, ScanControl control) {
+        ScannerConfig.Discovery discovery = config.getDiscovery();
+        CompletableFuture<Boolean> answered = new CompletableFuture<>();
+        List<CompletableFuture<ProbeResult>> probes = new ArrayList<>();
+        List<CompletableFuture<ProbeResult>> checks = new ArrayList<>();
+
+        for (int port : discovery.getCanaryPorts()) {
+            try {
+                probeBudget.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CompletableFuture<ProbeResult> probe = scanEngine.probe(address, port, discovery.getTimeout());
+            control.track(probe);
+            probes.add(probe);
+            checks.add(probe.whenComplete((result, error) -> {
+                probeBudget.release();
+                if (result != null && result.status() != PortResult.PortStatus.FILTERED) {
+                    answered.complete(true);
+                }
+            }));
+        }
+        // Waits for the checks rather than the probes, so every answer is seen before giving up
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> answered.complete(false));
+
+        boolean alive = answered.join();
+        // One answer is enough: stop waiting on the canaries that are still timing out
+        probes.forEach(probe -> probe.cancel(false));
+        return alive;
+    }
+
+    private boolean isReachable(InetAddress address) {
+        if (!config.getDiscovery().isReachableFallback()) {
+            return false;
+        }
+        try {
+            return address.isReachable(config.getDiscovery().getTimeout());
+        } catch (IOException e) {
+            log.debug("Reachability check of {} failed: {}", address.getHostAddress(), e.getMessage());
+            return false;
+        }
+    }
+}
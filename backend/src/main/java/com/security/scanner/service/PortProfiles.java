@@ -0,0 +1,152 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.PortList;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Turns a scan's port range into the ports to probe, in the order to probe them.
+ * <p>
+ * Named profiles are {@code common} ({@code scanner.common-ports}), {@code top<N>} (the N ports
+ * most often found open, from {@code scanner.top-ports}) and {@code all}. Profiles are probed in
+ * their own order, most likely open first; {@code all} and explicit lists such as
+ * {@code 80,443,8000-9000} are probed in a per-job permutation when
+ * {@code scanner.port-order} is "random", so scans never sweep a host's ports in sequence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortProfiles {
+
+    private static final Pattern TOP = Pattern.compile("(?i)top(\\d+)");
+    private static final int MAX_PORT = 65535;
+
+    private final ScannerConfig config;
+    private final ResourceLoader resourceLoader;
+
+    private PortList ranked;
+
+    @PostConstruct
+    public void load() {
+        Resource resource = resourceLoader.getResource(config.getTopPorts());
+        IntStream.Builder ports = IntStream.builder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String entries = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (entries.isEmpty()) {
+                    continue;
+                }
+                for (String entry : entries.split("[,\\s]+")) {
+                    int[] range = parseRange(entry);
+                    IntStream.rangeClosed(range[0], range[1]).forEach(ports);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ranked ports from " + config.getTopPorts(), e);
+        }
+        ranked = PortList.of(ports.build().toArray());
+        log.info("Loaded {} ranked ports from {}", ranked.size(), config.getTopPorts());
+    }
+
+    /**
+     * Ports of the range in canonical order: a profile's own order, ascending otherwise.
+     */
+    public PortList parse(String portRange) {
+        String spec = portRange.trim();
+        if ("common".equalsIgnoreCase(spec)) {
+            return PortList.of(config.getCommonPorts().stream().mapToInt(Integer::intValue).toArray());
+        }
+        Matcher top = TOP.matcher(spec);
+        if (top.matches()) {
+            int count = Integer.parseInt(top.group(1));
+            if (count < 1 || count > ranked.size()) {
+                throw new IllegalArgumentException("Port profile " + spec + " is out of range: top1 to top" + ranked.size());
+            }
+            return ranked.first(count);
+        }
+        BitSet ports = new BitSet(MAX_PORT + 1);
+        if ("all".equalsIgnoreCase(spec)) {
+            // All ports 1-65535 (use with caution!)
+            ports.set(1, MAX_PORT + 1);
+            return PortList.of(ports);
+        }
+        for (String part : spec.split(",")) {
+            int[] range = parseRange(part.trim());
+            ports.set(range[0], range[1] + 1);
+        }
+        return PortList.of(ports);
+    }
+
+    /**
+     * Ports in the order the job probes them. Seeded by the job id, so every replica running a
+     * unit of the job agrees on which ports the unit's offset and count cover.
+     */
+    public PortList forJob(Long jobId, String portRange) {
+        PortList ports = parse(portRange);
+        return shuffles(portRange) ? ports.shuffled(jobId) : ports;
+    }
+
+    /**
+     * Ports of a verify-known-open rescan in the order it probes them: the known-open ports
+     * (a port list such as {@code 22,80,443}) first, then {@code count} ports of the range from
+     * position {@code offset} of its canonical order on, wrapping around at the end, permuted
+     * like {@link #forJob} would. A known-open port inside the slice is probed once, early.
+     */
+    public PortList forRescan(Long jobId, String portRange, String knownOpen, int offset, int count) {
+        PortList ports = parse(portRange);
+        int size = ports.size();
+        int[] slice = new int[Math.min(count, size)];
+        for (int i = 0; i < slice.length; i++) {
+            slice[i] = ports.getInt((int) (((long) offset + i) % size));
+        }
+        PortList sweep = PortList.of(slice);
+        if (shuffles(portRange)) {
+            sweep = sweep.shuffled(jobId);
+        }
+        if (knownOpen == null || knownOpen.isBlank()) {
+            return sweep;
+        }
+        PortList known = parse(knownOpen);
+        return PortList.of(IntStream.concat(known.ints(), sweep.ints()).toArray());
+    }
+
+    private boolean shuffles(String portRange) {
+        return "random".equalsIgnoreCase(config.getPortOrder()) && !isProfile(portRange.trim());
+    }
+
+    private static boolean isProfile(String spec) {
+        return "common".equalsIgnoreCase(spec) || TOP.matcher(spec).matches();
+    }
+
+    private static int[] parseRange(String entry) {
+        try {
+            int dash = entry.indexOf('-');
+            int start = Integer.parseInt((dash < 0 ? entry : entry.substring(0, dash)).trim());
+            int end = dash < 0 ? start : Integer.parseInt(entry.substring(dash + 1).trim());
+            if (start < 1 || end > MAX_PORT || start > end) {
+                throw new IllegalArgumentException("Invalid port range: " + entry);
+            }
+            return new int[]{start, end};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port range: " + entry);
+        }
+    }
+}
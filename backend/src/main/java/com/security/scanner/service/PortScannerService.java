@@ -1,21 +1,38 @@
 package com.security.scanner.service;
 
 import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.Banner;
+import com.security.scanner.engine.CongestionController;
+import com.security.scanner.engine.FingerprintDatabase;
+import com.security.scanner.engine.PortList;
+import com.security.scanner.engine.ProbeBudget;
+import com.security.scanner.engine.ProbeResult;
+import com.security.scanner.engine.RttEstimator;
+import com.security.scanner.engine.ScanControl;
+import com.security.scanner.engine.ScanEngine;
+import com.security.scanner.engine.ScanSink;
+import com.security.scanner.engine.TargetSpec;
+import com.security.scanner.engine.TlsDetails;
+import com.security.scanner.engine.UdpProbeResult;
+import com.security.scanner.engine.UdpScanEngine;
 import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.net.SocketTimeoutException;
-import java.net.ConnectException;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.UnknownHostException;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,134 +40,315 @@ import java.util.concurrent.Executors;
 public class PortScannerService {
     
     private final ScannerConfig config;
-    private final BannerGrabberService bannerGrabber;
+    private final BannerPipeline bannerPipeline;
+    private final ServiceFingerprinter fingerprinter;
+    private final ScanEngine scanEngine;
+    private final UdpScanEngine udpEngine;
+    private final HostDiscoveryService hostDiscovery;
+    private final ProbeBudget probeBudget;
     
-    public List<PortResult> scanPorts(String target, List<Integer> ports) {
-        List<PortResult> results = new ArrayList<>();
+    /**
+     * Scans every host of the target spec, handing each result to the sink as soon as it is known.
+     * The sink may be called from many threads concurrently.
+     */
+    public void scanTargets(TargetSpec targets, PortList ports, ScanOptions options,
+                            ScanSink sink, ScanControl control) {
+        if (targets.size() == 1) {
+            String host = targets.iterator().next();
+            if (!sink.skipHost(host)) {
+                scanHost(host, ports, options, sink, control);
+            }
+            return;
+        }
+        
+        // Hosts run concurrently, each under its own congestion window, so probes
+        // are interleaved across targets instead of draining one host at a time
+        Semaphore hostSlots = new Semaphore(Math.max(1, config.getMaxConcurrentHosts()));
         
         try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-            List<CompletableFuture<PortResult>> futures = ports.stream()
-                    .map(port -> CompletableFuture.supplyAsync(() -> scanPort(target, port), executor))
-                    .toList();
-            
-            futures.forEach(future -> {
+            for (String host : targets) {
+                if (sink.skipHost(host)) {
+                    continue;
+                }
                 try {
-                    PortResult result = future.join();
-                    if (result != null) {
-                        results.add(result);
+                    hostSlots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (control.isCancelled()) {
+                    break;
+                }
+                executor.submit(() -> {
+                    try {
+                        scanHost(host, ports, options, sink, control);
+                    } catch (Exception e) {
+                        log.warn("Scan of host {} failed: {}", host, e.getMessage());
+                    } finally {
+                        hostSlots.release();
                     }
-                } catch (Exception e) {
-                    log.error("Error scanning port: {}", e.getMessage());
+                });
+            }
+        }
+    }
+    
+    private void scanHost(String target, PortList ports, ScanOptions options, ScanSink sink, ScanControl control) {
+        if (options.hostDiscovery()) {
+            InetAddress address = resolve(target);
+            if (!hostDiscovery.isAlive(address, control)) {
+                if (!control.isCancelled()) {
+                    int skipped = (int) ports.ints().filter(port -> !sink.skipPort(target, port)).count();
+                    log.info("Host {} is down, skipping its {} ports", target, skipped);
+                    sink.hostDown(target, skipped);
                 }
-            });
+                return;
+            }
         }
+        scanPorts(target, ports, options, sink, control);
+    }
+    
+    /**
+     * Scans the ports of one host. TCP connects time out after the host's RTO, learned from the
+     * answers it gave so far and bounded by {@code scanner.timing.min-timeout} and the scan's
+     * timeout; ports that still time out get up to {@code scanner.timing.retries} more passes,
+     * each with twice the timeout of the previous one, before they are reported FILTERED.
+     */
+    public void scanPorts(String target, PortList ports, ScanOptions options,
+                          ScanSink sink, ScanControl control) {
+        InetAddress address = resolve(target);
+        ScannerConfig.Timing timing = config.getTiming();
+        RttEstimator rtt = new RttEstimator(options.timeout(), Math.min(timing.getMinTimeout(), options.timeout()));
+        CongestionController congestion = new CongestionController(config);
         
-        return results;
+        control.hostStarted();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Pass pass = new Pass(target, address, options, 0, rtt, congestion, sink, control, executor);
+            pass.run(ports.ints().filter(port -> !sink.skipPort(target, port)));
+            // UDP probes are retransmitted by the engine itself
+            int retries = options.protocol() == ScanJob.Protocol.UDP || !timing.isAdaptive() ? 0 : timing.getRetries();
+            while (pass.attempt < retries && !pass.timedOut.isEmpty() && !control.isCancelled()) {
+                int[] retry = pass.timedOut.stream().mapToInt(ProbeResult::port).toArray();
+                log.debug("Retrying {} timed out ports of {}", retry.length, target);
+                pass = new Pass(target, address, options, pass.attempt + 1, rtt, congestion, sink, control, executor);
+                pass.run(IntStream.of(retry));
+            }
+            // Held back by a pass whose retry never ran (the scan was cancelled)
+            for (ProbeResult result : pass.timedOut) {
+                sink.accept(unansweredResult(target, result));
+            }
+        } finally {
+            control.hostFinished();
+        }
+        sink.hostCompleted(target);
     }
     
-    private PortResult scanPort(String target, int port) {
-        long startTime = System.currentTimeMillis();
+    /**
+     * One sweep over a list of ports of a host. FILTERED TCP results are held back in
+     * {@link #timedOut} while another pass may still reach the port.
+     */
+    private final class Pass {
         
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(target, port), config.getDefaultTimeout());
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            // Port is OPEN
-            String banner = bannerGrabber.grabBanner(socket, port);
-            String service = identifyService(port, banner);
-            
-            log.info("Port {} is OPEN on {} ({})", port, target, service);
-            
-            return PortResult.builder()
-                    .port(port)
-                    .status(PortResult.PortStatus.OPEN)
-                    .service(service)
-                    .banner(banner)
-                    .responseTime((int) responseTime)
-                    .build();
-            
-        } catch (SocketTimeoutException e) {
-            // Port is FILTERED (firewall blocking, no response)
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            log.debug("Port {} is FILTERED on {} (timeout)", port, target);
-            
-            return PortResult.builder()
-                    .port(port)
-                    .status(PortResult.PortStatus.FILTERED)
-                    .service(getDefaultService(port))
-                    .responseTime((int) responseTime)
-                    .errorMessage("Connection timeout - port may be filtered by firewall")
-                    .build();
-            
-        } catch (ConnectException e) {
-            // Port is CLOSED (connection refused - RST packet)
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            log.debug("Port {} is CLOSED on {} (connection refused)", port, target);
-            
-            return PortResult.builder()
-                    .port(port)
-                    .status(PortResult.PortStatus.CLOSED)
-                    .service(getDefaultService(port))
-                    .responseTime((int) responseTime)
-                    .errorMessage("Connection refused - port is closed")
-                    .build();
-            
-        } catch (IOException e) {
-            // Other network errors - treat as FILTERED
-            long responseTime = System.currentTimeMillis() - startTime;
+        private final String target;
+        private final InetAddress address;
+        private final ScanOptions options;
+        private final int attempt;
+        private final RttEstimator rtt;
+        private final CongestionController congestion;
+        private final ScanSink sink;
+        private final ScanControl control;
+        private final Executor executor;
+        private final boolean holdTimeouts;
+        private final Queue<ProbeResult> timedOut = new ConcurrentLinkedQueue<>();
+        
+        private Pass(String target, InetAddress address, ScanOptions options, int attempt, RttEstimator rtt,
+                     CongestionController congestion, ScanSink sink, ScanControl control, Executor executor) {
+            this.target = target;
+            this.address = address;
+            this.options = options;
+            this.attempt = attempt;
+            this.rtt = rtt;
+            this.congestion = congestion;
+            this.sink = sink;
+            this.control = control;
+            this.executor = executor;
+            ScannerConfig.Timing timing = config.getTiming();
+            this.holdTimeouts = options.protocol() == ScanJob.Protocol.TCP && timing.isAdaptive()
+                    && attempt < timing.getRetries();
+        }
+        
+        private void run(IntStream ports) {
+            Semaphore finished = new Semaphore(0);
+            int launched = 0;
             
-            log.debug("Port {} error on {}: {}", port, target, e.getMessage());
+            for (PrimitiveIterator.OfInt it = ports.iterator(); it.hasNext(); ) {
+                int port = it.nextInt();
+                try {
+                    congestion.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                try {
+                    probeBudget.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    congestion.release(null);
+                    break;
+                }
+                if (control.isCancelled()) {
+                    probeBudget.release();
+                    congestion.release(null);
+                    break;
+                }
+                CompletableFuture<PortResult> result = options.protocol() == ScanJob.Protocol.UDP
+                        ? probeUdp(port)
+                        : probeTcp(port);
+                result.thenAccept(portResult -> {
+                            if (portResult != null) {
+                                sink.accept(portResult);
+                            }
+                        })
+                        .whenComplete((ignored, error) -> {
+                            if (error != null && !control.isCancelled()) {
+                                log.error("Error scanning port: {}", error.getMessage());
+                            }
+                            finished.release();
+                        });
+                launched++;
+            }
             
-            return PortResult.builder()
-                    .port(port)
-                    .status(PortResult.PortStatus.FILTERED)
-                    .service(getDefaultService(port))
-                    .responseTime((int) responseTime)
-                    .errorMessage("Network error: " + e.getMessage())
-                    .build();
+            // Results are not kept here, only the count of probes still outstanding
+            finished.acquireUninterruptibly(launched);
+        }
+        
+        private int timeout() {
+            if (!config.getTiming().isAdaptive()) {
+                return options.timeout();
+            }
+            return (int) Math.min(options.timeout(), rtt.rto(options.timeout()) << attempt);
+        }
+        
+        private CompletableFuture<PortResult> probeTcp(int port) {
+            CompletableFuture<ProbeResult> probe = scanEngine.probe(address, port, timeout());
+            control.track(probe);
+            return probe.whenComplete((result, error) -> {
+                        probeBudget.release();
+                        congestion.release(result);
+                        if (result != null && result.status() != PortResult.PortStatus.FILTERED) {
+                            rtt.sample(result.responseTime());
+                        }
+                    })
+                    .thenComposeAsync(result -> {
+                        if (holdTimeouts && result.status() == PortResult.PortStatus.FILTERED) {
+                            timedOut.add(result);
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        return toPortResult(target, address, result, control, executor);
+                    }, executor);
+        }
+        
+        private CompletableFuture<PortResult> probeUdp(int port) {
+            CompletableFuture<UdpProbeResult> probe = udpEngine.probe(address, port, options.timeout());
+            control.track(probe);
+            return probe.whenComplete((result, error) -> {
+                        probeBudget.release();
+                        // Silence is the normal answer of a UDP port, not a sign of congestion: only
+                        // replies feed the window
+                        congestion.release(result != null && result.reply() != null ? result.result() : null);
+                    })
+                    // Off the engine's selector thread: fingerprinting and the sink may take a while
+                    .thenApplyAsync(result -> udpResult(target, result), executor);
         }
     }
     
-    private String identifyService(int port, String banner) {
-        if (banner == null || banner.isEmpty()) {
-            return getDefaultService(port);
+    private InetAddress resolve(String target) {
+        try {
+            return InetAddress.getByName(target);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Unable to resolve target: " + target, e);
         }
+    }
+    
+    private CompletableFuture<PortResult> toPortResult(String target, InetAddress address, ProbeResult probe,
+                                                       ScanControl control, Executor executor) {
+        int port = probe.port();
         
-        // Service identification based on banner
-        if (banner.contains("SSH-")) return "SSH";
-        if (banner.contains("HTTP/")) return "HTTP";
-        if (banner.contains("220") && banner.contains("FTP")) return "FTP";
-        if (banner.contains("220") && banner.contains("SMTP")) return "SMTP";
-        if (banner.contains("PONG")) return "Redis";
-        if (banner.contains("mysql")) return "MySQL";
-        if (banner.contains("PostgreSQL")) return "PostgreSQL";
-        if (banner.contains("MongoDB")) return "MongoDB";
+        switch (probe.status()) {
+            case OPEN -> {
+                if (!config.getBanner().isEnabled() || control.isCancelled()) {
+                    return CompletableFuture.completedFuture(openResult(target, probe, Banner.NONE));
+                }
+                // The probe's congestion and budget slots are already free: the banner is grabbed
+                // on a fresh connection by the banner stage while this host keeps probing
+                return bannerPipeline.submit(new InetSocketAddress(address, port), control)
+                        .thenApplyAsync(banner -> openResult(target, probe, banner), executor);
+            }
+            case CLOSED -> log.debug("Port {} is CLOSED on {} (connection refused)", port, target);
+            case FILTERED -> log.debug("Port {} is FILTERED on {} ({})", port, target, probe.errorMessage());
+        }
+        
+        return CompletableFuture.completedFuture(unansweredResult(target, probe));
+    }
+    
+    private PortResult unansweredResult(String target, ProbeResult probe) {
+        return PortResult.builder()
+                .host(target)
+                .port(probe.port())
+                .status(probe.status())
+                .service(fingerprinter.defaultService(ServiceFingerprinter.TCP, probe.port()))
+                .responseTime(probe.responseTime())
+                .errorMessage(probe.errorMessage())
+                .build();
+    }
+    
+    private PortResult udpResult(String target, UdpProbeResult udp) {
+        ProbeResult probe = udp.result();
+        int port = probe.port();
+        FingerprintDatabase.Match match = fingerprinter.identify(ServiceFingerprinter.UDP, port, udp.reply());
+        if (probe.status() == PortResult.PortStatus.OPEN) {
+            log.info("UDP port {} is OPEN on {} ({}{})", port, target, match.service(),
+                     match.version() != null ? " " + match.version() : "");
+        } else {
+            log.debug("UDP port {} is {} on {} ({})", port, probe.status(), target, probe.errorMessage());
+        }
         
-        return getDefaultService(port);
+        return PortResult.builder()
+                .host(target)
+                .port(port)
+                .status(probe.status())
+                .service(match.service())
+                .version(match.version())
+                .banner(udp.reply() != null ? BannerGrabberService.decode(udp.reply()) : null)
+                .responseTime(probe.responseTime())
+                .errorMessage(probe.errorMessage())
+                .build();
     }
     
-    private String getDefaultService(int port) {
-        return switch (port) {
-            case 21 -> "FTP";
-            case 22 -> "SSH";
-            case 23 -> "Telnet";
-            case 25 -> "SMTP";
-            case 53 -> "DNS";
-            case 80 -> "HTTP";
-            case 110 -> "POP3";
-            case 143 -> "IMAP";
-            case 443 -> "HTTPS";
-            case 445 -> "SMB";
-            case 3306 -> "MySQL";
-            case 3389 -> "RDP";
-            case 5432 -> "PostgreSQL";
-            case 6379 -> "Redis";
-            case 8080 -> "HTTP-Proxy";
-            case 8443 -> "HTTPS-Alt";
-            case 27017 -> "MongoDB";
-            default -> "Unknown";
-        };
+    private PortResult openResult(String target, ProbeResult probe, Banner banner) {
+        int port = probe.port();
+        FingerprintDatabase.Match match = fingerprinter.identify(port, banner);
+        
+        log.info("Port {} is OPEN on {} ({}{})", port, target, match.service(),
+                 match.version() != null ? " " + match.version() : "");
+        
+        PortResult.PortResultBuilder result = PortResult.builder()
+                .host(target)
+                .port(port)
+                .status(PortResult.PortStatus.OPEN)
+                .service(match.service())
+                .version(match.version())
+                .banner(BannerGrabberService.decode(banner.data()))
+                .responseTime(probe.responseTime());
+        
+        TlsDetails tls = banner.tls();
+        if (tls != null) {
+            result.tlsProtocol(tls.protocol())
+                    .tlsCipher(tls.cipher())
+                    .certSubject(tls.subject())
+                    .certIssuer(tls.issuer())
+                    .certSubjectAltNames(tls.subjectAltNames().isEmpty() ? null : String.join(",", tls.subjectAltNames()))
+                    .certNotAfter(tls.notAfter());
+        }
+        return result.build();
     }
-}
\ No newline at end of file
+}
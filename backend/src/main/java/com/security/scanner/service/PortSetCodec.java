@@ -0,0 +1,78 @@
+package com.security.scanner.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.BitSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encoding of port sets (and other binary state) as deflated bitsets, plus a compact "1-20,22,25-79" rendering.
+ */
+final class PortSetCodec {
+    
+    private PortSetCodec() {
+    }
+    
+    static byte[] encode(BitSet ports) {
+        return deflate(ports.toByteArray());
+    }
+    
+    static BitSet decode(byte[] data) {
+        return BitSet.valueOf(inflate(data));
+    }
+    
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    static String toRanges(BitSet ports) {
+        StringBuilder ranges = new StringBuilder();
+        int start = ports.nextSetBit(0);
+        while (start >= 0) {
+            int end = ports.nextClearBit(start) - 1;
+            if (!ranges.isEmpty()) {
+                ranges.append(',');
+            }
+            ranges.append(start);
+            if (end > start) {
+                ranges.append('-').append(end);
+            }
+            start = ports.nextSetBit(end + 1);
+        }
+        return ranges.toString();
+    }
+}
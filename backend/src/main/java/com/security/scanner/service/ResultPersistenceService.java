@@ -0,0 +1,23 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class ResultPersistenceService {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ScannerConfig config;
+    
+    /**
+     * Opens a background writer that batches the results of one scan job into port_results.
+     * Closing the writer flushes whatever is still queued.
+     */
+    public ResultWriter openWriter(Long jobId, boolean compact) {
+        ScannerConfig.Persistence persistence = config.getPersistence();
+        return new ResultWriter(jdbcTemplate, jobId, persistence.getBatchSize(), persistence.getQueueCapacity(), compact);
+    }
+}
@@ -0,0 +1,114 @@
+package com.security.scanner.service;
+
+import com.security.scanner.engine.ScanSink;
+import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanChange;
+import com.security.scanner.model.ScanJob;
+
+/**
+ * Fans scanner output out to the result writer, the live counters, the checkpoint coverage and
+ * SSE subscribers in this instance. Closed and filtered ports are written as the job asks; in
+ * diff mode only changes from the baseline are written.
+ * <p>
+ * The same sink serves whole jobs and work units of distributed jobs. A unit has no checkpoint,
+ * and its counters cover only its own ports, so its progress reaches subscribers through
+ * {@link ScanEventService}'s database polls rather than from here.
+ */
+final class ResultSink implements ScanSink {
+
+    private final Long jobId;
+    private final ResultWriter writer;
+    private final ScanProgress progress;
+    private final CheckpointTracker coverage;
+    private final ScanDiffService.Diff diff;
+    private final ScanEventService scanEvents;
+    private final boolean wholeJob;
+    private final boolean keepClosed;
+    private final boolean keepFiltered;
+
+    private ResultSink(ScanJob job, ResultWriter writer, ScanProgress progress, CheckpointTracker coverage,
+                       ScanDiffService.Diff diff, ScanEventService scanEvents) {
+        this.jobId = job.getId();
+        this.writer = writer;
+        this.progress = progress;
+        this.coverage = coverage;
+        this.diff = diff;
+        this.scanEvents = scanEvents;
+        this.wholeJob = coverage != null;
+        this.keepClosed = !Boolean.FALSE.equals(job.getIncludeClosedPorts());
+        this.keepFiltered = !Boolean.FALSE.equals(job.getIncludeFilteredPorts());
+    }
+
+    static ResultSink forJob(ScanJob job, ResultWriter writer, ScanProgress progress, CheckpointTracker coverage,
+                             ScanDiffService.Diff diff, ScanEventService scanEvents) {
+        return new ResultSink(job, writer, progress, coverage, diff, scanEvents);
+    }
+
+    static ResultSink forUnit(ScanJob job, ResultWriter writer, ScanProgress progress,
+                              ScanDiffService.Diff diff, ScanEventService scanEvents) {
+        return new ResultSink(job, writer, progress, null, diff, scanEvents);
+    }
+
+    @Override
+    public void accept(PortResult result) {
+        PortResult.PortStatus status = result.getStatus();
+        if (diff != null) {
+            ScanChange change = diff.changeOf(result);
+            if (change != null) {
+                writer.acceptChange(change);
+                writer.accept(result);
+            }
+        } else if (status == PortResult.PortStatus.OPEN
+                || (status == PortResult.PortStatus.CLOSED && keepClosed)
+                || (status == PortResult.PortStatus.FILTERED && keepFiltered)) {
+            writer.accept(result);
+        }
+        // Only after the writer has it, so a checkpoint never covers a result still in memory
+        if (coverage != null) {
+            coverage.record(result.getHost(), result.getPort(), status);
+        }
+        progress.record(status);
+        if (scanEvents.hasSubscribers(jobId)) {
+            scanEvents.publishResult(jobId, result);
+            publishProgress();
+        }
+    }
+
+    @Override
+    public void hostCompleted(String host) {
+        writer.hostCompleted(host);
+        if (coverage != null) {
+            coverage.hostCompleted(host);
+        }
+    }
+
+    @Override
+    public void hostDown(String host, int ports) {
+        if (diff != null) {
+            diff.hostDown(host).forEach(writer::acceptChange);
+        }
+        if (coverage != null) {
+            coverage.hostSkipped(host, ports);
+        }
+        progress.skip(ports);
+        if (scanEvents.hasSubscribers(jobId)) {
+            publishProgress();
+        }
+    }
+
+    @Override
+    public boolean skipHost(String host) {
+        return coverage != null && coverage.isHostDone(host);
+    }
+
+    @Override
+    public boolean skipPort(String host, int port) {
+        return coverage != null && coverage.isPortDone(host, port);
+    }
+
+    private void publishProgress() {
+        if (wholeJob && progress.advanced()) {
+            scanEvents.publishProgress(progress);
+        }
+    }
+}
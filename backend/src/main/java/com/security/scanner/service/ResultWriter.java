@@ -0,0 +1,296 @@
+package com.security.scanner.service;
+
+import com.security.scanner.engine.ScanSink;
+import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams PortResults of one job into the database in JDBC batches from a background thread, and
+ * the scan_changes rows of a diff-mode job along with them. {@link #accept} blocks once the queue
+ * is full, which throttles the scanner instead of growing the heap.
+ * <p>
+ * In compact mode, CLOSED and FILTERED ports without a banner are only marked in per-host
+ * bitsets, written as one port_bitmaps row per status when the host completes.
+ */
+@Slf4j
+public class ResultWriter implements ScanSink, AutoCloseable {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO port_results (scan_job_id, host, port, status, service, version, banner, response_time, "
+            + "error_message, tls_protocol, tls_cipher, cert_subject, cert_issuer, cert_subject_alt_names, "
+            + "cert_not_after) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    
+    private static final String INSERT_BITMAP_SQL =
+            "INSERT INTO port_bitmaps (scan_job_id, host, status, port_count, bitmap) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT DO NOTHING";
+    
+    // A resumed scan reports the ports after its last checkpoint again
+    private static final String INSERT_CHANGE_SQL =
+            "INSERT INTO scan_changes (scan_job_id, target, host, port, change_type, status, previous_service, "
+            + "service, previous_version, version, banner, banner_hash, detected_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (scan_job_id, host, port) DO NOTHING";
+    
+    private static final Object END_OF_STREAM = new Object();
+    private static final Object SYNC = new Object();
+    private static final long LIVENESS_CHECK_MS = 100;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Long jobId;
+    private final int batchSize;
+    // PortResults and ScanChanges in the order they were accepted, plus the markers above
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private final boolean compact;
+    private final Map<String, Map<PortResult.PortStatus, BitSet>> bitmaps = new ConcurrentHashMap<>();
+    private final Queue<CountDownLatch> pendingSyncs = new ConcurrentLinkedQueue<>();
+    
+    private volatile RuntimeException failure;
+    private long written;
+    private long changesWritten;
+    
+    ResultWriter(JdbcTemplate jdbcTemplate, Long jobId, int batchSize, int queueCapacity, boolean compact) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobId = jobId;
+        this.batchSize = batchSize;
+        this.compact = compact;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.thread = Thread.ofVirtual().name("result-writer-" + jobId).start(this::run);
+    }
+    
+    @Override
+    public void accept(PortResult result) {
+        if (failure != null) {
+            throw failure;
+        }
+        if (compact && result.getStatus() != PortResult.PortStatus.OPEN
+                && (result.getBanner() == null || result.getBanner().isBlank())) {
+            Map<PortResult.PortStatus, BitSet> hostBitmaps =
+                    bitmaps.computeIfAbsent(String.valueOf(result.getHost()), h -> new EnumMap<>(PortResult.PortStatus.class));
+            synchronized (hostBitmaps) {
+                hostBitmaps.computeIfAbsent(result.getStatus(), s -> new BitSet()).set(result.getPort());
+            }
+            return;
+        }
+        put(result);
+    }
+    
+    /**
+     * Queues a scan_changes row of a diff-mode job; written in the same batches as the results.
+     */
+    public void acceptChange(ScanChange change) {
+        if (failure != null) {
+            throw failure;
+        }
+        put(change);
+    }
+    
+    private void put(Object item) {
+        try {
+            // The writer drains until close() whether or not it has failed, so this only waits for room
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing result", e);
+        }
+    }
+    
+    @Override
+    public void hostCompleted(String host) {
+        Map<PortResult.PortStatus, BitSet> hostBitmaps = bitmaps.remove(host);
+        if (hostBitmaps != null) {
+            // Copy under the lock, write outside it so the JDBC round trip does not pin a carrier thread
+            Map<PortResult.PortStatus, BitSet> copy;
+            synchronized (hostBitmaps) {
+                copy = new EnumMap<>(hostBitmaps);
+            }
+            writeBitmaps(host, copy);
+        }
+    }
+    
+    /**
+     * Blocks until every result accepted before this call has been written.
+     */
+    public void sync() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        pendingSyncs.add(latch);
+        if (enqueue(SYNC)) {
+            while (!latch.await(LIVENESS_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                if (!thread.isAlive()) {
+                    break;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    @Override
+    public void close() {
+        List.copyOf(bitmaps.keySet()).forEach(this::hostCompleted);
+        try {
+            // A writer that has stopped leaves the queue as it is; there is nothing left to flush
+            enqueue(END_OF_STREAM);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        log.debug("Result writer for job {} flushed {} rows and {} changes", jobId, written, changesWritten);
+    }
+    
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        boolean done = false;
+        
+        while (!done) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Same as a failed flush: stop writing but keep draining
+                if (failure == null) {
+                    failure = new IllegalStateException("Result writer for job " + jobId + " was interrupted");
+                }
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            
+            // close() enqueues the marker last, so it can only be the tail of a batch
+            done = batch.get(batch.size() - 1) == END_OF_STREAM;
+            if (done) {
+                batch.remove(batch.size() - 1);
+            }
+            int syncs = 0;
+            for (Iterator<Object> it = batch.iterator(); it.hasNext(); ) {
+                if (it.next() == SYNC) {
+                    it.remove();
+                    syncs++;
+                }
+            }
+            if (!batch.isEmpty() && failure == null) {
+                flush(batch);
+            }
+            batch.clear();
+            for (int i = 0; i < syncs; i++) {
+                pendingSyncs.remove().countDown();
+            }
+        }
+    }
+    
+    /**
+     * Queues an item for the writer thread, waiting while the queue is full; false if the thread
+     * has stopped and nothing will ever take it.
+     */
+    private boolean enqueue(Object item) throws InterruptedException {
+        while (!queue.offer(item, LIVENESS_CHECK_MS, TimeUnit.MILLISECONDS)) {
+            if (!thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void writeBitmaps(String host, Map<PortResult.PortStatus, BitSet> hostBitmaps) {
+        List<Map.Entry<PortResult.PortStatus, BitSet>> rows = List.copyOf(hostBitmaps.entrySet());
+        try {
+            jdbcTemplate.batchUpdate(INSERT_BITMAP_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setLong(1, jobId);
+                ps.setString(2, host);
+                ps.setString(3, row.getKey().name());
+                ps.setInt(4, row.getValue().cardinality());
+                ps.setBytes(5, PortSetCodec.encode(row.getValue()));
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to persist port bitmaps for job {} host {}: {}", jobId, host, e.getMessage());
+            failure = e;
+        }
+    }
+    
+    private void flush(List<Object> batch) {
+        List<PortResult> results = new ArrayList<>(batch.size());
+        List<ScanChange> changes = new ArrayList<>();
+        for (Object item : batch) {
+            if (item instanceof ScanChange change) {
+                changes.add(change);
+            } else {
+                results.add((PortResult) item);
+            }
+        }
+        try {
+            if (!results.isEmpty()) {
+                writeResults(results);
+            }
+            if (!changes.isEmpty()) {
+                writeChanges(changes);
+            }
+        } catch (RuntimeException e) {
+            // Keep draining so producers never block on a dead writer
+            log.error("Failed to persist results for job {}: {}", jobId, e.getMessage());
+            failure = e;
+        }
+    }
+    
+    private void writeResults(List<PortResult> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, result) -> {
+            ps.setLong(1, jobId);
+            ps.setString(2, result.getHost());
+            ps.setInt(3, result.getPort());
+            ps.setString(4, result.getStatus().name());
+            ps.setString(5, result.getService());
+            ps.setString(6, result.getVersion());
+            ps.setString(7, result.getBanner());
+            if (result.getResponseTime() != null) {
+                ps.setInt(8, result.getResponseTime());
+            } else {
+                ps.setNull(8, Types.INTEGER);
+            }
+            ps.setString(9, result.getErrorMessage());
+            ps.setString(10, result.getTlsProtocol());
+            ps.setString(11, result.getTlsCipher());
+            ps.setString(12, result.getCertSubject());
+            ps.setString(13, result.getCertIssuer());
+            ps.setString(14, result.getCertSubjectAltNames());
+            ps.setTimestamp(15, result.getCertNotAfter() != null ? Timestamp.valueOf(result.getCertNotAfter()) : null);
+        });
+        written += batch.size();
+    }
+    
+    private void writeChanges(List<ScanChange> batch) {
+        jdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, batch, batch.size(), (ps, change) -> {
+            ps.setLong(1, jobId);
+            ps.setString(2, change.getTarget());
+            ps.setString(3, change.getHost());
+            ps.setInt(4, change.getPort());
+            ps.setString(5, change.getChangeType().name());
+            ps.setString(6, change.getStatus().name());
+            ps.setString(7, change.getPreviousService());
+            ps.setString(8, change.getService());
+            ps.setString(9, change.getPreviousVersion());
+            ps.setString(10, change.getVersion());
+            ps.setString(11, change.getBanner());
+            ps.setString(12, change.getBannerHash());
+            ps.setTimestamp(13, Timestamp.valueOf(change.getDetectedAt()));
+        });
+        changesWritten += batch.size();
+    }
+}
@@ -0,0 +1,239 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.dto.QueuedScanView;
+import com.security.scanner.engine.PortList;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanJobRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of {@link ScanExecutionService#executeScan}. At most
+ * {@code scanner.admission.max-concurrent-scans} scans run in this instance and at most
+ * {@code max-scans-per-target} of them against the same target; the rest wait here. Ad-hoc scans
+ * are admitted before scheduled ones, then targets with fewer scans running, then oldest first.
+ * A scheduled scan that has waited {@code promote-after} competes like an ad-hoc one, so a steady
+ * stream of ad-hoc scans cannot starve the schedules.
+ * <p>
+ * Queued jobs stay PENDING and are heartbeated, so recovery on other replicas leaves them alone.
+ * Probes of the admitted scans share the global {@link com.security.scanner.engine.ProbeBudget}.
+ */
+@Service
+@Slf4j
+public class ScanAdmissionService {
+
+    private final ScanExecutionService scanExecutor;
+    private final ScanJobRepository scanJobRepository;
+    private final ScannerConfig config;
+    private final MeterRegistry registry;
+    private final Timer waitTimer;
+
+    private final List<Ticket> queue = new ArrayList<>();
+    private final Map<String, Integer> runningPerTarget = new HashMap<>();
+    private int running;
+    private long sequence;
+    private volatile boolean stopping;
+
+    public ScanAdmissionService(ScanExecutionService scanExecutor, ScanJobRepository scanJobRepository,
+                                ScannerConfig config, MeterRegistry registry) {
+        this.scanExecutor = scanExecutor;
+        this.scanJobRepository = scanJobRepository;
+        this.config = config;
+        this.registry = registry;
+        this.waitTimer = Timer.builder("scanner.admission.wait")
+                .description("Time scans spent in the admission queue")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        for (ScanJob.Priority priority : ScanJob.Priority.values()) {
+            Gauge.builder("scanner.admission.queued", this, admission -> admission.queued(priority))
+                    .description("Scans waiting for admission")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        Gauge.builder("scanner.admission.running", this, ScanAdmissionService::running)
+                .description("Scans admitted and running")
+                .register(registry);
+    }
+
+    /**
+     * Queues the job and starts it as soon as its turn comes. The job must be PENDING and owned
+     * by this instance.
+     */
+    public void submit(Long jobId, String target, PortList ports, ScanJob.Priority priority) {
+        Ticket ticket;
+        synchronized (this) {
+            ticket = new Ticket(jobId, target, targetKey(target), ports,
+                                priority == null ? ScanJob.Priority.AD_HOC : priority,
+                                sequence++, System.nanoTime());
+            queue.add(ticket);
+        }
+        log.debug("Queued scan job {} ({})", jobId, ticket.priority);
+        dispatch();
+    }
+
+    public synchronized boolean isQueued(Long jobId) {
+        return queue.stream().anyMatch(ticket -> ticket.jobId.equals(jobId));
+    }
+
+    /**
+     * Drops a job that has not been admitted yet, e.g. because it was cancelled or deleted.
+     */
+    public synchronized boolean remove(Long jobId) {
+        return queue.removeIf(ticket -> ticket.jobId.equals(jobId));
+    }
+
+    public synchronized List<QueuedScanView> getQueue() {
+        long now = System.nanoTime();
+        List<Ticket> ordered = new ArrayList<>(queue);
+        ordered.sort(order(now));
+        List<QueuedScanView> views = new ArrayList<>(ordered.size());
+        for (Ticket ticket : ordered) {
+            views.add(QueuedScanView.builder()
+                    .jobId(ticket.jobId)
+                    .target(ticket.target)
+                    .ports(ticket.ports.size())
+                    .priority(ticket.priority)
+                    .position(views.size() + 1)
+                    .waitingMillis(TimeUnit.NANOSECONDS.toMillis(now - ticket.enqueuedNanos))
+                    .build());
+        }
+        return views;
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.admission.heartbeat-interval:10000}")
+    public void heartbeatQueued() {
+        List<Long> ids;
+        synchronized (this) {
+            ids = queue.stream().map(Ticket::jobId).toList();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            scanJobRepository.touchQueued(ids, config.getInstanceId(), LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Failed to heartbeat queued scans: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops admitting scans and hands the queued ones to the other replicas right away.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        List<Ticket> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(queue);
+            queue.clear();
+        }
+        for (Ticket ticket : pending) {
+            try {
+                scanJobRepository.release(ticket.jobId, config.getInstanceId());
+            } catch (Exception e) {
+                log.warn("Failed to release queued scan job {}: {}", ticket.jobId, e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch() {
+        List<Ticket> admitted = new ArrayList<>();
+        synchronized (this) {
+            int limit = Math.max(1, config.getAdmission().getMaxConcurrentScans());
+            Ticket next;
+            while (!stopping && running < limit && (next = next()) != null) {
+                queue.remove(next);
+                running++;
+                runningPerTarget.merge(next.targetKey, 1, Integer::sum);
+                admitted.add(next);
+            }
+        }
+        // Started outside the monitor: a scan that fails to start re-enters dispatch() from finished()
+        admitted.forEach(this::start);
+    }
+
+    private Ticket next() {
+        int perTarget = Math.max(1, config.getAdmission().getMaxScansPerTarget());
+        Comparator<Ticket> order = order(System.nanoTime());
+        Ticket best = null;
+        for (Ticket ticket : queue) {
+            if (runningPerTarget.getOrDefault(ticket.targetKey, 0) >= perTarget) {
+                continue;
+            }
+            if (best == null || order.compare(ticket, best) < 0) {
+                best = ticket;
+            }
+        }
+        return best;
+    }
+
+    private Comparator<Ticket> order(long now) {
+        long promoteAfter = TimeUnit.MILLISECONDS.toNanos(config.getAdmission().getPromoteAfter());
+        return Comparator.<Ticket>comparingInt(ticket ->
+                        ticket.priority == ScanJob.Priority.SCHEDULED && now - ticket.enqueuedNanos < promoteAfter ? 1 : 0)
+                .thenComparingInt(ticket -> runningPerTarget.getOrDefault(ticket.targetKey, 0))
+                .thenComparingLong(Ticket::sequence);
+    }
+
+    private void start(Ticket ticket) {
+        waitTimer.record(System.nanoTime() - ticket.enqueuedNanos, TimeUnit.NANOSECONDS);
+        log.info("Admitting scan job {} ({}) after {} ms in queue", ticket.jobId, ticket.priority,
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ticket.enqueuedNanos));
+        CompletableFuture<Void> scan;
+        try {
+            scan = scanExecutor.executeScan(ticket.jobId, ticket.target, ticket.ports);
+        } catch (Exception e) {
+            scan = CompletableFuture.failedFuture(e);
+        }
+        scan.whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.warn("Scan job {} did not run: {}", ticket.jobId, error.getMessage());
+            }
+            finished(ticket);
+        });
+    }
+
+    private void finished(Ticket ticket) {
+        synchronized (this) {
+            running--;
+            runningPerTarget.computeIfPresent(ticket.targetKey, (key, count) -> count > 1 ? count - 1 : null);
+        }
+        dispatch();
+    }
+
+    private synchronized int queued(ScanJob.Priority priority) {
+        return (int) queue.stream().filter(ticket -> ticket.priority == priority).count();
+    }
+
+    private synchronized int running() {
+        return running;
+    }
+
+    private static String targetKey(String target) {
+        return target.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Ticket(Long jobId, String target, String targetKey, PortList ports,
+                          ScanJob.Priority priority, long sequence, long enqueuedNanos) {
+    }
+}
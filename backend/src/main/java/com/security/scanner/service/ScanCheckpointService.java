@@ -0,0 +1,122 @@
+package com.security.scanner.service;
+
+import com.security.scanner.engine.TargetSpec;
+import com.security.scanner.model.ScanCheckpoint;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Periodically persists the coverage of the scans running in this instance. A checkpoint only
+ * lists ports whose results are already in the database: the coverage is captured first, then
+ * the job's result writer is drained up to that point, then the checkpoint is saved.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanCheckpointService {
+
+    private final ScanCheckpointRepository checkpointRepository;
+
+    private final Map<Long, ActiveScan> active = new ConcurrentHashMap<>();
+
+    /**
+     * Coverage to start the job from: the last checkpoint of an earlier run, or nothing.
+     */
+    public CheckpointTracker open(ScanJob job, TargetSpec targets) {
+        boolean compact = Boolean.TRUE.equals(job.getCompactResults());
+        return checkpointRepository.findById(job.getId())
+                .map(checkpoint -> {
+                    try {
+                        return CheckpointTracker.restore(targets, compact, checkpoint.getData());
+                    } catch (RuntimeException e) {
+                        log.warn("Ignoring unreadable checkpoint of job {}: {}", job.getId(), e.getMessage());
+                        return new CheckpointTracker(targets, compact);
+                    }
+                })
+                .orElseGet(() -> new CheckpointTracker(targets, compact));
+    }
+
+    public void register(Long jobId, CheckpointTracker tracker, ResultWriter writer) {
+        active.put(jobId, new ActiveScan(jobId, tracker, writer));
+    }
+
+    /**
+     * Stops checkpointing the job; waits for a checkpoint in progress so the writer can be closed.
+     */
+    public void unregister(Long jobId) {
+        ActiveScan scan = active.remove(jobId);
+        if (scan != null) {
+            scan.lock.lock();
+            try {
+                scan.closed = true;
+            } finally {
+                scan.lock.unlock();
+            }
+        }
+    }
+
+    public void delete(Long jobId) {
+        checkpointRepository.deleteById(jobId);
+    }
+
+    public void checkpoint(Long jobId) {
+        ActiveScan scan = active.get(jobId);
+        if (scan != null) {
+            save(scan);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.checkpoint-interval:30000}")
+    public void checkpointAll() {
+        active.values().forEach(this::save);
+    }
+
+    private void save(ActiveScan scan) {
+        // A lock rather than a monitor: waiting for the writer must not pin the virtual thread's carrier
+        scan.lock.lock();
+        try {
+            if (scan.closed) {
+                return;
+            }
+            try {
+                byte[] data = scan.tracker.snapshot();
+                scan.writer.sync();
+                checkpointRepository.save(ScanCheckpoint.builder()
+                        .scanJobId(scan.jobId)
+                        .data(data)
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+                log.debug("Checkpointed job {} ({} bytes)", scan.jobId, data.length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Failed to checkpoint job {}: {}", scan.jobId, e.getMessage());
+            }
+        } finally {
+            scan.lock.unlock();
+        }
+    }
+
+    private static final class ActiveScan {
+        private final Long jobId;
+        private final CheckpointTracker tracker;
+        private final ResultWriter writer;
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean closed;
+
+        private ActiveScan(Long jobId, CheckpointTracker tracker, ResultWriter writer) {
+            this.jobId = jobId;
+            this.tracker = tracker;
+            this.writer = writer;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.security.scanner.service;
+
+import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanBaseline;
+import com.security.scanner.model.ScanChange;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanBaselineRepository;
+import com.security.scanner.repository.ScanChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Diff-mode scans: instead of the full result set, a scan stores only the ports that differ
+ * from the target's {@link ScanBaseline} (newly opened, newly closed, other service or version,
+ * other banner or certificate) as port_results rows plus one scan_changes event each.
+ * <p>
+ * The first diff-mode scan of a target, port range and protocol is stored in full and seeds the
+ * baseline when it completes; every later one moves the baseline forward by its changes when it
+ * completes. Known-open ports of a host that discovery finds down are recorded as CLOSED; a
+ * known-open port that is only FILTERED this time is recorded as such but stays in the baseline,
+ * so a single lost probe does not make it close and reopen.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanDiffService {
+
+    // Headers that differ on every response and would make each HTTP banner look changed
+    private static final Pattern VOLATILE_HEADERS = Pattern.compile(
+            "(?im)^(date|expires|last-modified|set-cookie|etag|age|x-request-id):.*$");
+
+    private final ScanBaselineRepository baselineRepository;
+    private final ScanChangeRepository changeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Widens the check constraint Hibernate created on scan_changes.change_type before FILTERED
+     * existed; {@code ddl-auto: update} never alters an existing constraint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void upgradeSchema() {
+        String current = jdbcTemplate.query(
+                "SELECT pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = 'scan_changes'::regclass AND conname = 'scan_changes_change_type_check'",
+                rs -> rs.next() ? rs.getString(1) : null);
+        if (current == null || current.contains("'" + ScanChange.ChangeType.FILTERED.name() + "'")) {
+            return;
+        }
+        String allowed = Arrays.stream(ScanChange.ChangeType.values())
+                .map(type -> "'" + type.name() + "'")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE scan_changes DROP CONSTRAINT scan_changes_change_type_check, "
+                             + "ADD CONSTRAINT scan_changes_change_type_check CHECK (change_type IN (" + allowed + "))");
+        log.info("Updated the change types allowed in scan_changes");
+    }
+
+    /**
+     * The comparison of a diff-mode job with its baseline, or null if the job stores its full
+     * result set: not in diff mode, or seeding the baseline.
+     * <p>
+     * The first run or work unit of the job to get here records the baseline it read as the job's
+     * baselineJobId. If the baseline has moved by the time a later one opens it, the job's
+     * changes are still recorded, but {@link #complete(ScanJob)} will not fold them in.
+     */
+    public Diff open(ScanJob job) {
+        if (!Boolean.TRUE.equals(job.getDiffMode())) {
+            return null;
+        }
+        ScanBaseline baseline = baselineRepository.findByTargetAndPortRangeAndProtocol(
+                job.getTarget(), job.getPortRange(), protocolOf(job)).orElse(null);
+        Long loaded = baseline != null ? baseline.getLastJobId() : null;
+        int first = jdbcTemplate.update(
+                "UPDATE scan_jobs SET baseline_job_id = ?, baseline_loaded = true WHERE id = ? AND baseline_loaded IS NOT TRUE",
+                loaded, job.getId());
+        Long expected = first > 0 ? loaded
+                : jdbcTemplate.queryForObject("SELECT baseline_job_id FROM scan_jobs WHERE id = ?", Long.class, job.getId());
+        job.setBaselineJobId(expected);
+        job.setBaselineLoaded(true);
+        if (!Objects.equals(expected, loaded)) {
+            log.warn("Baseline of {} {} moved from job {} to job {} while job {} was running; it will not be updated by it",
+                     job.getTarget(), job.getPortRange(), expected, loaded, job.getId());
+        }
+        if (baseline == null) {
+            return null;
+        }
+        Map<String, Map<Integer, Known>> known = new HashMap<>();
+        int[] ports = new int[1];
+        jdbcTemplate.query("SELECT host, port, service, version, banner_hash FROM baseline_ports WHERE baseline_id = ?",
+                rs -> {
+                    known.computeIfAbsent(rs.getString(1), host -> new HashMap<>())
+                            .put(rs.getInt(2), new Known(rs.getString(3), rs.getString(4), rs.getString(5)));
+                    ports[0]++;
+                }, baseline.getId());
+        log.debug("Comparing job {} with the baseline of job {} - {} open ports on {} hosts",
+                  job.getId(), baseline.getLastJobId(), ports[0], known.size());
+        return new Diff(job, known);
+    }
+
+    /**
+     * Folds a completed diff-mode job into its baseline and returns how many changes it found.
+     * Only a baseline still at the job it was compared with moves forward: if another job has
+     * seeded or moved it since, the changes are kept in scan_changes but the baseline is left alone.
+     */
+    public int complete(ScanJob job) {
+        if (!Boolean.TRUE.equals(job.getDiffMode()) || !Boolean.TRUE.equals(job.getBaselineLoaded())) {
+            return 0;
+        }
+        Integer changes = transactionTemplate.execute(tx -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Long> updated = job.getBaselineJobId() == null
+                    ? jdbcTemplate.queryForList(
+                            "INSERT INTO scan_baselines (target, port_range, protocol, last_job_id, updated_at) "
+                            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (target, port_range, protocol) DO NOTHING RETURNING id",
+                            Long.class, job.getTarget(), job.getPortRange(), protocolOf(job).name(), job.getId(), now)
+                    // Row-locked compare-and-set: of two jobs compared with the same baseline only one moves it
+                    : jdbcTemplate.queryForList(
+                            "UPDATE scan_baselines SET last_job_id = ?, updated_at = ? "
+                            + "WHERE target = ? AND port_range = ? AND protocol = ? AND last_job_id = ? RETURNING id",
+                            Long.class, job.getId(), now, job.getTarget(), job.getPortRange(), protocolOf(job).name(),
+                            job.getBaselineJobId());
+            if (updated.isEmpty()) {
+                log.info("Baseline of {} {} is no longer the one job {} was compared with; not applying its changes",
+                         job.getTarget(), job.getPortRange(), job.getId());
+            } else if (job.getBaselineJobId() == null) {
+                seed(updated.get(0), job.getId());
+            } else {
+                apply(updated.get(0), job.getId());
+            }
+            int count = (int) changeRepository.countByScanJobId(job.getId());
+            jdbcTemplate.update("UPDATE scan_jobs SET changed_ports = ? WHERE id = ?", count, job.getId());
+            return count;
+        });
+        job.setChangedPorts(changes);
+        return changes != null ? changes : 0;
+    }
+
+    /**
+     * Same as {@link #complete(ScanJob)} for a job known by id, within the caller's transaction.
+     */
+    public void complete(Long jobId) {
+        ScanJob job = jdbcTemplate.query(
+                "SELECT id, target, port_range, protocol, diff_mode, baseline_job_id, baseline_loaded FROM scan_jobs WHERE id = ?",
+                rs -> rs.next() ? ScanJob.builder()
+                        .id(rs.getLong(1))
+                        .target(rs.getString(2))
+                        .portRange(rs.getString(3))
+                        .protocol(rs.getString(4) != null ? ScanJob.Protocol.valueOf(rs.getString(4)) : null)
+                        .diffMode(rs.getBoolean(5))
+                        .baselineJobId(rs.getObject(6, Long.class))
+                        .baselineLoaded(rs.getBoolean(7))
+                        .build() : null,
+                jobId);
+        if (job != null) {
+            complete(job);
+        }
+    }
+
+    private void seed(Long baselineId, Long jobId) {
+        jdbcTemplate.update("DELETE FROM baseline_ports WHERE baseline_id = ?", baselineId);
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT host, port, service, version, banner, cert_subject, cert_issuer, cert_not_after "
+                + "FROM port_results WHERE scan_job_id = ? AND status = 'OPEN'",
+                (rs, i) -> {
+                    Timestamp notAfter = rs.getTimestamp(8);
+                    PortResult result = PortResult.builder()
+                            .banner(rs.getString(5))
+                            .certSubject(rs.getString(6))
+                            .certIssuer(rs.getString(7))
+                            .certNotAfter(notAfter != null ? notAfter.toLocalDateTime() : null)
+                            .build();
+                    return new Object[]{baselineId, rs.getString(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                                        bannerHash(result)};
+                }, jobId);
+        jdbcTemplate.batchUpdate("INSERT INTO baseline_ports (baseline_id, host, port, service, version, banner_hash) "
+                                 + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        log.info("Seeded baseline {} from job {} - {} open ports", baselineId, jobId, rows.size());
+    }
+
+    private void apply(Long baselineId, Long jobId) {
+        int upserted = jdbcTemplate.update(
+                "INSERT INTO baseline_ports (baseline_id, host, port, service, version, banner_hash) "
+                + "SELECT ?, host, port, service, version, banner_hash FROM scan_changes "
+                + "WHERE scan_job_id = ? AND change_type IN ('OPENED', 'SERVICE_CHANGED', 'BANNER_CHANGED') "
+                + "ON CONFLICT (baseline_id, host, port) DO UPDATE SET service = EXCLUDED.service, "
+                + "version = EXCLUDED.version, banner_hash = EXCLUDED.banner_hash",
+                baselineId, jobId);
+        int removed = jdbcTemplate.update(
+                "DELETE FROM baseline_ports b USING scan_changes c WHERE c.scan_job_id = ? "
+                + "AND c.change_type = 'CLOSED' AND b.baseline_id = ? AND b.host = c.host AND b.port = c.port",
+                jobId, baselineId);
+        log.info("Applied job {} to baseline {} - {} ports opened or changed, {} closed",
+                 jobId, baselineId, upserted, removed);
+    }
+
+    static String bannerHash(PortResult result) {
+        if (result.getBanner() == null && result.getCertSubject() == null) {
+            return null;
+        }
+        String banner = result.getBanner() != null
+                ? VOLATILE_HEADERS.matcher(result.getBanner()).replaceAll("").strip()
+                : "";
+        String material = banner + '\0' + result.getCertSubject() + '\0' + result.getCertIssuer()
+                + '\0' + result.getCertNotAfter();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ScanJob.Protocol protocolOf(ScanJob job) {
+        return job.getProtocol() != null ? job.getProtocol() : ScanJob.Protocol.TCP;
+    }
+
+    private record Known(String service, String version, String bannerHash) {
+    }
+
+    /**
+     * A running job's view of its baseline. Thread-safe: the baseline is only read. Changes are
+     * returned to the caller, which queues them on the job's {@link ResultWriter}.
+     */
+    public static final class Diff {
+
+        private final ScanJob job;
+        private final Map<String, Map<Integer, Known>> known;
+
+        private Diff(ScanJob job, Map<String, Map<Integer, Known>> known) {
+            this.job = job;
+            this.known = known;
+        }
+
+        /**
+         * The result's change from the baseline, or null if it has none and so does not belong
+         * in the job's results.
+         */
+        public ScanChange changeOf(PortResult result) {
+            Map<Integer, Known> ports = known.get(result.getHost());
+            Known before = ports != null ? ports.get(result.getPort()) : null;
+            boolean open = result.getStatus() == PortResult.PortStatus.OPEN;
+            if (before == null && !open) {
+                return null;
+            }
+            String hash = open ? bannerHash(result) : null;
+            ScanChange.ChangeType type;
+            if (result.getStatus() == PortResult.PortStatus.FILTERED) {
+                type = ScanChange.ChangeType.FILTERED;
+            } else if (!open) {
+                type = ScanChange.ChangeType.CLOSED;
+            } else if (before == null) {
+                type = ScanChange.ChangeType.OPENED;
+            } else if (!Objects.equals(before.service(), result.getService())
+                    || !Objects.equals(before.version(), result.getVersion())) {
+                type = ScanChange.ChangeType.SERVICE_CHANGED;
+            } else if (!Objects.equals(before.bannerHash(), hash)) {
+                type = ScanChange.ChangeType.BANNER_CHANGED;
+            } else {
+                return null;
+            }
+            return change(result.getHost(), result.getPort(), type, result.getStatus(), before)
+                    .service(result.getService())
+                    .version(result.getVersion())
+                    .banner(result.getBanner())
+                    .bannerHash(hash)
+                    .build();
+        }
+
+        /**
+         * Every known-open port of a host that discovery found down, as CLOSED. Work units of the
+         * same host each report it down; the writer ignores the changes after the first.
+         */
+        public List<ScanChange> hostDown(String host) {
+            Map<Integer, Known> ports = known.get(host);
+            if (ports == null) {
+                return List.of();
+            }
+            List<ScanChange> changes = new ArrayList<>(ports.size());
+            ports.forEach((port, before) -> changes.add(
+                    change(host, port, ScanChange.ChangeType.CLOSED, PortResult.PortStatus.FILTERED, before).build()));
+            return changes;
+        }
+
+        private ScanChange.ScanChangeBuilder change(String host, int port, ScanChange.ChangeType type,
+                                                    PortResult.PortStatus status, Known before) {
+            return ScanChange.builder()
+                    .target(job.getTarget())
+                    .host(host)
+                    .port(port)
+                    .changeType(type)
+                    .status(status)
+                    .previousService(before != null ? before.service() : null)
+                    .previousVersion(before != null ? before.version() : null)
+                    .detectedAt(LocalDateTime.now());
+        }
+    }
+}
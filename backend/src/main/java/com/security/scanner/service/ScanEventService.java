@@ -0,0 +1,262 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.dto.ScanResponse;
+import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes port results and progress ticks of running scans to SSE subscribers.
+ * Every subscriber has its own bounded buffer drained by its own virtual thread; when a slow
+ * client falls behind, events are dropped for that client only and it receives a "dropped"
+ * event with the count before the next delivered event.
+ * <p>
+ * Scans that are not running in this instance (pending, waiting for admission, owned by another
+ * replica or split into work units) are followed from the database instead: their subscribers get
+ * a progress event per poll and the final status once the job has ended. The progress of a
+ * distributed job includes its units in flight; the results of units are only streamed by the
+ * replica that runs them.
+ * <p>
+ * The stream ends with a "complete" event carrying the final status. A scan that stops here
+ * without ending (taken over by another replica) sends "suspended" instead and is followed from
+ * the database from then on; when this instance shuts down the stream simply drops, and clients
+ * reconnect to follow the scan on the replica resuming it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanEventService {
+
+    private static final Set<ScanJob.ScanStatus> ENDED =
+            EnumSet.of(ScanJob.ScanStatus.COMPLETED, ScanJob.ScanStatus.FAILED, ScanJob.ScanStatus.CANCELLED);
+
+    private final ScannerConfig config;
+    private final ScanProgressService progressService;
+    private final ScanJobRepository scanJobRepository;
+    private final ScanWorkQueueService workQueue;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public SseEmitter subscribe(Long jobId, ScanResponse currentStatus) {
+        ScannerConfig.Stream stream = config.getStream();
+        Subscriber subscriber = new Subscriber(jobId, new SseEmitter(stream.getTimeout()), stream.getBufferSize());
+
+        subscriber.offer("status", currentStatus);
+        subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+
+        // Already over: the status snapshot is all there is
+        if (ENDED.contains(currentStatus.getStatus()) && progressService.get(jobId).isEmpty()) {
+            remove(subscriber);
+            subscriber.end(null);
+        }
+
+        // Wake the sender thread so it exits once the client goes away
+        subscriber.emitter.onCompletion(() -> disconnect(subscriber));
+        subscriber.emitter.onTimeout(() -> disconnect(subscriber));
+        subscriber.emitter.onError(e -> disconnect(subscriber));
+        Thread.ofVirtual().name("sse-" + jobId).start(subscriber::run);
+        return subscriber.emitter;
+    }
+
+    public boolean hasSubscribers(Long jobId) {
+        return subscribers.containsKey(jobId);
+    }
+
+    public void publishResult(Long jobId, PortResult result) {
+        publish(jobId, "result", result);
+    }
+
+    public void publishProgress(ScanProgress progress) {
+        publish(progress.getJobId(), "progress", Map.of(
+                "jobId", progress.getJobId(),
+                "progress", progress.getProgress(),
+                "scannedPorts", progress.getScanned(),
+                "openPorts", progress.getOpen(),
+                "closedPorts", progress.getClosed(),
+                "filteredPorts", progress.getFiltered()));
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.stream.poll-interval:2000}")
+    public void pollElsewhere() {
+        for (Long jobId : List.copyOf(subscribers.keySet())) {
+            if (progressService.get(jobId).isPresent()) {
+                continue;
+            }
+            try {
+                scanJobRepository.findById(jobId).ifPresentOrElse(job -> {
+                    if (ENDED.contains(job.getStatus())) {
+                        complete(job);
+                    } else if (Boolean.TRUE.equals(job.getDistributed())) {
+                        workQueue.progressOf(jobId).ifPresent(counts -> publish(jobId, "progress", progressOf(job, counts)));
+                    } else {
+                        publish(jobId, "progress", progressOf(job));
+                    }
+                }, () -> end(jobId));
+            } catch (Exception e) {
+                log.warn("Failed to poll scan job {} for its subscribers: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ends the streams of a job that ran in this instance. A job that stopped here without ending
+     * (suspended by a shutdown, or taken over by another replica) gets a "suspended" event instead,
+     * and its subscribers are followed from the database from then on.
+     */
+    public void complete(ScanJob job) {
+        if (!ENDED.contains(job.getStatus())) {
+            Map<String, Object> suspended = progressOf(job);
+            suspended.put("status", job.getStatus());
+            List<Subscriber> list = subscribers.get(job.getId());
+            if (list != null) {
+                list.forEach(subscriber -> subscriber.offerState("suspended", suspended));
+            }
+            return;
+        }
+        List<Subscriber> list = subscribers.remove(job.getId());
+        if (list == null) {
+            return;
+        }
+        Map<String, Object> finalStatus = new HashMap<>();
+        finalStatus.put("jobId", job.getId());
+        finalStatus.put("status", job.getStatus());
+        finalStatus.put("progress", job.getProgress());
+        finalStatus.put("scannedPorts", job.getScannedPorts());
+        finalStatus.put("openPorts", job.getOpenPorts());
+        finalStatus.put("closedPorts", job.getClosedPorts());
+        finalStatus.put("filteredPorts", job.getFilteredPorts());
+        finalStatus.put("completedAt", job.getCompletedAt());
+        finalStatus.put("errorMessage", job.getErrorMessage());
+        list.forEach(subscriber -> subscriber.end(finalStatus));
+    }
+
+    private static Map<String, Object> progressOf(ScanJob job) {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("jobId", job.getId());
+        progress.put("progress", job.getProgress());
+        progress.put("scannedPorts", job.getScannedPorts());
+        progress.put("openPorts", job.getOpenPorts());
+        progress.put("closedPorts", job.getClosedPorts());
+        progress.put("filteredPorts", job.getFilteredPorts());
+        return progress;
+    }
+
+    private static Map<String, Object> progressOf(ScanJob job, ScanWorkQueueService.Counts counts) {
+        Map<String, Object> progress = progressOf(job);
+        progress.put("progress", counts.percentOf(job.getTotalPorts()));
+        progress.put("scannedPorts", counts.scanned());
+        progress.put("openPorts", counts.open());
+        progress.put("closedPorts", counts.closed());
+        progress.put("filteredPorts", counts.filtered());
+        return progress;
+    }
+
+    /**
+     * Ends the streams of a job that no longer exists.
+     */
+    private void end(Long jobId) {
+        List<Subscriber> list = subscribers.remove(jobId);
+        if (list != null) {
+            list.forEach(subscriber -> subscriber.end(null));
+        }
+    }
+
+    private void publish(Long jobId, String name, Object data) {
+        List<Subscriber> list = subscribers.get(jobId);
+        if (list != null) {
+            list.forEach(subscriber -> subscriber.offer(name, data));
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        remove(subscriber);
+        subscriber.end(null);
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.jobId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private record Event(String name, Object data, boolean last) {
+    }
+
+    private static final class Subscriber {
+        private final Long jobId;
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger dropped = new AtomicInteger();
+
+        private Subscriber(Long jobId, SseEmitter emitter, int capacity) {
+            this.jobId = jobId;
+            this.emitter = emitter;
+            this.capacity = capacity;
+        }
+
+        private void offer(String name, Object data) {
+            // Approximate bound; never blocks the scanner
+            if (queue.size() >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+            queue.add(new Event(name, data, false));
+        }
+
+        // Bypasses the bound like the terminal event: the client must not miss a change of state
+        private void offerState(String name, Object data) {
+            queue.add(new Event(name, data, false));
+        }
+
+        private void end(Object finalStatus) {
+            // The terminal event bypasses the bound so the client always learns the scan ended
+            queue.add(new Event("complete", finalStatus, true));
+        }
+
+        private void run() {
+            try {
+                while (true) {
+                    Event event = queue.take();
+                    int lost = dropped.getAndSet(0);
+                    if (lost > 0) {
+                        emitter.send(SseEmitter.event().name("dropped").data(Map.of("count", lost)));
+                    }
+                    if (event.data() != null) {
+                        emitter.send(SseEmitter.event().name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+                    }
+                    if (event.last()) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE subscriber for job {} disconnected: {}", jobId, e.getMessage());
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            }
+        }
+    }
+}
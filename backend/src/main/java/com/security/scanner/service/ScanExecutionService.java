@@ -0,0 +1,164 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.dto.RunningScanView;
+import com.security.scanner.engine.PortList;
+import com.security.scanner.engine.TargetSpec;
+import com.security.scanner.exception.ResourceNotFoundException;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanExecutionService {
+    
+    private final ScanJobRepository scanJobRepository;
+    private final PortScannerService portScanner;
+    private final ResultPersistenceService resultPersistence;
+    private final ScanProgressService progressService;
+    private final ScanEventService scanEvents;
+    private final ScanCheckpointService checkpoints;
+    private final ScanDiffService scanDiff;
+    private final ScannerConfig config;
+    private final TransactionTemplate transactionTemplate;
+    
+    private volatile boolean shuttingDown;
+    
+    /**
+     * Runs the scan on a virtual thread. Only {@link ScanAdmissionService} should call this; the
+     * returned future completes when the scan has finished, whatever its outcome.
+     */
+    @Async("virtualThreadExecutor")
+    public CompletableFuture<Void> executeScan(Long jobId, String target, PortList ports) {
+        runScan(jobId, target, ports);
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    private void runScan(Long jobId, String target, PortList ports) {
+        ScanJob job = scanJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Scan job not found"));
+        
+        if (job.getStatus() == ScanJob.ScanStatus.CANCELLED) {
+            log.info("Scan job {} was cancelled before it started", jobId);
+            return;
+        }
+        
+        try {
+            job.setStatus(ScanJob.ScanStatus.RUNNING);
+            job.setOwner(config.getInstanceId());
+            job.setHeartbeatAt(LocalDateTime.now());
+            scanJobRepository.save(job);
+            
+            TargetSpec targets = TargetSpec.parse(target);
+            log.info("Starting scan for job {} - Target: {}, Hosts: {}, Ports: {}",
+                     jobId, target, targets.size(), ports.size());
+            
+            ScanProgress progress = progressService.start(job);
+            
+            // Resumed after a crash or redeploy: skip whatever the last checkpoint covered
+            CheckpointTracker coverage = checkpoints.open(job, targets);
+            long[] covered = coverage.coveredCounts();
+            if (covered[0] > 0) {
+                progress.resume(covered);
+                log.info("Resuming job {} from checkpoint - {} ports already covered", jobId, covered[0]);
+            }
+            
+            // Scan all ports (including closed and filtered), streaming results to the database
+            try (ResultWriter writer = resultPersistence.openWriter(jobId, Boolean.TRUE.equals(job.getCompactResults()))) {
+                checkpoints.register(jobId, coverage, writer);
+                try {
+                    portScanner.scanTargets(targets, ports, ScanOptions.of(job, config),
+                                            ResultSink.forJob(job, writer, progress, coverage, scanDiff.open(job), scanEvents),
+                                            progress.getControl());
+                } finally {
+                    checkpoints.unregister(jobId);
+                }
+            }
+            
+            job.setScannedPorts(progress.getScanned());
+            job.setOpenPorts(progress.getOpen());
+            job.setClosedPorts(progress.getClosed());
+            job.setFilteredPorts(progress.getFiltered());
+            job.setProgress(progress.getProgress());
+            
+            if (shuttingDown) {
+                // Checkpointed and released by suspendRunningScans(); another instance picks it up
+                return;
+            }
+            
+            job.setCompletedAt(LocalDateTime.now());
+            
+            if (progress.getControl().isCancelled()) {
+                if (!scanJobRepository.existsByIdAndOwner(jobId, config.getInstanceId())) {
+                    log.info("Scan job {} was deleted or taken over by another instance", jobId);
+                    return;
+                }
+                // Keep whatever was collected up to the cancel
+                job.setStatus(ScanJob.ScanStatus.CANCELLED);
+                scanJobRepository.save(job);
+                checkpoints.delete(jobId);
+                log.info("Scan cancelled for job {} after {} ports", jobId, job.getScannedPorts());
+                return;
+            }
+            
+            job.setProgress(100);
+            job.setStatus(ScanJob.ScanStatus.COMPLETED);
+            
+            // One transaction, as on the work-queue path: a COMPLETED diff job has always been folded in
+            transactionTemplate.executeWithoutResult(tx -> {
+                // Flushed first, so the job row is not written again over the diff's changed_ports
+                scanJobRepository.saveAndFlush(job);
+                scanDiff.complete(job);
+            });
+            checkpoints.delete(jobId);
+            
+            log.info("Scan completed for job {} - Open: {}, Closed: {}, Filtered: {}", 
+                     jobId, job.getOpenPorts(), job.getClosedPorts(), job.getFilteredPorts());
+            
+        } catch (Exception e) {
+            if (shuttingDown) {
+                log.info("Scan job {} interrupted by shutdown: {}", jobId, e.getMessage());
+                return;
+            }
+            log.error("Scan failed for job {}: {}", jobId, e.getMessage(), e);
+            job.setStatus(ScanJob.ScanStatus.FAILED);
+            job.setErrorMessage(e.getMessage());
+            scanJobRepository.save(job);
+            checkpoints.delete(jobId);
+        } finally {
+            progressService.finish(jobId);
+            scanEvents.complete(job);
+        }
+    }
+    
+    /**
+     * Hands the scans running here over to the other replicas: stops them, saves a final
+     * checkpoint and clears the heartbeat so recovery elsewhere does not wait for it to go stale.
+     */
+    @PreDestroy
+    public void suspendRunningScans() {
+        shuttingDown = true;
+        for (RunningScanView scan : progressService.getRunningScans()) {
+            Long jobId = scan.getJobId();
+            // Before cancelling: the scan unregisters its checkpoint as soon as it stops
+            checkpoints.checkpoint(jobId);
+            progressService.cancel(jobId);
+            try {
+                scanJobRepository.release(jobId, config.getInstanceId());
+                log.info("Suspended scan job {} for resumption elsewhere", jobId);
+            } catch (Exception e) {
+                log.warn("Failed to release scan job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package com.security.scanner.service;
 
 import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.dto.QueuedScanView;
+import com.security.scanner.dto.RunningScanView;
 import com.security.scanner.dto.ScanRequest;
 import com.security.scanner.dto.ScanResponse;
+import com.security.scanner.engine.PortList;
+import com.security.scanner.engine.TargetSpec;
 import com.security.scanner.exception.ResourceNotFoundException;
-import com.security.scanner.model.PortResult;
+import com.security.scanner.exception.ScanAlreadyFinishedException;
 import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.PortResultRepository;
 import com.security.scanner.repository.ScanJobRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -25,87 +34,152 @@ import java.util.List;
 public class ScanJobService {
     
     private final ScanJobRepository scanJobRepository;
-    private final PortScannerService portScanner;
+    private final PortResultRepository portResultRepository;
+    private final ScanAdmissionService admission;
+    private final ScanProgressService progressService;
+    private final ScanEventService scanEvents;
+    private final ScanCheckpointService checkpoints;
+    private final ScanWorkQueueService workQueue;
+    private final PortProfiles portProfiles;
     private final ScannerConfig config;
     
     @Transactional
     public ScanResponse createScanJob(ScanRequest request) {
-        List<Integer> ports = parsePorts(request.getPortRange());
+        return createScanJob(request, ScanJob.Priority.AD_HOC);
+    }
+    
+    @Transactional
+    public ScanResponse createScanJob(ScanRequest request, ScanJob.Priority priority) {
+        TargetSpec targets = TargetSpec.parse(request.getTarget());
+        ScanJob.Protocol protocol = request.getProtocol() != null
+                ? ScanJob.Protocol.valueOf(request.getProtocol().toUpperCase())
+                : ScanJob.Protocol.TCP;
+        boolean diffMode = Boolean.TRUE.equals(request.getDiffMode());
+        boolean verifyOpen = Boolean.TRUE.equals(request.getVerifyOpen());
+        if (diffMode && verifyOpen) {
+            // A rescan takes its known-open ports from the last full result set, which diff jobs do not keep
+            throw new IllegalArgumentException("diffMode and verifyOpen cannot be combined");
+        }
         
         ScanJob job = ScanJob.builder()
                 .target(request.getTarget())
                 .portRange(request.getPortRange())
+                .protocol(protocol)
+                .diffMode(diffMode)
+                .verifyOpen(verifyOpen)
                 .status(ScanJob.ScanStatus.PENDING)
                 .progress(0)
-                .totalPorts(ports.size())
+                .totalHosts((int) targets.size())
                 .scannedPorts(0)
                 .openPorts(0)
                 .closedPorts(0)
                 .filteredPorts(0)
+                .includeClosedPorts(!Boolean.FALSE.equals(request.getIncludeClosedPorts()))
+                .includeFilteredPorts(!Boolean.FALSE.equals(request.getIncludeFilteredPorts()))
+                .compactResults(request.getCompactResults() != null
+                        ? request.getCompactResults()
+                        : "bitmap".equalsIgnoreCase(config.getPersistence().getMode()))
+                .timeout(request.getTimeout() != null ? request.getTimeout() : config.getDefaultTimeout())
+                .hostDiscovery(request.getHostDiscovery() != null
+                        ? request.getHostDiscovery()
+                        : config.getDiscovery().isEnabled())
+                .owner(config.getInstanceId())
+                .heartbeatAt(LocalDateTime.now())
+                .distributed(workQueue.isEnabled())
+                .priority(priority)
                 .build();
         
+        PortList ports;
+        if (verifyOpen) {
+            planRescan(job);
+            // Only the count matters here; the job's own order needs its id
+            ports = portProfiles.forRescan(0L, job.getPortRange(), job.getKnownOpenPorts(),
+                                           job.getSweepOffset(), job.getSweepCount());
+        } else {
+            ports = portProfiles.parse(request.getPortRange());
+        }
+        
+        long totalProbes = targets.size() * ports.size();
+        if (totalProbes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Scan too large: " + targets.size() + " hosts x "
+                    + ports.size() + " ports. Split the target range or narrow the port range");
+        }
+        job.setTotalPorts((int) totalProbes);
+        
         job = scanJobRepository.save(job);
         
-        // Start scan asynchronously
-        executeScan(job.getId(), request.getTarget(), ports);
+        if (workQueue.isEnabled()) {
+            // Committed together with the job; any replica with free slots picks the units up
+            workQueue.enqueue(job, targets, ports.size());
+            return mapToResponse(job);
+        }
+        
+        // Queue the scan for admission once the job row is committed
+        Long jobId = job.getId();
+        PortList order = portsOf(job);
+        afterCommit(() -> admission.submit(jobId, request.getTarget(), order, priority));
         
         return mapToResponse(job);
     }
     
-    @Async("virtualThreadExecutor")
-    public void executeScan(Long jobId, String target, List<Integer> ports) {
-        ScanJob job = scanJobRepository.findById(jobId)
-                .orElseThrow(() -> new ResourceNotFoundException("Scan job not found"));
+    public ScanResponse getScanStatus(Long jobId) {
+        // Running scans are answered from the live counters without touching the database
+        Optional<ScanProgress> progress = progressService.get(jobId);
+        if (progress.isPresent()) {
+            return mapToResponse(progress.get().snapshot());
+        }
         
-        try {
-            job.setStatus(ScanJob.ScanStatus.RUNNING);
-            scanJobRepository.save(job);
-            
-            log.info("Starting scan for job {} - Target: {}, Ports: {}", jobId, target, ports.size());
-            
-            // Scan all ports (including closed and filtered)
-            List<PortResult> results = portScanner.scanPorts(target, ports);
-            
-            // Associate results with job
-            results.forEach(result -> result.setScanJob(job));
-            job.setResults(results);
-            job.setScannedPorts(ports.size());
-            
-            // Count by status
-            long openCount = results.stream()
-                    .filter(r -> r.getStatus() == PortResult.PortStatus.OPEN)
-                    .count();
-            long closedCount = results.stream()
-                    .filter(r -> r.getStatus() == PortResult.PortStatus.CLOSED)
-                    .count();
-            long filteredCount = results.stream()
-                    .filter(r -> r.getStatus() == PortResult.PortStatus.FILTERED)
-                    .count();
-            
-            job.setOpenPorts((int) openCount);
-            job.setClosedPorts((int) closedCount);
-            job.setFilteredPorts((int) filteredCount);
-            job.setProgress(100);
-            job.setStatus(ScanJob.ScanStatus.COMPLETED);
-            job.setCompletedAt(LocalDateTime.now());
-            
-            scanJobRepository.save(job);
-            
-            log.info("Scan completed for job {} - Open: {}, Closed: {}, Filtered: {}", 
-                     jobId, openCount, closedCount, filteredCount);
-            
-        } catch (Exception e) {
-            log.error("Scan failed for job {}: {}", jobId, e.getMessage(), e);
-            job.setStatus(ScanJob.ScanStatus.FAILED);
-            job.setErrorMessage(e.getMessage());
-            scanJobRepository.save(job);
+        ScanJob job = scanJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Scan job not found: " + jobId));
+        ScanResponse response = mapToResponse(job);
+        // Distributed: the job row only counts completed units, so add the ones in flight
+        if (Boolean.TRUE.equals(job.getDistributed()) && job.getStatus() == ScanJob.ScanStatus.RUNNING) {
+            workQueue.progressOf(jobId).ifPresent(counts -> {
+                response.setProgress(counts.percentOf(job.getTotalPorts()));
+                response.setScannedPorts(counts.scanned());
+                response.setOpenPorts(counts.open());
+                response.setClosedPorts(counts.closed());
+                response.setFilteredPorts(counts.filtered());
+            });
         }
+        return response;
     }
     
-    public ScanResponse getScanStatus(Long jobId) {
+    public ScanResponse cancelScan(Long jobId) {
         ScanJob job = scanJobRepository.findById(jobId)
                 .orElseThrow(() -> new ResourceNotFoundException("Scan job not found: " + jobId));
-        return mapToResponse(job);
+        
+        // Running here: the executor stops and persists the partial results itself
+        if (progressService.cancel(jobId)) {
+            log.info("Cancelling scan job {}", jobId);
+            return getScanStatus(jobId);
+        }
+        
+        // Waiting for admission here: never started, so there is nothing to keep
+        admission.remove(jobId);
+        
+        // Pending, or running on another replica which picks the status change up on its next flush
+        if (scanJobRepository.markCancelled(jobId, LocalDateTime.now()) == 0) {
+            throw new ScanAlreadyFinishedException("Scan job " + jobId + " is already " + job.getStatus());
+        }
+        if (Boolean.TRUE.equals(job.getDistributed())) {
+            // Units in flight notice on their next heartbeat
+            workQueue.discard(jobId);
+        }
+        log.info("Marked scan job {} as cancelled", jobId);
+        return getScanStatus(jobId);
+    }
+    
+    public List<RunningScanView> getRunningScans() {
+        return progressService.getRunningScans();
+    }
+    
+    public List<QueuedScanView> getQueuedScans() {
+        return admission.getQueue();
+    }
+    
+    public SseEmitter streamScan(Long jobId) {
+        return scanEvents.subscribe(jobId, getScanStatus(jobId));
     }
     
     public ScanJob getScanResults(Long jobId) {
@@ -122,40 +196,59 @@ public class ScanJobService {
         if (!scanJobRepository.existsById(jobId)) {
             throw new ResourceNotFoundException("Scan job not found: " + jobId);
         }
+        admission.remove(jobId);
         scanJobRepository.deleteById(jobId);
+        checkpoints.delete(jobId);
     }
     
-    private List<Integer> parsePorts(String portRange) {
-        List<Integer> ports = new ArrayList<>();
-        
-        if ("common".equalsIgnoreCase(portRange)) {
-            return config.getCommonPorts();
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
         }
-        
-        if ("all".equalsIgnoreCase(portRange)) {
-            // All ports 1-65535 (use with caution!)
-            for (int i = 1; i <= 65535; i++) {
-                ports.add(i);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
             }
-            return ports;
+        });
+    }
+    
+    /**
+     * Ports of the job in the order it probes them.
+     */
+    PortList portsOf(ScanJob job) {
+        if (Boolean.TRUE.equals(job.getVerifyOpen())) {
+            return portProfiles.forRescan(job.getId(), job.getPortRange(), job.getKnownOpenPorts(),
+                                          job.getSweepOffset(), job.getSweepCount());
         }
+        return portProfiles.forJob(job.getId(), job.getPortRange());
+    }
+    
+    /**
+     * Picks what a verify-known-open rescan probes: the ports the last completed scan of the same
+     * target, port range and protocol found open on any host, and the slice of the range following
+     * the one that scan swept (from the start if it was a full scan or there is none).
+     */
+    private void planRescan(ScanJob job) {
+        int rangeSize = portProfiles.parse(job.getPortRange()).size();
+        ScanJob previous = scanJobRepository.findLastCompleted(job.getTarget(), job.getPortRange(),
+                job.getProtocol(), PageRequest.of(0, 1)).stream().findFirst().orElse(null);
         
-        String[] parts = portRange.split(",");
-        for (String part : parts) {
-            part = part.trim();
-            if (part.contains("-")) {
-                String[] range = part.split("-");
-                int start = Integer.parseInt(range[0].trim());
-                int end = Integer.parseInt(range[1].trim());
-                for (int i = start; i <= end; i++) {
-                    ports.add(i);
-                }
-            } else {
-                ports.add(Integer.parseInt(part));
+        int offset = 0;
+        if (previous != null) {
+            BitSet open = new BitSet();
+            portResultRepository.findOpenPortNumbersByScanJobId(previous.getId()).forEach(open::set);
+            job.setKnownOpenPorts(open.isEmpty() ? null : PortSetCodec.toRanges(open));
+            if (Boolean.TRUE.equals(previous.getVerifyOpen()) && previous.getSweepOffset() != null) {
+                offset = (int) (((long) previous.getSweepOffset() + previous.getSweepCount()) % rangeSize);
             }
         }
-        
-        return ports;
+        job.setSweepOffset(offset);
+        job.setSweepCount(Math.max(1, Math.min(config.getRescan().getSweepPorts(), rangeSize)));
+        log.debug("Rescan of {} {} after job {}: known open {}, sweeping {} ports from #{}",
+                  job.getTarget(), job.getPortRange(), previous != null ? previous.getId() : null,
+                  job.getKnownOpenPorts(), job.getSweepCount(), offset);
     }
     
     private ScanResponse mapToResponse(ScanJob job) {
@@ -177,13 +270,21 @@ public class ScanJobService {
                 .jobId(job.getId())
                 .target(job.getTarget())
                 .portRange(job.getPortRange())
+                .protocol(job.getProtocol() != null ? job.getProtocol() : ScanJob.Protocol.TCP)
                 .status(job.getStatus())
                 .progress(job.getProgress())
+                .totalHosts(job.getTotalHosts())
                 .totalPorts(job.getTotalPorts())
                 .scannedPorts(job.getScannedPorts())
                 .openPorts(job.getOpenPorts())
                 .closedPorts(job.getClosedPorts())
                 .filteredPorts(job.getFilteredPorts())
+                .diffMode(job.getDiffMode())
+                .baselineJobId(job.getBaselineJobId())
+                .changedPorts(job.getChangedPorts())
+                .verifyOpen(job.getVerifyOpen())
+                .sweepOffset(job.getSweepOffset())
+                .sweepCount(job.getSweepCount())
                 .createdAt(job.getCreatedAt())
                 .completedAt(job.getCompletedAt())
                 .statistics(stats)
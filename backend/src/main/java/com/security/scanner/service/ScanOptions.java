@@ -0,0 +1,19 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.model.ScanJob;
+
+/**
+ * Per-scan settings the port scanner applies to every host of a job.
+ */
+public record ScanOptions(ScanJob.Protocol protocol, boolean hostDiscovery, int timeout) {
+
+    /**
+     * Options of the job; jobs created before a setting existed get its default.
+     */
+    public static ScanOptions of(ScanJob job, ScannerConfig config) {
+        return new ScanOptions(job.getProtocol() != null ? job.getProtocol() : ScanJob.Protocol.TCP,
+                               Boolean.TRUE.equals(job.getHostDiscovery()),
+                               job.getTimeout() != null ? job.getTimeout() : config.getDefaultTimeout());
+    }
+}
@@ -0,0 +1,154 @@
+package com.security.scanner.service;
+
+import com.security.scanner.dto.RunningScanView;
+import com.security.scanner.engine.ScanControl;
+import com.security.scanner.model.PortResult;
+import com.security.scanner.model.ScanJob;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live counters of a running scan. Updated from the scanner threads without locking.
+ */
+public class ScanProgress {
+    
+    private final ScanJob job;
+    private final Long unitId;
+    private final int totalPorts;
+    private final AtomicInteger scanned = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final AtomicInteger filtered = new AtomicInteger();
+    private final AtomicInteger reportedProgress = new AtomicInteger();
+    private final ScanControl control = new ScanControl();
+    
+    ScanProgress(ScanJob job) {
+        this(job, null, job.getTotalPorts() != null ? job.getTotalPorts() : 0);
+    }
+    
+    /**
+     * Counters of one work unit of a distributed job, covering only the unit's own ports.
+     */
+    ScanProgress(ScanJob job, Long unitId, int totalPorts) {
+        this.job = job;
+        this.unitId = unitId;
+        this.totalPorts = totalPorts;
+    }
+    
+    /**
+     * Starts the counters from what a checkpoint of an earlier run already covered.
+     */
+    void resume(long[] covered) {
+        scanned.set((int) covered[0]);
+        open.set((int) covered[1]);
+        closed.set((int) covered[2]);
+        filtered.set((int) covered[3]);
+    }
+    
+    public void record(PortResult.PortStatus status) {
+        switch (status) {
+            case OPEN -> open.incrementAndGet();
+            case CLOSED -> closed.incrementAndGet();
+            case FILTERED -> filtered.incrementAndGet();
+        }
+        scanned.incrementAndGet();
+    }
+    
+    /**
+     * Counts ports that were covered without a result (their host was found down).
+     */
+    public void skip(int ports) {
+        scanned.addAndGet(ports);
+    }
+    
+    /**
+     * True once per percentage point reached, for emitting progress ticks.
+     */
+    public boolean advanced() {
+        int current = getProgress();
+        int reported = reportedProgress.get();
+        return current > reported && reportedProgress.compareAndSet(reported, current);
+    }
+    
+    public Long getJobId() {
+        return job.getId();
+    }
+    
+    public ScanControl getControl() {
+        return control;
+    }
+    
+    public int getScanned() {
+        return scanned.get();
+    }
+    
+    public int getOpen() {
+        return open.get();
+    }
+    
+    public int getClosed() {
+        return closed.get();
+    }
+    
+    public int getFiltered() {
+        return filtered.get();
+    }
+    
+    public int getProgress() {
+        if (totalPorts == 0) {
+            return 0;
+        }
+        return (int) Math.min(100, scanned.get() * 100L / totalPorts);
+    }
+    
+    /**
+     * The scan as listed by /api/scans/running: live counters plus the engine's in-flight gauges.
+     * A work unit is listed with its own port count and progress.
+     */
+    public RunningScanView toRunningView() {
+        return RunningScanView.builder()
+                .jobId(job.getId())
+                .workUnitId(unitId)
+                .target(job.getTarget())
+                .portRange(job.getPortRange())
+                .protocol(job.getProtocol() != null ? job.getProtocol() : ScanJob.Protocol.TCP)
+                .progress(getProgress())
+                .scannedPorts(getScanned())
+                .totalPorts(totalPorts)
+                .cancelled(control.isCancelled())
+                .elapsedMillis(control.getElapsedMillis())
+                .activeHosts(control.getActiveHosts())
+                .probesInFlight(control.getProbesInFlight())
+                .bannerGrabsInFlight(control.getBannerGrabsInFlight())
+                .probesCompleted(control.getProbesCompleted())
+                .probesPerSecond(Math.round(control.getProbesPerSecond() * 10) / 10.0)
+                .build();
+    }
+    
+    /**
+     * Copy of the job as it was when the scan started, with the live counters applied.
+     */
+    public ScanJob snapshot() {
+        return ScanJob.builder()
+                .id(job.getId())
+                .target(job.getTarget())
+                .portRange(job.getPortRange())
+                .protocol(job.getProtocol())
+                .status(job.getStatus())
+                .progress(getProgress())
+                .totalHosts(job.getTotalHosts())
+                .totalPorts(job.getTotalPorts())
+                .scannedPorts(getScanned())
+                .openPorts(getOpen())
+                .closedPorts(getClosed())
+                .filteredPorts(getFiltered())
+                .diffMode(job.getDiffMode())
+                .baselineJobId(job.getBaselineJobId())
+                .verifyOpen(job.getVerifyOpen())
+                .sweepOffset(job.getSweepOffset())
+                .sweepCount(job.getSweepCount())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.dto.RunningScanView;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Holds progress of the scans running in this instance. Status polls are answered from memory;
+ * the database row is only refreshed every {@code scanner.progress-flush-interval} ms so other
+ * replicas still see reasonably current numbers. The same update doubles as the job's heartbeat.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanProgressService {
+    
+    private final ScanJobRepository scanJobRepository;
+    private final ScannerConfig config;
+    
+    private final Map<Long, ScanProgress> running = new ConcurrentHashMap<>();
+    private final Map<Long, ScanProgress> units = new ConcurrentHashMap<>();
+    
+    public ScanProgress start(ScanJob job) {
+        ScanProgress progress = new ScanProgress(job);
+        running.put(job.getId(), progress);
+        return progress;
+    }
+    
+    public Optional<ScanProgress> get(Long jobId) {
+        return Optional.ofNullable(running.get(jobId));
+    }
+    
+    public void finish(Long jobId) {
+        running.remove(jobId);
+    }
+    
+    /**
+     * Registers a work unit of a distributed job. Units are listed with the running scans, but
+     * {@link #get} and {@link #cancel} do not see them: their job's progress is the sum over all
+     * replicas and is kept in the database by {@link ScanWorkerService}.
+     */
+    public ScanProgress startUnit(ScanJob job, Long unitId, int totalPorts) {
+        ScanProgress progress = new ScanProgress(job, unitId, totalPorts);
+        units.put(unitId, progress);
+        return progress;
+    }
+    
+    public void finishUnit(Long unitId) {
+        units.remove(unitId);
+    }
+    
+    /**
+     * Cancels the scan if it runs in this instance.
+     */
+    public boolean cancel(Long jobId) {
+        ScanProgress progress = running.get(jobId);
+        if (progress == null) {
+            return false;
+        }
+        progress.getControl().cancel();
+        return true;
+    }
+    
+    public List<RunningScanView> getRunningScans() {
+        return Stream.concat(running.values().stream(), units.values().stream())
+                .map(ScanProgress::toRunningView)
+                .toList();
+    }
+    
+    @Scheduled(fixedDelayString = "${scanner.progress-flush-interval:2000}")
+    public void flushProgress() {
+        LocalDateTime now = LocalDateTime.now();
+        units.values().forEach(unit -> unit.getControl().sampleRate());
+        for (ScanProgress progress : running.values()) {
+            progress.getControl().sampleRate();
+            // Stopping already; the executor writes the final numbers itself
+            if (progress.getControl().isCancelled()) {
+                continue;
+            }
+            try {
+                int updated = scanJobRepository.updateProgress(progress.getJobId(), config.getInstanceId(), now,
+                        progress.getProgress(), progress.getScanned(), progress.getOpen(),
+                        progress.getClosed(), progress.getFiltered());
+                // Row is no longer RUNNING here: cancelled through another replica, deleted,
+                // or taken over by another replica after our heartbeats went missing
+                if (updated == 0 && !progress.getControl().isCancelled()) {
+                    log.info("Job {} was cancelled or reassigned externally, stopping local scan", progress.getJobId());
+                    progress.getControl().cancel();
+                }
+            } catch (Exception e) {
+                log.warn("Failed to flush progress for job {}: {}", progress.getJobId(), e.getMessage());
+            }
+        }
+    }
+}
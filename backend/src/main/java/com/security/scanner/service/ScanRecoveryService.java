@@ -0,0 +1,77 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resumes PENDING / RUNNING jobs whose owning instance died or shut down, from their last checkpoint.
+ * Runs at startup (where jobs still owned by this instance id are orphans by definition) and then
+ * periodically for jobs whose heartbeat went stale. Jobs are claimed with a conditional update,
+ * so each one is resumed by a single replica.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanRecoveryService {
+    
+    private final ScanJobRepository scanJobRepository;
+    private final ScanJobService scanJobService;
+    private final ScanAdmissionService admission;
+    private final ScanProgressService progressService;
+    private final ScannerConfig config;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover(true);
+    }
+    
+    @Scheduled(fixedDelayString = "${scanner.recovery.interval:60000}",
+               initialDelayString = "${scanner.recovery.interval:60000}")
+    public void recoverStale() {
+        recover(false);
+    }
+    
+    private void recover(boolean includeOwn) {
+        String owner = config.getInstanceId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(config.getRecovery().getStaleAfter(), ChronoUnit.MILLIS);
+        
+        try {
+            for (Long jobId : scanJobRepository.findOrphaned(staleBefore, owner, includeOwn)) {
+                // Our own heartbeat can lag when the database is slow; never start a second copy
+                if (progressService.get(jobId).isPresent() || admission.isQueued(jobId)) {
+                    continue;
+                }
+                if (scanJobRepository.claim(jobId, owner, now, staleBefore, includeOwn) == 0) {
+                    continue;
+                }
+                resume(jobId);
+            }
+        } catch (Exception e) {
+            log.warn("Scan recovery pass failed: {}", e.getMessage());
+        }
+    }
+    
+    private void resume(Long jobId) {
+        ScanJob job = scanJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        try {
+            log.info("Resuming orphaned scan job {} ({} on {})", jobId, job.getPortRange(), job.getTarget());
+            admission.submit(jobId, job.getTarget(), scanJobService.portsOf(job), job.getPriority());
+        } catch (Exception e) {
+            log.error("Failed to resume scan job {}: {}", jobId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.security.scanner.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.scanner.dto.PortResultPage;
+import com.security.scanner.dto.PortResultView;
+import com.security.scanner.dto.PortSetView;
+import com.security.scanner.dto.ScanChangeView;
+import com.security.scanner.exception.ResourceNotFoundException;
+import com.security.scanner.model.PortBitmap;
+import com.security.scanner.model.PortResult;
+import com.security.scanner.repository.PortBitmapRepository;
+import com.security.scanner.repository.PortResultRepository;
+import com.security.scanner.repository.ScanChangeRepository;
+import com.security.scanner.repository.ScanJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ScanResultService {
+
+    private static final int MAX_PAGE_SIZE = 5000;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final ScanJobRepository scanJobRepository;
+    private final PortResultRepository portResultRepository;
+    private final PortBitmapRepository portBitmapRepository;
+    private final ScanChangeRepository scanChangeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public PortResultPage getPorts(Long jobId, List<PortResult.PortStatus> statuses, long after, int limit, String format) {
+        requireJob(jobId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<PortResult.PortStatus> filter = orAll(statuses);
+
+        List<PortResultView> rows = new ArrayList<>(pageSize);
+        if (after >= 0) {
+            rows.addAll(portResultRepository.findPage(jobId, filter, after, PageRequest.of(0, pageSize)));
+        }
+        // Compact jobs keep CLOSED / FILTERED ports as bitmaps; they follow the stored rows
+        if (rows.size() < pageSize && filter.stream().anyMatch(status -> status != PortResult.PortStatus.OPEN)) {
+            expandBitmaps(jobId, filter, after, pageSize, rows);
+        }
+
+        PortResultPage.PortResultPageBuilder page = PortResultPage.builder()
+                .jobId(jobId)
+                .count(rows.size())
+                .nextCursor(rows.size() == pageSize ? rows.get(rows.size() - 1).getId() : null);
+
+        if ("columns".equalsIgnoreCase(format)) {
+            page.columns(PortResultPage.Columns.builder()
+                    .ids(rows.stream().map(PortResultView::getId).toList())
+                    .hosts(rows.stream().map(PortResultView::getHost).toList())
+                    .ports(rows.stream().map(PortResultView::getPort).toList())
+                    .statuses(rows.stream().map(PortResultView::getStatus).toList())
+                    .services(rows.stream().map(PortResultView::getService).toList())
+                    .versions(rows.stream().map(PortResultView::getVersion).toList())
+                    .banners(rows.stream().map(PortResultView::getBanner).toList())
+                    .responseTimes(rows.stream().map(PortResultView::getResponseTime).toList())
+                    .errorMessages(rows.stream().map(PortResultView::getErrorMessage).toList())
+                    .tlsProtocols(rows.stream().map(PortResultView::getTlsProtocol).toList())
+                    .tlsCiphers(rows.stream().map(PortResultView::getTlsCipher).toList())
+                    .certSubjects(rows.stream().map(PortResultView::getCertSubject).toList())
+                    .certIssuers(rows.stream().map(PortResultView::getCertIssuer).toList())
+                    .certSubjectAltNames(rows.stream().map(PortResultView::getCertSubjectAltNames).toList())
+                    .certNotAfters(rows.stream().map(PortResultView::getCertNotAfter).toList())
+                    .build());
+        } else {
+            page.items(rows);
+        }
+        return page.build();
+    }
+
+    /**
+     * Newline-delimited JSON of the job's results, read through a server-side cursor so the
+     * full result set is never held in memory.
+     */
+    public StreamingResponseBody exportPorts(Long jobId, List<PortResult.PortStatus> statuses) {
+        requireJob(jobId);
+        List<PortResult.PortStatus> filter = orAll(statuses);
+        String sql = "SELECT id, host, port, status, service, version, banner, response_time, error_message, "
+                + "tls_protocol, tls_cipher, cert_subject, cert_issuer, cert_subject_alt_names, cert_not_after "
+                + "FROM port_results WHERE scan_job_id = ? AND status IN ("
+                + String.join(",", Collections.nCopies(filter.size(), "?")) + ") ORDER BY id";
+
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                // PostgreSQL only honours the fetch size inside a transaction
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql);
+                    ps.setFetchSize(EXPORT_FETCH_SIZE);
+                    ps.setLong(1, jobId);
+                    for (int i = 0; i < filter.size(); i++) {
+                        ps.setString(i + 2, filter.get(i).name());
+                    }
+                    return ps;
+                }, rs -> {
+                    try {
+                        generator.writeObject(new PortResultView(
+                                rs.getLong("id"),
+                                rs.getString("host"),
+                                rs.getInt("port"),
+                                PortResult.PortStatus.valueOf(rs.getString("status")),
+                                rs.getString("service"),
+                                rs.getString("version"),
+                                rs.getString("banner"),
+                                (Integer) rs.getObject("response_time"),
+                                rs.getString("error_message"),
+                                rs.getString("tls_protocol"),
+                                rs.getString("tls_cipher"),
+                                rs.getString("cert_subject"),
+                                rs.getString("cert_issuer"),
+                                rs.getString("cert_subject_alt_names"),
+                                rs.getObject("cert_not_after", LocalDateTime.class)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+
+                // Compact jobs keep CLOSED / FILTERED ports as bitmaps; expand them one host at a time
+                for (PortBitmap bitmap : portBitmapRepository.findByScanJobIdAndStatusInOrderByIdAsc(jobId, filter)) {
+                    BitSet ports = PortSetCodec.decode(bitmap.getBitmap());
+                    for (int port = ports.nextSetBit(0); port >= 0; port = ports.nextSetBit(port + 1)) {
+                        generator.writeObject(bitmapRow(bitmap, port));
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Appends the ports of the job's bitmaps after the cursor until the page is full. A port from
+     * a bitmap has no row id of its own; its id is -(bitmap id * 65536 + port) - 1, so it is
+     * negative and orders the ports of a bitmap as the bitmap does.
+     */
+    private void expandBitmaps(Long jobId, List<PortResult.PortStatus> filter, long after, int pageSize,
+                               List<PortResultView> rows) {
+        long fromBitmap = 0;
+        int fromPort = 0;
+        if (after < 0) {
+            long position = -after - 1;
+            fromBitmap = position >>> 16;
+            fromPort = (int) (position & 0xFFFF) + 1;
+        }
+        // Every bitmap holds at least one port; one more covers a resumed bitmap with none left
+        List<PortBitmap> bitmaps = portBitmapRepository.findByScanJobIdAndStatusInAndIdGreaterThanEqualOrderByIdAsc(
+                jobId, filter, fromBitmap, PageRequest.of(0, pageSize - rows.size() + 1));
+        for (PortBitmap bitmap : bitmaps) {
+            BitSet ports = PortSetCodec.decode(bitmap.getBitmap());
+            int start = bitmap.getId() == fromBitmap ? fromPort : 0;
+            for (int port = ports.nextSetBit(start); port >= 0; port = ports.nextSetBit(port + 1)) {
+                if (rows.size() == pageSize) {
+                    return;
+                }
+                rows.add(bitmapRow(bitmap, port));
+            }
+        }
+    }
+
+    private static PortResultView bitmapRow(PortBitmap bitmap, int port) {
+        PortResultView row = new PortResultView();
+        row.setId(-(bitmap.getId() * 65536 + port) - 1);
+        row.setHost(bitmap.getHost());
+        row.setPort(port);
+        row.setStatus(bitmap.getStatus());
+        return row;
+    }
+
+    public List<PortSetView> getPortSets(Long jobId, List<PortResult.PortStatus> statuses) {
+        requireJob(jobId);
+        return portBitmapRepository.findByScanJobIdAndStatusInOrderByIdAsc(jobId, orAll(statuses)).stream()
+                .map(bitmap -> PortSetView.builder()
+                        .host(bitmap.getHost())
+                        .status(bitmap.getStatus())
+                        .count(bitmap.getPortCount())
+                        .ports(PortSetCodec.toRanges(PortSetCodec.decode(bitmap.getBitmap())))
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Changes from the baseline found by a diff-mode job, in detection order.
+     */
+    public List<ScanChangeView> getChanges(Long jobId, long after, int limit) {
+        requireJob(jobId);
+        return scanChangeRepository.findPage(jobId, after, PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+
+    /**
+     * Changes found by completed diff-mode jobs since the given time, of one target or all of them.
+     */
+    public List<ScanChangeView> getChangeFeed(String target, LocalDateTime since, long after, int limit) {
+        return scanChangeRepository.findFeed(target, since, after, PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+
+    private void requireJob(Long jobId) {
+        if (!scanJobRepository.existsById(jobId)) {
+            throw new ResourceNotFoundException("Scan job not found: " + jobId);
+        }
+    }
+
+    private List<PortResult.PortStatus> orAll(List<PortResult.PortStatus> statuses) {
+        return statuses == null || statuses.isEmpty() ? Arrays.asList(PortResult.PortStatus.values()) : statuses;
+    }
+}
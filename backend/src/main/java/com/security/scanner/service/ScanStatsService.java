@@ -0,0 +1,155 @@
+package com.security.scanner.service;
+
+import com.security.scanner.model.ScanJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Scan job counters for the dashboard: jobs per status and jobs created per hour, so reading them
+ * costs the same however long the scan history is.
+ * <p>
+ * Job status is changed by JPA saves, bulk updates and plain SQL on every replica, so the counters
+ * are maintained by triggers on scan_jobs, in the transaction that changes the job. The triggers
+ * only append (status, delta) and (hour, delta) rows: updating one shared row per status would
+ * serialize every job transition on it. A count is the sum of its rows, and {@link #compact()}
+ * periodically folds the rows of each key into one. The first instance to start against a
+ * database installs the triggers and counts the existing jobs once; later starts only compare the
+ * version stamped on the trigger function and leave the database alone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanStatsService {
+
+    // Bump when FUNCTION changes, so running replicas replace it on their next start
+    private static final String VERSION = "scan-stats 1";
+
+    private static final String FUNCTION = """
+            CREATE OR REPLACE FUNCTION scan_jobs_stats() RETURNS trigger AS $$
+            BEGIN
+                IF TG_OP = 'INSERT' THEN
+                    INSERT INTO scan_status_deltas (status, delta) VALUES (NEW.status, 1);
+                    INSERT INTO scan_hourly_deltas (bucket, delta)
+                    VALUES (date_trunc('hour', COALESCE(NEW.created_at, localtimestamp)), 1);
+                ELSIF TG_OP = 'DELETE' THEN
+                    INSERT INTO scan_status_deltas (status, delta) VALUES (OLD.status, -1);
+                    IF OLD.created_at IS NOT NULL THEN
+                        INSERT INTO scan_hourly_deltas (bucket, delta) VALUES (date_trunc('hour', OLD.created_at), -1);
+                    END IF;
+                ELSE
+                    INSERT INTO scan_status_deltas (status, delta) VALUES (OLD.status, -1), (NEW.status, 1);
+                END IF;
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql""";
+
+    // Rows committed after the DELETE's snapshot are neither deleted nor summed, so they stay as they are
+    private static final String COMPACT_STATUS =
+            "WITH folded AS (DELETE FROM scan_status_deltas RETURNING status, delta) "
+            + "INSERT INTO scan_status_deltas (status, delta) "
+            + "SELECT status, SUM(delta) FROM folded GROUP BY status HAVING SUM(delta) <> 0";
+
+    private static final String COMPACT_HOURLY =
+            "WITH folded AS (DELETE FROM scan_hourly_deltas RETURNING bucket, delta) "
+            + "INSERT INTO scan_hourly_deltas (bucket, delta) "
+            + "SELECT bucket, SUM(delta) FROM folded GROUP BY bucket HAVING SUM(delta) <> 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void install() {
+        if (isInstalled()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(tx -> {
+            // Replicas starting together install one after the other, the later ones finding it done
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('scan_jobs_stats'))");
+            if (isInstalled()) {
+                return;
+            }
+            jdbcTemplate.execute(FUNCTION);
+            jdbcTemplate.execute("COMMENT ON FUNCTION scan_jobs_stats() IS '" + VERSION + "'");
+            if (hasTriggers()) {
+                log.info("Upgraded scan job counters to {}", VERSION);
+                return;
+            }
+            // CREATE TRIGGER locks out job writes until commit, so the counts below match the triggers
+            jdbcTemplate.execute("CREATE TRIGGER scan_jobs_stats_rows AFTER INSERT OR DELETE ON scan_jobs "
+                                 + "FOR EACH ROW EXECUTE FUNCTION scan_jobs_stats()");
+            jdbcTemplate.execute("CREATE TRIGGER scan_jobs_stats_status AFTER UPDATE OF status ON scan_jobs "
+                                 + "FOR EACH ROW WHEN (OLD.status IS DISTINCT FROM NEW.status) "
+                                 + "EXECUTE FUNCTION scan_jobs_stats()");
+            jdbcTemplate.update("DELETE FROM scan_status_deltas");
+            jdbcTemplate.update("INSERT INTO scan_status_deltas (status, delta) "
+                                + "SELECT status, COUNT(*) FROM scan_jobs GROUP BY status");
+            jdbcTemplate.update("DELETE FROM scan_hourly_deltas");
+            int hours = jdbcTemplate.update("INSERT INTO scan_hourly_deltas (bucket, delta) "
+                                            + "SELECT date_trunc('hour', created_at), COUNT(*) FROM scan_jobs "
+                                            + "WHERE created_at IS NOT NULL GROUP BY 1");
+            log.info("Installed scan job counters - {} hours of history counted", hours);
+        });
+    }
+
+    private boolean isInstalled() {
+        String version = jdbcTemplate.queryForObject(
+                "SELECT obj_description(to_regprocedure('scan_jobs_stats()'), 'pg_proc')", String.class);
+        return VERSION.equals(version) && hasTriggers();
+    }
+
+    private boolean hasTriggers() {
+        Integer triggers = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_trigger WHERE tgrelid = 'scan_jobs'::regclass "
+                + "AND tgname IN ('scan_jobs_stats_rows', 'scan_jobs_stats_status')", Integer.class);
+        return triggers != null && triggers == 2;
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.dashboard.compact-interval:60000}")
+    public void compact() {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.update(COMPACT_STATUS);
+                jdbcTemplate.update(COMPACT_HOURLY);
+            });
+        } catch (Exception e) {
+            log.warn("Failed to compact scan job counters: {}", e.getMessage());
+        }
+    }
+
+    public Map<ScanJob.ScanStatus, Long> countByStatus() {
+        Map<ScanJob.ScanStatus, Long> counts = new EnumMap<>(ScanJob.ScanStatus.class);
+        for (ScanJob.ScanStatus status : ScanJob.ScanStatus.values()) {
+            counts.put(status, 0L);
+        }
+        jdbcTemplate.query("SELECT status, SUM(delta) FROM scan_status_deltas GROUP BY status",
+                rs -> {
+                    counts.put(ScanJob.ScanStatus.valueOf(rs.getString(1)), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    /**
+     * Jobs created since {@code since}: the hourly counters from its hour on, less the jobs of that
+     * hour created before it, which the created_at index counts within at most an hour of rows.
+     */
+    public long countCreatedSince(LocalDateTime since) {
+        Timestamp hour = Timestamp.valueOf(since.truncatedTo(ChronoUnit.HOURS));
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT (SELECT COALESCE(SUM(delta), 0) FROM scan_hourly_deltas WHERE bucket >= ?) "
+                + "- (SELECT COUNT(*) FROM scan_jobs WHERE created_at >= ? AND created_at < ?)",
+                Long.class, hour, hour, Timestamp.valueOf(since));
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,236 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.TargetSpec;
+import com.security.scanner.model.ScanJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The scan_work_units table used as a work queue shared by all replicas. Units are claimed with
+ * {@code FOR UPDATE SKIP LOCKED}, so concurrent pollers never block on or double-claim a unit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanWorkQueueService {
+
+    private static final int INSERT_BATCH = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO scan_work_units (scan_job_id, host_offset, host_count, port_offset, port_count, status, attempts) "
+            + "VALUES (?, ?, ?, ?, ?, 'PENDING', 0)";
+
+    private static final String CLAIM_SQL =
+            "UPDATE scan_work_units SET status = 'CLAIMED', owner = ?, heartbeat_at = ?, attempts = attempts + 1, "
+            + "scanned_ports = 0, open_ports = 0, closed_ports = 0, filtered_ports = 0 "
+            + "WHERE id IN (SELECT u.id FROM scan_work_units u JOIN scan_jobs j ON j.id = u.scan_job_id "
+            + "WHERE u.status = 'PENDING' AND j.status IN ('PENDING', 'RUNNING') "
+            + "ORDER BY CASE WHEN j.priority = 'SCHEDULED' THEN 1 ELSE 0 END, u.id LIMIT ? FOR UPDATE OF u SKIP LOCKED) "
+            + "RETURNING id, scan_job_id, host_offset, host_count, port_offset, port_count, attempts";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScanDiffService scanDiff;
+    private final ScannerConfig config;
+
+    public record WorkUnit(long id, long jobId, long hostOffset, int hostCount,
+                           int portOffset, int portCount, int attempts) {
+    }
+
+    /**
+     * Counts of a unit in flight, or of a job including its units in flight.
+     */
+    public record Counts(int scanned, int open, int closed, int filtered) {
+
+        public int percentOf(Integer totalPorts) {
+            if (totalPorts == null || totalPorts == 0) {
+                return 0;
+            }
+            return (int) Math.min(100, scanned * 100L / totalPorts);
+        }
+    }
+
+    public boolean isEnabled() {
+        return "queue".equalsIgnoreCase(config.getExecution());
+    }
+
+    /**
+     * Splits the job into units of about {@code scanner.work-queue.unit-size} probes. Long port
+     * lists are cut into chunks per host; short ones are kept whole and hosts are grouped instead.
+     * Compact jobs keep each host's ports in one unit, since a host's port bitmaps are written
+     * once, when the host completes.
+     */
+    public int enqueue(ScanJob job, TargetSpec targets, int portCount) {
+        int unitSize = Math.max(1, config.getWorkQueue().getUnitSize());
+        boolean splitPorts = portCount > unitSize && !Boolean.TRUE.equals(job.getCompactResults());
+        int portsPerUnit = splitPorts ? unitSize : portCount;
+        int hostsPerUnit = splitPorts ? 1 : Math.max(1, unitSize / Math.max(1, portCount));
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        int units = 0;
+        for (long host = 0; host < targets.size(); host += hostsPerUnit) {
+            int hosts = (int) Math.min(hostsPerUnit, targets.size() - host);
+            for (int port = 0; port < portCount; port += portsPerUnit) {
+                batch.add(new Object[]{job.getId(), host, hosts, port, Math.min(portsPerUnit, portCount - port)});
+                units++;
+                if (batch.size() == INSERT_BATCH) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+        log.info("Queued scan job {} as {} work units", job.getId(), units);
+        return units;
+    }
+
+    /**
+     * Claims up to {@code limit} pending units of active jobs and marks their jobs RUNNING.
+     */
+    public List<WorkUnit> claim(String owner, int limit) {
+        return transactionTemplate.execute(tx -> {
+            List<WorkUnit> units = jdbcTemplate.query(CLAIM_SQL, (rs, row) -> new WorkUnit(
+                    rs.getLong("id"),
+                    rs.getLong("scan_job_id"),
+                    rs.getLong("host_offset"),
+                    rs.getInt("host_count"),
+                    rs.getInt("port_offset"),
+                    rs.getInt("port_count"),
+                    rs.getInt("attempts")),
+                    owner, now(), limit);
+            units.stream().map(WorkUnit::jobId).distinct().forEach(jobId -> jdbcTemplate.update(
+                    "UPDATE scan_jobs SET status = 'RUNNING', owner = ?, heartbeat_at = ? "
+                    + "WHERE id = ? AND status = 'PENDING'", owner, now(), jobId));
+            return units;
+        });
+    }
+
+    /**
+     * Refreshes the heartbeat of this owner's claimed units and returns the ids still worth running:
+     * units of cancelled or deleted jobs and units reassigned to someone else are left out.
+     */
+    public List<Long> heartbeat(String owner) {
+        return jdbcTemplate.queryForList(
+                "UPDATE scan_work_units u SET heartbeat_at = ? FROM scan_jobs j "
+                + "WHERE j.id = u.scan_job_id AND u.owner = ? AND u.status = 'CLAIMED' "
+                + "AND j.status IN ('PENDING', 'RUNNING') RETURNING u.id",
+                Long.class, now(), owner);
+    }
+
+    /**
+     * Records how far this owner's claimed units have got, so status polls on any replica can
+     * show the progress of their jobs before the units complete.
+     */
+    public void updateProgress(String owner, Map<Long, Counts> units) {
+        List<Object[]> batch = new ArrayList<>(units.size());
+        units.forEach((id, counts) -> batch.add(new Object[]{
+                counts.scanned(), counts.open(), counts.closed(), counts.filtered(), id, owner}));
+        jdbcTemplate.batchUpdate(
+                "UPDATE scan_work_units SET scanned_ports = ?, open_ports = ?, closed_ports = ?, filtered_ports = ? "
+                + "WHERE id = ? AND owner = ? AND status = 'CLAIMED'", batch);
+    }
+
+    /**
+     * The job's counts including its claimed units' progress so far, read in one snapshot so a
+     * unit completing meanwhile is counted once; empty if the job does not exist.
+     */
+    public Optional<Counts> progressOf(Long jobId) {
+        List<Counts> counts = jdbcTemplate.query(
+                "SELECT j.scanned_ports + COALESCE(SUM(u.scanned_ports), 0), j.open_ports + COALESCE(SUM(u.open_ports), 0), "
+                + "j.closed_ports + COALESCE(SUM(u.closed_ports), 0), j.filtered_ports + COALESCE(SUM(u.filtered_ports), 0) "
+                + "FROM scan_jobs j LEFT JOIN scan_work_units u ON u.scan_job_id = j.id AND u.status = 'CLAIMED' "
+                + "WHERE j.id = ? GROUP BY j.id",
+                (rs, row) -> new Counts(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)), jobId);
+        return counts.stream().findFirst();
+    }
+
+    /**
+     * Returns units whose owner stopped heartbeating to the queue.
+     */
+    public int requeueStale() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(Duration.ofMillis(config.getWorkQueue().getStaleAfter()));
+        return jdbcTemplate.update(
+                "UPDATE scan_work_units SET status = 'PENDING', owner = NULL, heartbeat_at = NULL "
+                + "WHERE status = 'CLAIMED' AND heartbeat_at < ?", Timestamp.valueOf(staleBefore));
+    }
+
+    /**
+     * Marks the unit done and adds its counts to the job, completing the job with its last unit.
+     * Returns false if the unit is no longer ours, in which case nothing is counted.
+     */
+    public boolean complete(WorkUnit unit, String owner, int scanned, int open, int closed, int filtered) {
+        Boolean done = transactionTemplate.execute(tx -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE scan_work_units SET status = 'DONE', heartbeat_at = ?, scanned_ports = ?, open_ports = ?, "
+                    + "closed_ports = ?, filtered_ports = ? WHERE id = ? AND owner = ? AND status = 'CLAIMED'",
+                    now(), scanned, open, closed, filtered, unit.id(), owner);
+            if (updated == 0) {
+                return false;
+            }
+            // Locks the job row, so of two units finishing together the later one sees the other as DONE
+            jdbcTemplate.update(
+                    "UPDATE scan_jobs SET scanned_ports = scanned_ports + ?, open_ports = open_ports + ?, "
+                    + "closed_ports = closed_ports + ?, filtered_ports = filtered_ports + ?, "
+                    + "progress = LEAST(100, (scanned_ports + ?)::bigint * 100 / GREATEST(total_ports, 1)), heartbeat_at = ? "
+                    + "WHERE id = ? AND status = 'RUNNING'",
+                    scanned, open, closed, filtered, scanned, now(), unit.jobId());
+            int finished = jdbcTemplate.update(
+                    "UPDATE scan_jobs SET status = 'COMPLETED', progress = 100, completed_at = ? "
+                    + "WHERE id = ? AND status = 'RUNNING' AND NOT EXISTS "
+                    + "(SELECT 1 FROM scan_work_units WHERE scan_job_id = ? AND status <> 'DONE')",
+                    now(), unit.jobId(), unit.jobId());
+            if (finished > 0) {
+                log.info("Distributed scan job {} completed", unit.jobId());
+                scanDiff.complete(unit.jobId());
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(done);
+    }
+
+    /**
+     * Hands an unfinished unit back. After {@code scanner.work-queue.max-attempts} failures the
+     * unit, and with it the job, is marked FAILED.
+     */
+    public void release(WorkUnit unit, String owner, String error) {
+        boolean giveUp = error != null && unit.attempts() >= config.getWorkQueue().getMaxAttempts();
+        transactionTemplate.executeWithoutResult(tx -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE scan_work_units SET status = ?, owner = NULL, heartbeat_at = NULL, error_message = ? "
+                    + "WHERE id = ? AND owner = ? AND status = 'CLAIMED'",
+                    giveUp ? "FAILED" : "PENDING", error, unit.id(), owner);
+            if (updated > 0 && giveUp) {
+                jdbcTemplate.update(
+                        "UPDATE scan_jobs SET status = 'FAILED', error_message = ?, completed_at = ? "
+                        + "WHERE id = ? AND status IN ('PENDING', 'RUNNING')",
+                        error, now(), unit.jobId());
+            }
+        });
+    }
+
+    /**
+     * Drops the units nobody has started, e.g. once the job is cancelled.
+     */
+    public int discard(Long jobId) {
+        return jdbcTemplate.update(
+                "DELETE FROM scan_work_units WHERE scan_job_id = ? AND status = 'PENDING'", jobId);
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
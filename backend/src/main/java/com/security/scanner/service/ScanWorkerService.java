@@ -0,0 +1,174 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.PortList;
+import com.security.scanner.engine.TargetSpec;
+import com.security.scanner.model.ScanJob;
+import com.security.scanner.repository.ScanJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs work units of distributed scans ({@code scanner.execution=queue}). Every replica polls the
+ * queue for as many units as it has free slots, heartbeats the units it holds and records their
+ * progress, and puts units of replicas that went silent back into the queue. Results of the units
+ * running here are streamed to this instance's SSE subscribers of their job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanWorkerService {
+
+    private final ScanWorkQueueService workQueue;
+    private final ScanJobRepository scanJobRepository;
+    private final ScanJobService scanJobService;
+    private final PortScannerService portScanner;
+    private final ResultPersistenceService resultPersistence;
+    private final ScanProgressService progressService;
+    private final ScanEventService scanEvents;
+    private final ScanDiffService scanDiff;
+    private final ScannerConfig config;
+
+    private final Map<Long, RunningUnit> running = new ConcurrentHashMap<>();
+    private Semaphore slots;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void init() {
+        slots = new Semaphore(Math.max(1, config.getWorkQueue().getWorkerSlots()));
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.work-queue.poll-interval:1000}")
+    public void poll() {
+        int free = slots.availablePermits();
+        if (!workQueue.isEnabled() || stopping || free == 0) {
+            return;
+        }
+        try {
+            for (ScanWorkQueueService.WorkUnit unit : workQueue.claim(config.getInstanceId(), free)) {
+                slots.acquireUninterruptibly();
+                Thread.ofVirtual().name("scan-unit-" + unit.id()).start(() -> {
+                    try {
+                        run(unit);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.warn("Failed to poll the scan work queue: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.work-queue.heartbeat-interval:10000}")
+    public void heartbeat() {
+        if (!workQueue.isEnabled()) {
+            return;
+        }
+        try {
+            if (!running.isEmpty()) {
+                Set<Long> alive = new HashSet<>(workQueue.heartbeat(config.getInstanceId()));
+                running.forEach((id, unit) -> {
+                    if (!alive.contains(id) && !unit.progress.getControl().isCancelled()) {
+                        log.info("Work unit {} of job {} was cancelled or reassigned, stopping it", id, unit.unit.jobId());
+                        unit.progress.getControl().cancel();
+                    }
+                });
+            }
+            int requeued = workQueue.requeueStale();
+            if (requeued > 0) {
+                log.warn("Requeued {} work units of unresponsive workers", requeued);
+            }
+        } catch (Exception e) {
+            log.warn("Work queue heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scanner.progress-flush-interval:2000}")
+    public void flushProgress() {
+        if (running.isEmpty()) {
+            return;
+        }
+        Map<Long, ScanWorkQueueService.Counts> counts = new HashMap<>();
+        running.forEach((id, unit) -> counts.put(id, new ScanWorkQueueService.Counts(
+                unit.progress.getScanned(), unit.progress.getOpen(), unit.progress.getClosed(), unit.progress.getFiltered())));
+        try {
+            workQueue.updateProgress(config.getInstanceId(), counts);
+        } catch (Exception e) {
+            log.warn("Failed to flush work unit progress: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gives the units held here back to the queue so other replicas resume them right away.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        running.values().forEach(unit -> {
+            unit.progress.getControl().cancel();
+            try {
+                workQueue.release(unit.unit, config.getInstanceId(), null);
+            } catch (Exception e) {
+                log.warn("Failed to release work unit {}: {}", unit.unit.id(), e.getMessage());
+            }
+        });
+    }
+
+    private void run(ScanWorkQueueService.WorkUnit unit) {
+        String owner = config.getInstanceId();
+        try {
+            ScanJob job = scanJobRepository.findById(unit.jobId()).orElse(null);
+            if (job == null) {
+                return;
+            }
+            TargetSpec hosts = TargetSpec.parse(job.getTarget()).slice(unit.hostOffset(), unit.hostCount());
+            PortList ports = scanJobService.portsOf(job).slice(unit.portOffset(), unit.portCount());
+
+            ScanProgress progress = progressService.startUnit(job, unit.id(), unit.hostCount() * unit.portCount());
+            running.put(unit.id(), new RunningUnit(unit, progress));
+            log.debug("Running work unit {} of job {} - {} hosts x {} ports",
+                      unit.id(), unit.jobId(), hosts.size(), ports.size());
+
+            try (ResultWriter writer = resultPersistence.openWriter(job.getId(), Boolean.TRUE.equals(job.getCompactResults()))) {
+                portScanner.scanTargets(hosts, ports, ScanOptions.of(job, config),
+                                        ResultSink.forUnit(job, writer, progress, scanDiff.open(job), scanEvents),
+                                        progress.getControl());
+            }
+
+            if (progress.getControl().isCancelled()) {
+                workQueue.release(unit, owner, null);
+            } else if (!workQueue.complete(unit, owner, progress.getScanned(), progress.getOpen(),
+                                           progress.getClosed(), progress.getFiltered())) {
+                log.info("Work unit {} was reassigned before it finished; its results are kept", unit.id());
+            }
+        } catch (Exception e) {
+            if (stopping) {
+                return;
+            }
+            log.error("Work unit {} of job {} failed: {}", unit.id(), unit.jobId(), e.getMessage(), e);
+            try {
+                workQueue.release(unit, owner, e.getMessage());
+            } catch (Exception releaseError) {
+                log.warn("Failed to release work unit {}: {}", unit.id(), releaseError.getMessage());
+            }
+        } finally {
+            running.remove(unit.id());
+            progressService.finishUnit(unit.id());
+        }
+    }
+
+    private record RunningUnit(ScanWorkQueueService.WorkUnit unit, ScanProgress progress) {
+    }
+}
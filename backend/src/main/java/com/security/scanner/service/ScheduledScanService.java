@@ -1,19 +1,39 @@
 package com.security.scanner.service;
 
+import com.security.scanner.config.ScannerConfig;
 import com.security.scanner.dto.ScheduledScanRequest;
 import com.security.scanner.dto.ScanRequest;
 import com.security.scanner.exception.ResourceNotFoundException;
+import com.security.scanner.model.ScanJob;
 import com.security.scanner.model.ScheduledScan;
 import com.security.scanner.repository.ScheduledScanRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Scheduled scans fire from a single one-shot timer armed for the earliest {@code nextRunAt}.
+ * When it goes off, only the due rows are loaded (through the enabled/next_run_at index), fired,
+ * and moved to their next fire time; then the timer is re-armed. Saving a schedule re-arms the
+ * timer if it is due sooner, and a periodic resync picks up schedules saved by other replicas.
+ * Every replica runs the timer; leases on the due rows make sure each occurrence fires once.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,18 +41,31 @@ public class ScheduledScanService {
     
     private final ScheduledScanRepository scheduledScanRepository;
     private final ScanJobService scanJobService;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ScannerConfig config;
+    
+    private ScheduledFuture<?> timer;
+    private LocalDateTime timerDueAt;
     
     @Transactional
     public ScheduledScan createScheduledScan(ScheduledScanRequest request) {
+        validate(request);
         ScheduledScan scan = ScheduledScan.builder()
                 .name(request.getName())
                 .target(request.getTarget())
                 .portRange(request.getPortRange())
+                .protocol(protocolOf(request))
                 .cronExpression(request.getCronExpression())
+                .diffMode(Boolean.TRUE.equals(request.getDiffMode()))
+                .verifyOpen(Boolean.TRUE.equals(request.getVerifyOpen()))
                 .enabled(true)
+                .nextRunAt(CronSchedule.parse(request.getCronExpression()).next(LocalDateTime.now()))
                 .build();
         
-        return scheduledScanRepository.save(scan);
+        scan = scheduledScanRepository.save(scan);
+        armAfterCommit(scan.getNextRunAt());
+        return scan;
     }
     
     public List<ScheduledScan> getAllScheduledScans() {
@@ -46,19 +79,53 @@ public class ScheduledScanService {
     
     @Transactional
     public ScheduledScan updateScheduledScan(Long id, ScheduledScanRequest request) {
+        validate(request);
         ScheduledScan scan = getScheduledScan(id);
         scan.setName(request.getName());
         scan.setTarget(request.getTarget());
         scan.setPortRange(request.getPortRange());
+        scan.setProtocol(protocolOf(request));
         scan.setCronExpression(request.getCronExpression());
-        return scheduledScanRepository.save(scan);
+        scan.setDiffMode(Boolean.TRUE.equals(request.getDiffMode()));
+        scan.setVerifyOpen(Boolean.TRUE.equals(request.getVerifyOpen()));
+        if (scan.getEnabled()) {
+            scan.setNextRunAt(CronSchedule.parse(request.getCronExpression()).next(LocalDateTime.now()));
+        } else {
+            // Still validated, so the schedule can be resumed later
+            CronSchedule.parse(request.getCronExpression());
+        }
+        releaseLease(scan);
+        scan = scheduledScanRepository.save(scan);
+        armAfterCommit(scan.getNextRunAt());
+        return scan;
+    }
+    
+    /**
+     * Rejects options every run would fail on, so they are not found out only when the schedule fires.
+     */
+    private static void validate(ScheduledScanRequest request) {
+        if (Boolean.TRUE.equals(request.getDiffMode()) && Boolean.TRUE.equals(request.getVerifyOpen())) {
+            throw new IllegalArgumentException("diffMode and verifyOpen cannot be combined");
+        }
+    }
+    
+    private static ScanJob.Protocol protocolOf(ScheduledScanRequest request) {
+        return request.getProtocol() != null
+                ? ScanJob.Protocol.valueOf(request.getProtocol().toUpperCase())
+                : ScanJob.Protocol.TCP;
     }
     
     @Transactional
     public void toggleScheduledScan(Long id) {
         ScheduledScan scan = getScheduledScan(id);
         scan.setEnabled(!scan.getEnabled());
+        // Resuming starts from now; runs missed while paused are not caught up
+        scan.setNextRunAt(scan.getEnabled()
+                ? CronSchedule.parse(scan.getCronExpression()).next(LocalDateTime.now())
+                : null);
+        releaseLease(scan);
         scheduledScanRepository.save(scan);
+        armAfterCommit(scan.getNextRunAt());
     }
     
     @Transactional
@@ -69,37 +136,167 @@ public class ScheduledScanService {
         scheduledScanRepository.deleteById(id);
     }
     
-    @Scheduled(fixedRate = 60000) // Check every minute
-    @Transactional
+    /**
+     * Fills in {@code nextRunAt} for schedules created before it was maintained, then arms the timer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ScheduledScan> missing;
+        do {
+            missing = scheduledScanRepository.findByEnabledTrueAndNextRunAtIsNull(
+                    PageRequest.of(0, config.getSchedule().getDispatchBatch()));
+            for (ScheduledScan scan : missing) {
+                advance(scan, now);
+                scheduledScanRepository.save(scan);
+            }
+        } while (!missing.isEmpty());
+        resync();
+    }
+    
+    @Scheduled(fixedDelayString = "${scanner.schedule.resync-interval:60000}",
+               initialDelayString = "${scanner.schedule.resync-interval:60000}")
+    public void resync() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime nextRun = scheduledScanRepository.findNextRunAt(now);
+            // Due schedules leased by a replica that died become claimable when the lease runs out
+            LocalDateTime leaseExpiry = scheduledScanRepository.findNextLeaseExpiry(now);
+            arm(nextRun == null || (leaseExpiry != null && leaseExpiry.isBefore(nextRun)) ? leaseExpiry : nextRun);
+        } catch (Exception e) {
+            log.warn("Failed to read the next scheduled scan time: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Fires every schedule that is due, a batch at a time, and re-arms the timer for the next one.
+     * Each batch is leased to this replica under row locks taken with SKIP LOCKED, so replicas
+     * waking up together split the due schedules between them and every occurrence fires once.
+     */
     public void executeScheduledScans() {
-        List<ScheduledScan> activeScans = scheduledScanRepository.findByEnabledTrue();
-        
-        for (ScheduledScan scan : activeScans) {
-            if (shouldRun(scan)) {
+        synchronized (this) {
+            timer = null;
+        }
+        int batch = config.getSchedule().getDispatchBatch();
+        try {
+            List<ScheduledScan> claimed;
+            do {
+                claimed = claimDue(batch);
+                claimed.forEach(this::fire);
+            } while (claimed.size() == batch);
+        } catch (Exception e) {
+            log.error("Scheduled scan dispatch failed: {}", e.getMessage(), e);
+        }
+        resync();
+    }
+    
+    private List<ScheduledScan> claimDue(int batch) {
+        return transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<ScheduledScan> due = scheduledScanRepository.lockDue(now, batch);
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(config.getSchedule().getLease()));
+            for (ScheduledScan scan : due) {
+                scan.setLeaseOwner(config.getInstanceId());
+                scan.setLeaseUntil(leaseUntil);
+            }
+            return scheduledScanRepository.saveAll(due);
+        });
+    }
+    
+    private void fire(ScheduledScan claimed) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                ScheduledScan scan = lockIfStillOurs(claimed);
+                if (scan == null) {
+                    return;
+                }
                 log.info("Executing scheduled scan: {}", scan.getName());
                 
                 ScanRequest request = new ScanRequest();
                 request.setTarget(scan.getTarget());
                 request.setPortRange(scan.getPortRange());
+                request.setProtocol(scan.getProtocol() != null ? scan.getProtocol().name() : null);
+                request.setDiffMode(scan.getDiffMode());
+                request.setVerifyOpen(scan.getVerifyOpen());
                 
-                scanJobService.createScanJob(request);
+                scanJobService.createScanJob(request, ScanJob.Priority.SCHEDULED);
                 
-                scan.setLastRunAt(LocalDateTime.now());
-                scheduledScanRepository.save(scan);
+                LocalDateTime now = LocalDateTime.now();
+                scan.setLastRunAt(now);
+                advance(scan, now);
+                releaseLease(scan);
+            });
+        } catch (Exception e) {
+            log.error("Scheduled scan {} failed to start: {}", claimed.getName(), e.getMessage());
+            // Skip this occurrence rather than retrying it on every dispatch
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    ScheduledScan scan = lockIfStillOurs(claimed);
+                    if (scan != null) {
+                        advance(scan, LocalDateTime.now());
+                        releaseLease(scan);
+                    }
+                });
+            } catch (Exception saveError) {
+                // The lease runs out and the occurrence is retried
+                log.warn("Failed to advance scheduled scan {}: {}", claimed.getName(), saveError.getMessage());
             }
         }
     }
     
-    private boolean shouldRun(ScheduledScan scan) {
-        // Simplified cron check - in production, use a proper cron library
-        if (scan.getLastRunAt() == null) {
-            return true;
+    /**
+     * The schedule, row-locked, unless it was edited, paused or deleted since it was claimed, or the
+     * lease ran out and another replica took it over.
+     */
+    private ScheduledScan lockIfStillOurs(ScheduledScan claimed) {
+        return scheduledScanRepository.findForUpdate(claimed.getId())
+                .filter(scan -> scan.getEnabled()
+                        && config.getInstanceId().equals(scan.getLeaseOwner())
+                        && claimed.getNextRunAt().equals(scan.getNextRunAt()))
+                .orElse(null);
+    }
+    
+    private void releaseLease(ScheduledScan scan) {
+        scan.setLeaseOwner(null);
+        scan.setLeaseUntil(null);
+    }
+    
+    private void advance(ScheduledScan scan, LocalDateTime now) {
+        try {
+            scan.setNextRunAt(CronSchedule.parse(scan.getCronExpression()).next(now));
+        } catch (IllegalArgumentException e) {
+            log.warn("Disabling scheduled scan {}: {}", scan.getName(), e.getMessage());
+            scan.setEnabled(false);
+            scan.setNextRunAt(null);
         }
-        
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lastRun = scan.getLastRunAt();
-        
-        // Simple hourly check for demo
-        return now.isAfter(lastRun.plusHours(1));
+    }
+    
+    private synchronized void arm(LocalDateTime dueAt) {
+        if (dueAt == null) {
+            return;
+        }
+        if (timer != null && !timer.isDone()) {
+            if (!dueAt.isBefore(timerDueAt)) {
+                return;
+            }
+            timer.cancel(false);
+        }
+        timerDueAt = dueAt;
+        long jitter = ThreadLocalRandom.current().nextLong(config.getSchedule().getJitter() + 1);
+        timer = taskScheduler.schedule(this::executeScheduledScans,
+                                       dueAt.atZone(ZoneId.systemDefault()).toInstant().plusMillis(jitter));
+    }
+    
+    private void armAfterCommit(LocalDateTime dueAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            arm(dueAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                arm(dueAt);
+            }
+        });
     }
 }
@@ -0,0 +1,75 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.Banner;
+import com.security.scanner.engine.FingerprintDatabase;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Names the service behind a port from its banner, using the fingerprint database at
+ * {@code scanner.fingerprints}. A malformed file fails startup rather than silently
+ * reporting everything as "Unknown".
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ServiceFingerprinter {
+    
+    public static final String TCP = "tcp";
+    public static final String UDP = "udp";
+    // Signatures of what services say inside an implicit TLS session
+    public static final String TLS = "tls";
+    
+    private final ScannerConfig config;
+    private final ResourceLoader resourceLoader;
+    
+    private FingerprintDatabase database;
+    
+    @PostConstruct
+    public void load() {
+        Resource resource = resourceLoader.getResource(config.getFingerprints());
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            database = FingerprintDatabase.parse(reader, resource.getDescription());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read service fingerprints from " + config.getFingerprints(), e);
+        }
+        log.info("Loaded {} service signatures from {}", database.size(), config.getFingerprints());
+    }
+    
+    public FingerprintDatabase.Match identify(String protocol, int port, byte[] banner) {
+        return database.identify(protocol, port, banner);
+    }
+    
+    /**
+     * Identifies a TCP service; what was said inside TLS is matched against the tls signatures
+     * first, then the plain tcp ones, and only then falls back to the port's tls default.
+     */
+    public FingerprintDatabase.Match identify(int port, Banner banner) {
+        if (!banner.isEncrypted()) {
+            return database.identify(TCP, port, banner.data());
+        }
+        return database.match(TLS, port, banner.data())
+                .or(() -> database.match(TCP, port, banner.data()))
+                .orElseGet(() -> {
+                    String service = database.defaultService(TLS, port);
+                    return new FingerprintDatabase.Match(FingerprintDatabase.UNKNOWN.equals(service)
+                            ? database.defaultService(TCP, port)
+                            : service, null);
+                });
+    }
+    
+    public String defaultService(String protocol, int port) {
+        return database.defaultService(protocol, port);
+    }
+}
@@ -0,0 +1,76 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AhoCorasickTest {
+
+    @Test
+    void overlappingPatternsAreAllFound() {
+        assertThat(hits("ushers", "he", "she", "his", "hers")).containsExactly("she@4", "he@4", "hers@6");
+    }
+
+    @Test
+    void outputsAreFollowedAlongTheFailureChain() {
+        // "bab" ends in "ab", which is reached only through the failure links
+        assertThat(hits("bab", "a", "ab", "bab")).containsExactly("a@2", "bab@3", "ab@3");
+    }
+
+    @Test
+    void mismatchFallsBackWithoutLosingAPrefix() {
+        assertThat(hits("abce", "abcd", "bce")).containsExactly("bce@4");
+        assertThat(hits("aabcd", "abcd", "bce")).containsExactly("abcd@5");
+    }
+
+    @Test
+    void repeatedOccurrencesAreEachReported() {
+        assertThat(hits("aaaa", "aa")).containsExactly("aa@2", "aa@3", "aa@4");
+    }
+
+    @Test
+    void asciiLettersAreFoldedBothWays() {
+        assertThat(hits("http/1.1", "HTTP/", "ssh-")).containsExactly("HTTP/@5");
+        assertThat(hits("SSH-2.0", "HTTP/", "ssh-")).containsExactly("ssh-@4");
+        assertThat(hits("hTtP/", "HTTP/", "ssh-")).containsExactly("HTTP/@5");
+    }
+
+    @Test
+    void nonAsciiBytesAreNotFolded() {
+        AhoCorasick.Builder builder = AhoCorasick.builder();
+        builder.add(new byte[]{(byte) 0xC1, 0x00});
+        AhoCorasick automaton = builder.build();
+
+        List<Integer> ends = new ArrayList<>();
+        automaton.search(new byte[]{(byte) 0xE1, 0x00, (byte) 0xC1, 0x00}, (pattern, end) -> ends.add(end));
+        assertThat(ends).containsExactly(4);
+    }
+
+    @Test
+    void samePatternAddedTwiceReportsBothIndexes() {
+        assertThat(hits("vsftpd", "ftp", "FTP")).containsExactly("ftp@5", "FTP@5");
+    }
+
+    @Test
+    void emptyPatternIsRejected() {
+        assertThatThrownBy(() -> AhoCorasick.builder().add(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Every occurrence as "<pattern>@<end>", in the order the automaton reports them
+    private static List<String> hits(String text, String... patterns) {
+        AhoCorasick.Builder builder = AhoCorasick.builder();
+        for (int i = 0; i < patterns.length; i++) {
+            assertThat(builder.add(patterns[i].getBytes(StandardCharsets.ISO_8859_1))).isEqualTo(i);
+        }
+        List<String> hits = new ArrayList<>();
+        builder.build().search(text.getBytes(StandardCharsets.ISO_8859_1),
+                (pattern, end) -> hits.add(patterns[pattern] + "@" + end));
+        return hits;
+    }
+}
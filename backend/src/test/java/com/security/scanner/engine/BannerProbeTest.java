@@ -0,0 +1,114 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BannerProbeTest {
+
+    @Test
+    void lineFramingWaitsForTheLineFeed() {
+        BannerProbe ssh = BannerProbe.forPort(22);
+
+        assertThat(ssh.isComplete(read(""))).isFalse();
+        assertThat(ssh.isComplete(read("SSH-2.0-Open"))).isFalse();
+        assertThat(ssh.isComplete(read("SSH-2.0-OpenSSH_9.6\r"))).isFalse();
+        assertThat(ssh.isComplete(read("SSH-2.0-OpenSSH_9.6\r\n"))).isTrue();
+    }
+
+    @Test
+    void httpFramingWaitsForTheBlankLine() {
+        BannerProbe http = BannerProbe.forPort(8080);
+
+        assertThat(http.isComplete(read("HTTP/1.0 200 OK\r\n"))).isFalse();
+        assertThat(http.isComplete(read("HTTP/1.0 200 OK\r\nServer: nginx\r\n"))).isFalse();
+        assertThat(http.isComplete(read("HTTP/1.0 200 OK\r\nServer: nginx\r\n\r"))).isFalse();
+        assertThat(http.isComplete(read("HTTP/1.0 200 OK\r\nServer: nginx\r\n\r\n"))).isTrue();
+        assertThat(http.isComplete(read("HTTP/1.0 200 OK\nServer: nginx\n\n"))).isTrue();
+    }
+
+    @Test
+    void mysqlFramingWaitsForTheWholePacket() {
+        BannerProbe mysql = BannerProbe.forPort(3306);
+        byte[] packet = new byte[4 + 74];
+        packet[0] = 74;
+        packet[4] = 0x0a;
+
+        assertThat(mysql.isComplete(read(packet, 0))).isFalse();
+        assertThat(mysql.isComplete(read(packet, 3))).isFalse();
+        assertThat(mysql.isComplete(read(packet, 4))).isFalse();
+        assertThat(mysql.isComplete(read(packet, 77))).isFalse();
+        assertThat(mysql.isComplete(read(packet, 78))).isTrue();
+    }
+
+    @Test
+    void mysqlLengthIsThreeBytesLittleEndian() {
+        BannerProbe mysql = BannerProbe.forPort(3306);
+        byte[] header = {0x00, 0x01, 0x01, 0x00};
+        int payload = 0x010100;
+
+        byte[] data = new byte[4 + payload];
+        System.arraycopy(header, 0, data, 0, 4);
+        assertThat(mysql.isComplete(read(data, 4 + payload - 1))).isFalse();
+        assertThat(mysql.isComplete(read(data, 4 + payload))).isTrue();
+    }
+
+    @Test
+    void singleByteFramingCompletesOnTheFirstByte() {
+        BannerProbe postgres = BannerProbe.forPort(5432);
+
+        assertThat(postgres.isComplete(read(""))).isFalse();
+        assertThat(postgres.isComplete(read("N"))).isTrue();
+    }
+
+    @Test
+    void unknownProtocolsAreNeverComplete() {
+        BannerProbe unknown = BannerProbe.forPort(12345);
+
+        assertThat(unknown.framing()).isEqualTo(BannerProbe.Framing.IDLE);
+        assertThat(unknown.isComplete(read("hello\r\n\r\n"))).isFalse();
+    }
+
+    @Test
+    void onlyBytesUpToTheLimitCount() {
+        BannerProbe ssh = BannerProbe.forPort(22);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put("SSH-2.0-x\r\n".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(3);
+
+        buffer.limit(9);
+        assertThat(ssh.isComplete(buffer)).isFalse();
+        buffer.limit(11);
+        assertThat(ssh.isComplete(buffer)).isTrue();
+        assertThat(buffer.position()).isEqualTo(3);
+    }
+
+    @Test
+    void plaintextDropsOnlyTheTls() {
+        BannerProbe https = BannerProbe.forPort(443);
+        BannerProbe plain = https.plaintext();
+
+        assertThat(https.tls()).isEqualTo(BannerProbe.Tls.IMPLICIT);
+        assertThat(plain.tls()).isEqualTo(BannerProbe.Tls.NONE);
+        assertThat(plain.request()).isEqualTo(https.request());
+        assertThat(plain.framing()).isEqualTo(BannerProbe.Framing.HTTP_HEADERS);
+        assertThat(BannerProbe.forPort(22).plaintext().tls()).isEqualTo(BannerProbe.Tls.NONE);
+    }
+
+    // Bytes read so far, as the reader hands them over: from index 0 up to the limit
+    private static ByteBuffer read(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return read(bytes, bytes.length);
+    }
+
+    private static ByteBuffer read(byte[] data, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + 16);
+        buffer.put(data);
+        buffer.flip();
+        buffer.limit(length);
+        return buffer;
+    }
+}
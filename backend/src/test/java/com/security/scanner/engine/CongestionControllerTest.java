@@ -0,0 +1,89 @@
+package com.security.scanner.engine;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.model.PortResult;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CongestionControllerTest {
+
+    private static final ProbeResult ANSWERED = ProbeResult.open(80, 5);
+    private static final ProbeResult TIMED_OUT = new ProbeResult(80, PortResult.PortStatus.FILTERED, 0, null);
+
+    @Test
+    void windowIsClampedToTheConfiguredBounds() {
+        assertThat(controller(16, 2, 64).getWindow()).isEqualTo(16);
+        assertThat(controller(1000, 2, 64).getWindow()).isEqualTo(64);
+        assertThat(controller(1, 8, 64).getWindow()).isEqualTo(8);
+        assertThat(controller(32, 100, 16).getWindow()).isEqualTo(16);
+    }
+
+    @Test
+    void slowStartGrowsOnePerAnswerUpToTheMaximum() throws InterruptedException {
+        CongestionController congestion = controller(4, 2, 64);
+
+        feed(congestion, 10, ANSWERED);
+        assertThat(congestion.getWindow()).isEqualTo(14);
+
+        feed(congestion, 500, ANSWERED);
+        assertThat(congestion.getWindow()).isEqualTo(64);
+    }
+
+    @Test
+    void timeoutSpikesHalveTheWindowDownToTheMinimum() throws InterruptedException {
+        CongestionController congestion = controller(32, 8, 64);
+
+        feed(congestion, 32, TIMED_OUT);
+        assertThat(congestion.getWindow()).isEqualTo(16);
+
+        feed(congestion, 16, TIMED_OUT);
+        assertThat(congestion.getWindow()).isEqualTo(8);
+
+        feed(congestion, 8, TIMED_OUT);
+        assertThat(congestion.getWindow()).isEqualTo(8);
+    }
+
+    @Test
+    void afterACutTheWindowGrowsAboutOnePerRound() throws InterruptedException {
+        CongestionController congestion = controller(16, 2, 64);
+        feed(congestion, 16, TIMED_OUT);
+        assertThat(congestion.getWindow()).isEqualTo(8);
+
+        // Congestion avoidance: 1/window per answer, so a round of 8 answers adds just under one
+        feed(congestion, 8, ANSWERED);
+        assertThat(congestion.getWindow()).isEqualTo(8);
+        feed(congestion, 2, ANSWERED);
+        assertThat(congestion.getWindow()).isEqualTo(9);
+
+        feed(congestion, 100, ANSWERED);
+        assertThat(congestion.getWindow()).isBetween(12, 20);
+    }
+
+    @Test
+    void timeoutsBelowTheThresholdKeepTheWindow() throws InterruptedException {
+        CongestionController congestion = controller(64, 2, 64);
+
+        for (int round = 0; round < 10; round++) {
+            feed(congestion, 16, TIMED_OUT);
+            feed(congestion, 48, ANSWERED);
+        }
+        assertThat(congestion.getWindow()).isEqualTo(64);
+    }
+
+    private static CongestionController controller(int initialWindow, int minWindow, int maxConcurrentPorts) {
+        ScannerConfig config = new ScannerConfig();
+        config.setMaxConcurrentPorts(maxConcurrentPorts);
+        config.setRateLimitDelay(2);
+        config.getCongestion().setInitialWindow(initialWindow);
+        config.getCongestion().setMinWindow(minWindow);
+        return new CongestionController(config);
+    }
+
+    private static void feed(CongestionController congestion, int probes, ProbeResult result) throws InterruptedException {
+        for (int i = 0; i < probes; i++) {
+            congestion.acquire();
+            congestion.release(result);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FingerprintDatabaseTest {
+
+    @Test
+    void defaultServicesComeFromPortLines() throws IOException {
+        FingerprintDatabase db = parse(
+                "port tcp 22 SSH",
+                "port tcp 8000-8002,8080 HTTP-Alt",
+                "port udp 53 DNS");
+
+        assertThat(db.defaultService("tcp", 22)).isEqualTo("SSH");
+        assertThat(db.defaultService("tcp", 8001)).isEqualTo("HTTP-Alt");
+        assertThat(db.defaultService("tcp", 8080)).isEqualTo("HTTP-Alt");
+        assertThat(db.defaultService("tcp", 53)).isEqualTo(FingerprintDatabase.UNKNOWN);
+        assertThat(db.defaultService("udp", 53)).isEqualTo("DNS");
+        assertThat(db.identify("tcp", 22, new byte[0])).isEqualTo(new FingerprintDatabase.Match("SSH", null));
+    }
+
+    @Test
+    void quotedOptionsKeepSpacesAndEscapedQuotes() throws IOException {
+        FingerprintDatabase db = parse(
+                "match tcp Web \"Server: \" pattern=\"say \\\"hi\\\"\" version=\"Server: ([^\\r\\n]+) httpd\"");
+
+        byte[] banner = bytes("HTTP/1.0 200 OK\r\nServer: Apache 2.4 httpd\r\n\r\nsay \"hi\"");
+        assertThat(db.identify("tcp", 80, banner)).isEqualTo(new FingerprintDatabase.Match("Web", "Apache 2.4"));
+        assertThat(db.match("tcp", 80, bytes("Server: Apache 2.4 httpd\r\nsay hi"))).isEmpty();
+    }
+
+    @Test
+    void literalEscapesAreRawBytes() throws IOException {
+        FingerprintDatabase db = parse(
+                "match tcp RDP \"\\x03\\x00\\x00\" offset=0",
+                "match tcp Line \"\\r\\n\\t\\0\\\\\"");
+
+        assertThat(db.match("tcp", 3389, new byte[]{0x03, 0x00, 0x00, 0x0b}))
+                .contains(new FingerprintDatabase.Match("RDP", null));
+        assertThat(db.match("tcp", 1, new byte[]{'a', '\r', '\n', '\t', 0, '\\'}))
+                .contains(new FingerprintDatabase.Match("Line", null));
+    }
+
+    @Test
+    void offsetPinsTheLiteral() throws IOException {
+        FingerprintDatabase db = parse("match tcp SSH \"SSH-\" offset=0");
+
+        assertThat(db.match("tcp", 22, bytes("SSH-2.0-OpenSSH_9.6"))).isPresent();
+        assertThat(db.match("tcp", 22, bytes("Welcome SSH-2.0"))).isEmpty();
+        // A later occurrence cannot stand in for the pinned one
+        assertThat(db.match("tcp", 22, bytes("xSSH-SSH-"))).isEmpty();
+    }
+
+    @Test
+    void literalsAreExactCaseUnlessNocase() throws IOException {
+        FingerprintDatabase db = parse(
+                "match tcp Exact \"SSH-\"",
+                "match tcp Folded \"smtp\" nocase");
+
+        // The automaton folds case; the exact signature must still reject the folded hit
+        assertThat(db.match("tcp", 22, bytes("ssh-2.0"))).isEmpty();
+        assertThat(db.match("tcp", 22, bytes("SSH-2.0"))).contains(new FingerprintDatabase.Match("Exact", null));
+        assertThat(db.match("tcp", 25, bytes("220 mx ESMTP"))).contains(new FingerprintDatabase.Match("Folded", null));
+    }
+
+    @Test
+    void portSpecificSignaturesWinOverGenericOnes() throws IOException {
+        FingerprintDatabase db = parse(
+                "match tcp TLS \"\\x15\\x03\" offset=0",
+                "match tcp HTTPS \"\\x15\\x03\" offset=0 ports=443,8443");
+        byte[] alert = {0x15, 0x03, 0x01, 0x00, 0x02};
+
+        assertThat(db.identify("tcp", 443, alert).service()).isEqualTo("HTTPS");
+        assertThat(db.identify("tcp", 8443, alert).service()).isEqualTo("HTTPS");
+        assertThat(db.identify("tcp", 444, alert).service()).isEqualTo("TLS");
+    }
+
+    @Test
+    void equalRanksGoInFileOrder() throws IOException {
+        FingerprintDatabase db = parse(
+                "match tcp FileFirst \"ftpd\"",
+                "match tcp BannerFirst \"vsftp\"",
+                "match tcp Longest \"vsftpd\"");
+
+        // The automaton reports "vsftp" first, but the file order decides
+        assertThat(db.identify("tcp", 21, bytes("220 (vsftpd 3.0)")).service()).isEqualTo("FileFirst");
+    }
+
+    @Test
+    void failedPatternFallsThroughToTheNextCandidate() throws IOException {
+        FingerprintDatabase db = parse(
+                "match tcp Generic \"220\"",
+                "match tcp Specific \"220\" ports=21 pattern=\"FTP\" version=\"FTP ([\\d.]+)\"");
+
+        assertThat(db.identify("tcp", 21, bytes("220 FTP 1.2 ready"))).isEqualTo(new FingerprintDatabase.Match("Specific", "1.2"));
+        assertThat(db.identify("tcp", 21, bytes("220 mail ready")).service()).isEqualTo("Generic");
+    }
+
+    @Test
+    void errorsNameTheSourceAndLine() {
+        assertThatThrownBy(() -> parse("port tcp 22 SSH", "", "# comment", "match tcp X"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("test:4: expected: match");
+        assertThatThrownBy(() -> parse("prot tcp 22 SSH"))
+                .hasMessage("test:1: unknown directive 'prot'");
+        assertThatThrownBy(() -> parse("match tcp X \"a\"", "match tcp X \"b\" bogus"))
+                .hasMessage("test:2: unknown option 'bogus'");
+        assertThatThrownBy(() -> parse("match tcp X \"a\" pattern=\"(\""))
+                .hasMessageStartingWith("test:1: bad regex");
+        assertThatThrownBy(() -> parse("match tcp X \"a\" version=\"unterminated"))
+                .hasMessage("test:1: unterminated quote");
+        assertThatThrownBy(() -> parse("port tcp 22-70000 X"))
+                .hasMessageContaining("bad port range");
+    }
+
+    @Test
+    void malformedEscapesAreRejected() {
+        assertThatThrownBy(() -> parse("match tcp X \"ab\\x4\""))
+                .hasMessage("test:1: truncated \\x escape");
+        assertThatThrownBy(() -> parse("match tcp X ab\\"))
+                .hasMessage("test:1: dangling backslash");
+        assertThatThrownBy(() -> parse("match tcp X \"\""))
+                .hasMessage("test:1: empty literal");
+    }
+
+    @Test
+    void bundledFingerprintsParse() throws IOException {
+        FingerprintDatabase db;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/service-fingerprints.txt"), StandardCharsets.UTF_8)) {
+            db = FingerprintDatabase.parse(reader, "service-fingerprints.txt");
+        }
+
+        assertThat(db.size()).isPositive();
+        assertThat(db.identify("tcp", 2222, bytes("SSH-2.0-OpenSSH_9.6\r\n")))
+                .isEqualTo(new FingerprintDatabase.Match("SSH", "OpenSSH_9.6"));
+        assertThat(db.identify("tcp", 443, new byte[]{0x15, 0x03, 0x03, 0x00, 0x02}).service()).isEqualTo("HTTPS");
+    }
+
+    private static FingerprintDatabase parse(String... lines) throws IOException {
+        return FingerprintDatabase.parse(new StringReader(String.join("\n", lines)), "test");
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PortListTest {
+
+    @Test
+    void bitSetRunsAreListedAscending() {
+        BitSet ports = new BitSet();
+        ports.set(20, 23);
+        ports.set(80);
+        ports.set(443);
+
+        PortList list = PortList.of(ports);
+
+        assertThat(list).containsExactly(20, 21, 22, 80, 443);
+        assertThat(list.toBitSet()).isEqualTo(ports);
+    }
+
+    @Test
+    void repeatedPortsKeepTheirFirstPosition() {
+        PortList list = PortList.of(new int[]{443, 80, 443, 81, 80, 22});
+
+        assertThat(list).containsExactly(443, 80, 81, 22);
+        assertThat(list.ints().toArray()).containsExactly(443, 80, 81, 22);
+    }
+
+    @Test
+    void emptyListHasNoPorts() {
+        PortList list = PortList.of(new int[0]);
+
+        assertThat(list).isEmpty();
+        assertThat(list.shuffled(7)).isEmpty();
+        assertThatThrownBy(() -> list.getInt(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void firstKeepsTheListOrder() {
+        PortList list = PortList.of(new int[]{8080, 22, 23, 24, 443});
+
+        assertThat(list.first(3)).containsExactly(8080, 22, 23);
+        assertThat(list.first(5)).isSameAs(list);
+        assertThat(list.first(99)).isSameAs(list);
+        assertThat(list.first(0)).isEmpty();
+    }
+
+    @Test
+    void sliceTakesPortsFromTheOffset() {
+        PortList list = PortList.of(new int[]{1, 2, 3, 10, 11, 12});
+
+        assertThat(list.slice(2, 3)).containsExactly(3, 10, 11);
+        assertThat(list.slice(6, 0)).isEmpty();
+        assertThatThrownBy(() -> list.slice(4, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> list.slice(-1, 1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void shuffleIsABijectionForEverySize() {
+        // Tiny lists, primes, composites with many factors and the full port range
+        for (int n : new int[]{1, 2, 3, 4, 5, 6, 7, 8, 12, 97, 100, 210, 1000, 1009, 65535}) {
+            BitSet ports = new BitSet();
+            ports.set(1, n + 1);
+            PortList shuffled = PortList.of(ports).shuffled(n * 31L);
+
+            assertThat(shuffled).hasSize(n);
+            BitSet seen = new BitSet();
+            shuffled.ints().forEach(seen::set);
+            assertThat(seen).as("size %d", n).isEqualTo(ports);
+        }
+    }
+
+    @Test
+    void shuffleSpansRunsOfAnyLength() {
+        PortList list = PortList.of(new int[]{5, 6, 7, 100, 2000, 2001, 9});
+        PortList shuffled = list.shuffled(42);
+
+        assertThat(shuffled).containsExactlyInAnyOrderElementsOf(list);
+        assertThat(shuffled.toBitSet()).isEqualTo(list.toBitSet());
+    }
+
+    @Test
+    void shuffleIsDeterministicPerSeed() {
+        BitSet ports = new BitSet();
+        ports.set(1, 1001);
+        PortList list = PortList.of(ports);
+
+        List<Integer> once = List.copyOf(list.shuffled(12345));
+        List<Integer> again = List.copyOf(list.shuffled(12345));
+        List<Integer> other = List.copyOf(list.shuffled(54321));
+
+        assertThat(again).isEqualTo(once);
+        assertThat(other).isNotEqualTo(once);
+        assertThat(once).isNotEqualTo(List.copyOf(list));
+    }
+
+    @Test
+    void shuffledSlicesTileTheShuffledList() {
+        BitSet ports = new BitSet();
+        ports.set(1, 501);
+        PortList shuffled = PortList.of(ports).shuffled(99);
+
+        BitSet seen = new BitSet();
+        for (int offset = 0; offset < shuffled.size(); offset += 64) {
+            PortList unit = shuffled.slice(offset, Math.min(64, shuffled.size() - offset));
+            for (int i = 0; i < unit.size(); i++) {
+                assertThat(unit.getInt(i)).isEqualTo(shuffled.getInt(offset + i));
+                seen.set(unit.getInt(i));
+            }
+        }
+        assertThat(seen).isEqualTo(ports);
+    }
+}
@@ -0,0 +1,69 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RttEstimatorTest {
+
+    @Test
+    void initialTimeoutAppliesUntilTheFirstSample() {
+        RttEstimator rtt = new RttEstimator(1000, 50);
+
+        assertThat(rtt.rto(3000)).isEqualTo(1000);
+        assertThat(rtt.rto(500)).isEqualTo(500);
+    }
+
+    @Test
+    void firstSampleSetsVarianceToHalfTheRoundTrip() {
+        RttEstimator rtt = new RttEstimator(1000, 1);
+        rtt.sample(100);
+
+        // SRTT = R, RTTVAR = R/2, RTO = SRTT + 4 * RTTVAR
+        assertThat(rtt.rto(10_000)).isEqualTo(300);
+    }
+
+    @Test
+    void laterSamplesAreSmoothed() {
+        RttEstimator rtt = new RttEstimator(1000, 1);
+        rtt.sample(100);
+        rtt.sample(200);
+
+        // RTTVAR = 3/4 * 50 + 1/4 * 100 = 62.5, SRTT = 7/8 * 100 + 1/8 * 200 = 112.5
+        assertThat(rtt.rto(10_000)).isEqualTo(363);
+    }
+
+    @Test
+    void steadyRoundTripsKeepOneMillisecondOfVariance() {
+        RttEstimator rtt = new RttEstimator(1000, 1);
+        for (int i = 0; i < 200; i++) {
+            rtt.sample(100);
+        }
+
+        assertThat(rtt.rto(10_000)).isEqualTo(101);
+    }
+
+    @Test
+    void timeoutIsClampedBetweenFloorAndCeiling() {
+        RttEstimator fast = new RttEstimator(1000, 50);
+        fast.sample(1);
+        RttEstimator slow = new RttEstimator(1000, 50);
+        slow.sample(5000);
+
+        assertThat(fast.rto(2000)).isEqualTo(50);
+        assertThat(slow.rto(2000)).isEqualTo(2000);
+    }
+
+    @Test
+    void backedOffTimeoutsDoubleUpToTheCeiling() {
+        RttEstimator rtt = new RttEstimator(1000, 1);
+        rtt.sample(100);
+
+        // Retransmissions back off the way the engines compute it: rto << attempt, capped
+        long[] timeouts = new long[5];
+        for (int attempt = 0; attempt < timeouts.length; attempt++) {
+            timeouts[attempt] = Math.min(2000, rtt.rto(2000) << attempt);
+        }
+        assertThat(timeouts).containsExactly(300, 600, 1200, 2000, 2000);
+    }
+}
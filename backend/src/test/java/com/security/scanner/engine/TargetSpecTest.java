@@ -0,0 +1,130 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TargetSpecTest {
+
+    @Test
+    void cidrSkipsNetworkAndBroadcastAddresses() {
+        TargetSpec spec = TargetSpec.parse("192.168.1.77/24");
+
+        assertThat(spec.size()).isEqualTo(254);
+        assertThat(spec.hostAt(0)).isEqualTo("192.168.1.1");
+        assertThat(spec.hostAt(253)).isEqualTo("192.168.1.254");
+        assertThat(spec.indexOf("192.168.1.0")).isEqualTo(-1);
+        assertThat(spec.indexOf("192.168.1.255")).isEqualTo(-1);
+    }
+
+    @Test
+    void cidrSlash31KeepsBothAddresses() {
+        assertThat(TargetSpec.parse("10.0.0.7/31")).containsExactly("10.0.0.6", "10.0.0.7");
+    }
+
+    @Test
+    void cidrSlash32IsOneHost() {
+        assertThat(TargetSpec.parse("10.0.0.7/32")).containsExactly("10.0.0.7");
+    }
+
+    @Test
+    void cidrSlash0CoversTheWholeAddressSpace() {
+        TargetSpec spec = TargetSpec.parse("0.0.0.0/0");
+
+        assertThat(spec.size()).isEqualTo((1L << 32) - 2);
+        assertThat(spec.hostAt(0)).isEqualTo("0.0.0.1");
+        assertThat(spec.hostAt(spec.size() - 1)).isEqualTo("255.255.255.254");
+    }
+
+    @Test
+    void invalidCidrPrefixIsRejected() {
+        assertThatThrownBy(() -> TargetSpec.parse("10.0.0.0/33"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CIDR prefix");
+    }
+
+    @Test
+    void shortRangeEndsWithinTheLastOctet() {
+        assertThat(TargetSpec.parse("10.0.0.3-5")).containsExactly("10.0.0.3", "10.0.0.4", "10.0.0.5");
+    }
+
+    @Test
+    void fullRangeCrossesOctets() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.254-10.0.1.1");
+
+        assertThat(spec).containsExactly("10.0.0.254", "10.0.0.255", "10.0.1.0", "10.0.1.1");
+    }
+
+    @Test
+    void reversedRangesAreRejected() {
+        assertThatThrownBy(() -> TargetSpec.parse("10.0.0.5-3"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid address range");
+        assertThatThrownBy(() -> TargetSpec.parse("10.0.1.0-10.0.0.255"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rangeEndOutOfOctetIsRejected() {
+        assertThatThrownBy(() -> TargetSpec.parse("10.0.0.5-256"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("range end");
+    }
+
+    @Test
+    void invalidOctetIsRejected() {
+        assertThatThrownBy(() -> TargetSpec.parse("10.0.0.300"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("octet");
+    }
+
+    @Test
+    void hostnameIsOneHost() {
+        TargetSpec spec = TargetSpec.parse(" scanme.example.org ");
+
+        assertThat(spec).containsExactly("scanme.example.org");
+        assertThat(spec.indexOf("scanme.example.org")).isZero();
+        assertThat(spec.indexOf("10.0.0.1")).isEqualTo(-1);
+        assertThat(spec.slice(0, 1)).containsExactly("scanme.example.org");
+    }
+
+    @Test
+    void indexOfAndHostAtRoundTrip() {
+        TargetSpec spec = TargetSpec.parse("172.16.0.0/22");
+
+        for (long index = 0; index < spec.size(); index++) {
+            assertThat(spec.indexOf(spec.hostAt(index))).isEqualTo(index);
+        }
+        assertThat(spec.indexOf("172.16.4.1")).isEqualTo(-1);
+        assertThat(spec.indexOf("not-an-address")).isEqualTo(-1);
+    }
+
+    @Test
+    void slicesTileTheSpecInOrder() {
+        TargetSpec spec = TargetSpec.parse("10.1.0.0/26");
+
+        List<String> hosts = new ArrayList<>();
+        for (long offset = 0; offset < spec.size(); offset += 7) {
+            TargetSpec slice = spec.slice(offset, Math.min(7, spec.size() - offset));
+            for (String host : slice) {
+                assertThat(spec.indexOf(host)).isEqualTo(offset + slice.indexOf(host));
+                hosts.add(host);
+            }
+        }
+        assertThat(hosts).containsExactlyElementsOf(spec);
+    }
+
+    @Test
+    void slicesOutOfBoundsAreRejected() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.1-10");
+
+        assertThatThrownBy(() -> spec.slice(5, 6)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> spec.slice(-1, 1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> spec.slice(0, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> spec.hostAt(10)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
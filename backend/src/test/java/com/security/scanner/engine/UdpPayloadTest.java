@@ -0,0 +1,123 @@
+package com.security.scanner.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UdpPayloadTest {
+
+    @Test
+    void dnsReplyMustEchoTheTransactionId() {
+        UdpPayload payload = UdpPayload.forPort(53);
+        byte[] query = payload.data();
+
+        assertThat(payload.token()).hasSize(2).isEqualTo(Arrays.copyOf(query, 2));
+        assertThat(payload.tokenOffset()).isZero();
+        // One question: version.bind TXT CHAOS
+        assertThat(query[5]).isEqualTo((byte) 1);
+        assertThat(query[12]).isEqualTo((byte) 7);
+
+        byte[] reply = Arrays.copyOf(query, query.length + 20);
+        reply[2] = (byte) 0x84;
+        assertThat(payload.matches(ByteBuffer.wrap(reply))).isTrue();
+
+        byte[] other = reply.clone();
+        other[1] ^= 1;
+        assertThat(payload.matches(ByteBuffer.wrap(other))).isFalse();
+        assertThat(payload.matches(ByteBuffer.wrap(new byte[]{query[0]}))).isFalse();
+    }
+
+    @Test
+    void ntpReplyMustCarryTheTransmitTimestampAsOriginate() {
+        UdpPayload payload = UdpPayload.forPort(123);
+        byte[] request = payload.data();
+
+        assertThat(request).hasSize(48);
+        assertThat(request[0]).isEqualTo((byte) 0xe3);
+        assertThat(payload.token()).isEqualTo(Arrays.copyOfRange(request, 40, 48));
+        assertThat(payload.tokenOffset()).isEqualTo(24);
+
+        byte[] reply = new byte[48];
+        reply[0] = 0x24;
+        System.arraycopy(payload.token(), 0, reply, 24, 8);
+        assertThat(payload.matches(ByteBuffer.wrap(reply))).isTrue();
+
+        // Our own request reflected back has the timestamp at 40, not 24
+        assertThat(payload.matches(ByteBuffer.wrap(request))).isFalse();
+        assertThat(payload.matches(ByteBuffer.wrap(Arrays.copyOf(reply, 30)))).isFalse();
+    }
+
+    @Test
+    void snmpReplyMayCarryTheRequestIdAnywhere() {
+        UdpPayload payload = UdpPayload.forPort(161);
+        byte[] token = payload.token();
+
+        // INTEGER, length 4, top bits fixed so the encoding stays minimal
+        assertThat(token).hasSize(6);
+        assertThat(token[0]).isEqualTo((byte) 0x02);
+        assertThat(token[1]).isEqualTo((byte) 4);
+        assertThat(token[2] & 0xc0).isEqualTo(0x40);
+        assertThat(indexOf(payload.data(), token)).isPositive();
+        assertThat(new String(payload.data(), StandardCharsets.ISO_8859_1)).contains("public");
+
+        for (int offset : new int[]{0, 13, 40}) {
+            byte[] reply = new byte[offset + token.length + 5];
+            System.arraycopy(token, 0, reply, offset, token.length);
+            assertThat(payload.matches(ByteBuffer.wrap(reply))).as("offset %d", offset).isTrue();
+        }
+        byte[] truncated = Arrays.copyOf(token, token.length - 1);
+        assertThat(payload.matches(ByteBuffer.wrap(truncated))).isFalse();
+    }
+
+    @Test
+    void onlyTheReceivedBytesAreSearched() {
+        UdpPayload payload = UdpPayload.forPort(161);
+        ByteBuffer reply = ByteBuffer.allocate(100);
+        reply.put(50, payload.token());
+        reply.limit(40);
+
+        assertThat(payload.matches(reply)).isFalse();
+        reply.limit(56);
+        assertThat(payload.matches(reply)).isTrue();
+    }
+
+    @Test
+    void ssdpReplyMustStartWithAnHttpStatusLine() {
+        UdpPayload payload = UdpPayload.forPort(1900);
+
+        assertThat(new String(payload.data(), StandardCharsets.US_ASCII)).startsWith("M-SEARCH * HTTP/1.1\r\n");
+        assertThat(payload.matches(ascii("HTTP/1.1 200 OK\r\n"))).isTrue();
+        assertThat(payload.matches(ascii(" HTTP/1.1 200 OK\r\n"))).isFalse();
+    }
+
+    @Test
+    void unknownPortsSendAnEmptyDatagramAndAcceptAnyReply() {
+        UdpPayload payload = UdpPayload.forPort(9999);
+
+        assertThat(payload.data()).isEmpty();
+        assertThat(payload.matches(ascii("anything"))).isTrue();
+        assertThat(payload.matches(ByteBuffer.allocate(0))).isTrue();
+    }
+
+    @Test
+    void everyProbeGetsAFreshToken() {
+        assertThat(UdpPayload.forPort(123).token()).isNotEqualTo(UdpPayload.forPort(123).token());
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static int indexOf(byte[] data, byte[] part) {
+        for (int start = 0; start + part.length <= data.length; start++) {
+            if (Arrays.equals(data, start, start + part.length, part, 0, part.length)) {
+                return start;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+package com.security.scanner.service;
+
+import com.security.scanner.engine.TargetSpec;
+import org.junit.jupiter.api.Test;
+
+import static com.security.scanner.model.PortResult.PortStatus.CLOSED;
+import static com.security.scanner.model.PortResult.PortStatus.FILTERED;
+import static com.security.scanner.model.PortResult.PortStatus.OPEN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckpointTrackerTest {
+
+    private static final TargetSpec TARGETS = TargetSpec.parse("10.0.0.0/29");
+
+    @Test
+    void recordedPortsAndCompletedHostsAreSkipped() {
+        CheckpointTracker tracker = new CheckpointTracker(TARGETS, false);
+        tracker.record("10.0.0.1", 22, OPEN);
+        tracker.record("10.0.0.2", 80, CLOSED);
+        tracker.hostCompleted("10.0.0.1");
+
+        assertThat(tracker.isHostDone("10.0.0.1")).isTrue();
+        assertThat(tracker.isHostDone("10.0.0.2")).isFalse();
+        assertThat(tracker.isPortDone("10.0.0.2", 80)).isTrue();
+        assertThat(tracker.isPortDone("10.0.0.2", 81)).isFalse();
+        // A completed host's ports are no longer tracked one by one
+        assertThat(tracker.isPortDone("10.0.0.1", 22)).isFalse();
+    }
+
+    @Test
+    void countersAddUpCompletedAndActiveHosts() {
+        CheckpointTracker tracker = new CheckpointTracker(TARGETS, false);
+        tracker.record("10.0.0.1", 22, OPEN);
+        tracker.record("10.0.0.1", 23, CLOSED);
+        tracker.hostCompleted("10.0.0.1");
+        tracker.record("10.0.0.2", 22, FILTERED);
+        tracker.hostSkipped("10.0.0.3", 100);
+
+        // scanned, open, closed, filtered
+        assertThat(tracker.coveredCounts()).containsExactly(103, 1, 1, 1);
+        assertThat(tracker.isHostDone("10.0.0.3")).isTrue();
+    }
+
+    @Test
+    void snapshotRestoresActiveHostsOutsideCompactMode() {
+        CheckpointTracker tracker = new CheckpointTracker(TARGETS, false);
+        tracker.record("10.0.0.1", 443, OPEN);
+        tracker.hostCompleted("10.0.0.1");
+        tracker.record("10.0.0.6", 8080, CLOSED);
+        tracker.record("10.0.0.6", 65535, FILTERED);
+
+        CheckpointTracker restored = CheckpointTracker.restore(TARGETS, false, tracker.snapshot());
+
+        assertThat(restored.isHostDone("10.0.0.1")).isTrue();
+        assertThat(restored.isHostDone("10.0.0.6")).isFalse();
+        assertThat(restored.isPortDone("10.0.0.6", 8080)).isTrue();
+        assertThat(restored.isPortDone("10.0.0.6", 65535)).isTrue();
+        assertThat(restored.isPortDone("10.0.0.6", 22)).isFalse();
+        assertThat(restored.coveredCounts()).containsExactly(tracker.coveredCounts());
+    }
+
+    @Test
+    void compactSnapshotKeepsOnlyCompletedHosts() {
+        CheckpointTracker tracker = new CheckpointTracker(TARGETS, true);
+        tracker.record("10.0.0.1", 22, OPEN);
+        tracker.hostCompleted("10.0.0.1");
+        tracker.record("10.0.0.2", 22, CLOSED);
+
+        CheckpointTracker restored = CheckpointTracker.restore(TARGETS, true, tracker.snapshot());
+
+        assertThat(restored.isHostDone("10.0.0.1")).isTrue();
+        assertThat(restored.isPortDone("10.0.0.2", 22)).isFalse();
+        assertThat(restored.coveredCounts()).containsExactly(1, 1, 0, 0);
+    }
+
+    @Test
+    void hostsOutsideTheTargetsAreNeverDone() {
+        CheckpointTracker tracker = new CheckpointTracker(TARGETS, false);
+        tracker.record("192.168.0.1", 22, OPEN);
+        tracker.hostCompleted("192.168.0.1");
+
+        assertThat(tracker.isHostDone("192.168.0.1")).isFalse();
+        assertThat(tracker.coveredCounts()).containsExactly(0, 0, 0, 0);
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        byte[] data = PortSetCodec.deflate(new byte[]{0, 0, 0, 9});
+
+        assertThatThrownBy(() -> CheckpointTracker.restore(TARGETS, false, data))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("format 9");
+    }
+}
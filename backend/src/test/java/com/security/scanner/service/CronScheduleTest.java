@@ -0,0 +1,120 @@
+package com.security.scanner.service;
+
+import com.security.scanner.dto.ScheduledScanRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CronScheduleTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUpValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void unixCronGetsASecondsField() {
+        CronSchedule schedule = CronSchedule.parse("0 2 * * *");
+
+        assertThat(schedule.next(at("2026-10-18T10:00"))).isEqualTo(at("2026-10-19T02:00"));
+        assertThat(CronSchedule.parse("30 0 2 * * *").next(at("2026-10-18T10:00")))
+                .isEqualTo(at("2026-10-19T02:00").plusSeconds(30));
+    }
+
+    @Test
+    void nextIsStrictlyAfter() {
+        assertThat(CronSchedule.parse("0 2 * * *").next(at("2026-10-19T02:00"))).isEqualTo(at("2026-10-20T02:00"));
+    }
+
+    @Test
+    void macrosFireAtTheirPeriod() {
+        LocalDateTime now = at("2026-10-18T10:15");
+
+        assertThat(CronSchedule.parse("@hourly").next(now)).isEqualTo(at("2026-10-18T11:00"));
+        assertThat(CronSchedule.parse("@daily").next(now)).isEqualTo(at("2026-10-19T00:00"));
+        assertThat(CronSchedule.parse("@weekly").next(now)).isEqualTo(at("2026-10-25T00:00"));
+        assertThat(CronSchedule.parse("@annually").next(now)).isEqualTo(at("2027-01-01T00:00"));
+    }
+
+    @Test
+    void everyAddsItsIntervalWithAOneMinuteFloor() {
+        LocalDateTime now = at("2026-10-18T10:15");
+
+        assertThat(CronSchedule.parse("@every 1h30m").next(now)).isEqualTo(at("2026-10-18T11:45"));
+        assertThat(CronSchedule.parse("@every 1h 30m").next(now)).isEqualTo(at("2026-10-18T11:45"));
+        assertThat(CronSchedule.parse("@every 90s").next(now)).isEqualTo(now.plusSeconds(90));
+        assertThat(CronSchedule.parse("@every 10s").next(now)).isEqualTo(now.plusMinutes(1));
+    }
+
+    // Schedules run on the server's wall clock: DST moves the instant, never the local fire time
+
+    @Test
+    void fireTimeInsideTheSkippedHourIsKept() {
+        // 2026-03-08 02:00-03:00 does not exist in US zones; the occurrence is due once the clock jumps past it
+        CronSchedule schedule = CronSchedule.parse("30 2 * * *");
+
+        assertThat(schedule.next(at("2026-03-08T01:59"))).isEqualTo(at("2026-03-08T02:30"));
+        assertThat(schedule.next(at("2026-03-08T03:00"))).isEqualTo(at("2026-03-09T02:30"));
+    }
+
+    @Test
+    void repeatedHourFiresOnce() {
+        // 2026-11-01 01:00-02:00 happens twice in US zones; advancing from the first run skips the second
+        CronSchedule schedule = CronSchedule.parse("30 1 * * *");
+
+        LocalDateTime first = schedule.next(at("2026-10-31T01:30"));
+        assertThat(first).isEqualTo(at("2026-11-01T01:30"));
+        assertThat(schedule.next(first)).isEqualTo(at("2026-11-02T01:30"));
+    }
+
+    @Test
+    void hourlyScheduleKeepsWallClockHoursAcrossTheChange() {
+        CronSchedule schedule = CronSchedule.parse("0 * * * *");
+
+        assertThat(schedule.next(at("2026-03-08T01:00"))).isEqualTo(at("2026-03-08T02:00"));
+        assertThat(schedule.next(at("2026-11-01T01:00"))).isEqualTo(at("2026-11-01T02:00"));
+    }
+
+    @Test
+    void macrosTheRequestPatternAdmitsAreStillRejected() {
+        for (String expression : new String[]{"@reboot", "@every 500ns", "@every 10us", "@every 5µs", "@every 1m500us"}) {
+            assertThat(validator.validateValue(ScheduledScanRequest.class, "cronExpression", expression))
+                    .as("request pattern for %s", expression)
+                    .isEmpty();
+            assertThatThrownBy(() -> CronSchedule.parse(expression))
+                    .as(expression)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void malformedExpressionsAreRejected() {
+        for (String expression : new String[]{"", "61 * * * *", "* * *", "@every", "@every 5x", "@fortnightly"}) {
+            assertThatThrownBy(() -> CronSchedule.parse(expression))
+                    .as(expression)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> CronSchedule.parse(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LocalDateTime at(String value) {
+        return LocalDateTime.parse(value);
+    }
+}
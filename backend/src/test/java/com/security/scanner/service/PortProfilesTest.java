@@ -0,0 +1,92 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import com.security.scanner.engine.PortList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PortProfilesTest {
+
+    private ScannerConfig config;
+    private PortProfiles profiles;
+
+    @BeforeEach
+    void setUp() {
+        config = new ScannerConfig();
+        config.setCommonPorts(List.of(80, 443, 22, 80));
+        config.setPortOrder("sequential");
+        profiles = new PortProfiles(config, new DefaultResourceLoader());
+        profiles.load();
+    }
+
+    @Test
+    void topPortsFileRanksExactlyAThousandUniquePorts() {
+        PortList top = profiles.parse("top1000");
+
+        assertThat(top).hasSize(1000);
+        assertThat(top.toBitSet().cardinality()).isEqualTo(1000);
+        assertThat(top.toBitSet().nextSetBit(0)).isPositive();
+        assertThat(top.toBitSet().length()).isLessThanOrEqualTo(65536);
+        assertThatThrownBy(() -> profiles.parse("top1001"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("top1000");
+    }
+
+    @Test
+    void topProfilesArePrefixesOfTheRanking() {
+        PortList top1000 = profiles.parse("top1000");
+
+        assertThat(profiles.parse("TOP10")).containsExactlyElementsOf(top1000.first(10));
+        assertThatThrownBy(() -> profiles.parse("top0")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void commonKeepsTheConfiguredOrderWithoutRepeats() {
+        assertThat(profiles.parse("common")).containsExactly(80, 443, 22);
+    }
+
+    @Test
+    void explicitListsAreAscendingAndMerged() {
+        assertThat(profiles.parse("443, 20-22,21,80")).containsExactly(20, 21, 22, 80, 443);
+        assertThat(profiles.parse("all")).hasSize(65535);
+    }
+
+    @Test
+    void invalidRangesAreRejected() {
+        assertThatThrownBy(() -> profiles.parse("0-10")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> profiles.parse("90-80")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> profiles.parse("65536")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> profiles.parse("http")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void randomOrderShufflesRangesButNotProfiles() {
+        config.setPortOrder("random");
+
+        PortList job = profiles.forJob(7L, "1-1000");
+        assertThat(job).containsExactlyInAnyOrderElementsOf(profiles.parse("1-1000"));
+        assertThat(job).isNotEqualTo(profiles.parse("1-1000"));
+        assertThat(profiles.forJob(7L, "1-1000")).isEqualTo(job);
+        assertThat(profiles.forJob(7L, "top100")).isEqualTo(profiles.parse("top100"));
+    }
+
+    @Test
+    void rescanSliceWrapsAroundTheEnd() {
+        assertThat(profiles.forRescan(1L, "1-10", null, 8, 5)).containsExactly(9, 10, 1, 2, 3);
+        assertThat(profiles.forRescan(1L, "1-10", "", 13, 2)).containsExactly(4, 5);
+        assertThat(profiles.forRescan(1L, "1-10", null, 4, 50)).containsExactly(5, 6, 7, 8, 9, 10, 1, 2, 3, 4);
+    }
+
+    @Test
+    void rescanProbesKnownOpenPortsFirstAndOnce() {
+        PortList ports = profiles.forRescan(1L, "1-10", "22,3", 8, 5);
+
+        assertThat(ports).containsExactly(3, 22, 9, 10, 1, 2);
+    }
+}
@@ -0,0 +1,85 @@
+package com.security.scanner.service;
+
+import com.security.scanner.config.ScannerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PortSetCodecTest {
+
+    @Test
+    void encodeDecodeRoundTrips() {
+        for (BitSet ports : samples()) {
+            assertThat(PortSetCodec.decode(PortSetCodec.encode(ports))).isEqualTo(ports);
+        }
+    }
+
+    @Test
+    void fullRangeCompressesToAFewBytes() {
+        BitSet all = new BitSet();
+        all.set(1, 65536);
+
+        assertThat(PortSetCodec.encode(all)).hasSizeLessThan(100);
+    }
+
+    @Test
+    void inflateUndoesDeflateOfAnyBytes() {
+        byte[] data = new byte[5000];
+        new SplittableRandom(3).nextBytes(data);
+
+        assertThat(PortSetCodec.inflate(PortSetCodec.deflate(data))).isEqualTo(data);
+        assertThat(PortSetCodec.inflate(PortSetCodec.deflate(new byte[0]))).isEmpty();
+    }
+
+    @Test
+    void corruptDataIsRejected() {
+        assertThatThrownBy(() -> PortSetCodec.inflate(new byte[]{1, 2, 3, 4, 5}))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rangesCollapseConsecutivePorts() {
+        BitSet ports = new BitSet();
+        ports.set(1, 21);
+        ports.set(22);
+        ports.set(25, 80);
+        ports.set(65535);
+
+        assertThat(PortSetCodec.toRanges(ports)).isEqualTo("1-20,22,25-79,65535");
+        assertThat(PortSetCodec.toRanges(new BitSet())).isEmpty();
+    }
+
+    @Test
+    void rangesParseBackToTheSamePorts() {
+        // Known-open ports are stored as ranges and read back as a rescan's port list
+        ScannerConfig config = new ScannerConfig();
+        PortProfiles profiles = new PortProfiles(config, new DefaultResourceLoader());
+        profiles.load();
+
+        for (BitSet ports : samples()) {
+            if (!ports.isEmpty()) {
+                assertThat(profiles.parse(PortSetCodec.toRanges(ports)).toBitSet()).isEqualTo(ports);
+            }
+        }
+    }
+
+    private static BitSet[] samples() {
+        BitSet empty = new BitSet();
+        BitSet single = new BitSet();
+        single.set(65535);
+        BitSet runs = new BitSet();
+        runs.set(1, 1025);
+        runs.set(8080, 8091);
+        BitSet scattered = new BitSet();
+        SplittableRandom random = new SplittableRandom(17);
+        for (int i = 0; i < 3000; i++) {
+            scattered.set(1 + random.nextInt(65535));
+        }
+        return new BitSet[]{empty, single, runs, scattered};
+    }
+}
@@ -7,9 +7,14 @@ const NewScan = ({ onScanStarted }) => {
   const [formData, setFormData] = useState({
     target: '',
     portRange: 'common',
+    protocol: 'tcp',
     timeout: 2000,
     includeClosedPorts: true,
     includeFilteredPorts: true,
+    // Left out of the request until changed, so the server's scanner.discovery.enabled applies
+    hostDiscovery: undefined,
+    diffMode: false,
+    verifyOpen: false,
   });
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
@@ -25,9 +30,13 @@ const NewScan = ({ onScanStarted }) => {
       setFormData({ 
         target: '', 
         portRange: 'common', 
+        protocol: 'tcp',
         timeout: 2000,
         includeClosedPorts: true,
         includeFilteredPorts: true,
+        hostDiscovery: undefined,
+        diffMode: false,
+        verifyOpen: false,
       });
     } catch (err) {
       setError(err.response?.data?.target || err.response?.data?.portRange || 'Failed to start scan');
@@ -49,13 +58,13 @@ const NewScan = ({ onScanStarted }) => {
       <form onSubmit={handleSubmit} className="space-y-6">
         <div>
           <label className="block text-sm font-medium text-gray-700 mb-2">
-            Target (IP or Hostname)
+            Target (IP, Hostname, CIDR or Range)
           </label>
           <input
             type="text"
             value={formData.target}
             onChange={(e) => setFormData({ ...formData, target: e.target.value })}
-            placeholder="192.168.1.1 or example.com"
+            placeholder="192.168.1.1, example.com or 10.0.0.0/24"
             className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
             required
           />
@@ -74,6 +83,8 @@ const NewScan = ({ onScanStarted }) => {
             className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
           >
             <option value="common">Common Ports (17 ports)</option>
+            <option value="top100">Top 100 Ports (most often open)</option>
+            <option value="top1000">Top 1000 Ports (most often open)</option>
             <option value="1-100">Quick Scan: 1-100</option>
             <option value="1-1000">Port Range: 1-1000</option>
             <option value="1-10000">Extended: 1-10000</option>
@@ -89,7 +100,24 @@ const NewScan = ({ onScanStarted }) => {
             className="mt-2 w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
           />
           <p className="mt-1 text-xs text-gray-500">
-            Format: 80,443,8080-8090 or use presets
+            Format: 80,443,8080-8090, top&lt;N&gt; or use presets
+          </p>
+        </div>
+
+        <div>
+          <label className="block text-sm font-medium text-gray-700 mb-2">
+            Protocol
+          </label>
+          <select
+            value={formData.protocol}
+            onChange={(e) => setFormData({ ...formData, protocol: e.target.value })}
+            className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
+          >
+            <option value="tcp">TCP (connect)</option>
+            <option value="udp">UDP (DNS, NTP, SNMP, SSDP payloads)</option>
+          </select>
+          <p className="mt-1 text-xs text-gray-500">
+            UDP ports that never answer are reported as filtered (open or filtered)
           </p>
         </div>
 
@@ -101,13 +129,13 @@ const NewScan = ({ onScanStarted }) => {
             type="number"
             value={formData.timeout}
             onChange={(e) => setFormData({ ...formData, timeout: parseInt(e.target.value) })}
-            min="500"
-            max="10000"
+            min="100"
+            max="60000"
             step="100"
             className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
           />
           <p className="mt-1 text-xs text-gray-500">
-            Connection timeout in milliseconds (500-10000)
+            Longest wait per probe in milliseconds (100-60000); each host adapts below it to its measured RTT
           </p>
         </div>
 
@@ -134,6 +162,38 @@ const NewScan = ({ onScanStarted }) => {
             <span className="text-sm text-gray-700">Include Filtered Ports (timeout/firewall)</span>
           </label>
           
+          <label className="flex items-center space-x-3">
+            <input
+              type="checkbox"
+              checked={formData.hostDiscovery ?? false}
+              onChange={(e) => setFormData({ ...formData, hostDiscovery: e.target.checked })}
+              className="w-4 h-4 text-blue-600 border-gray-300 rounded focus:ring-blue-500"
+            />
+            <span className="text-sm text-gray-700">Skip Hosts That Are Down (host discovery)</span>
+          </label>
+          
+          <label className="flex items-center space-x-3">
+            <input
+              type="checkbox"
+              checked={formData.diffMode}
+              onChange={(e) => setFormData({ ...formData, diffMode: e.target.checked })}
+              disabled={formData.verifyOpen}
+              className="w-4 h-4 text-blue-600 border-gray-300 rounded focus:ring-blue-500 disabled:opacity-50"
+            />
+            <span className="text-sm text-gray-700">Store Only Changes Since the Last Scan of This Target</span>
+          </label>
+          
+          <label className="flex items-center space-x-3">
+            <input
+              type="checkbox"
+              checked={formData.verifyOpen}
+              onChange={(e) => setFormData({ ...formData, verifyOpen: e.target.checked })}
+              disabled={formData.diffMode}
+              className="w-4 h-4 text-blue-600 border-gray-300 rounded focus:ring-blue-500 disabled:opacity-50"
+            />
+            <span className="text-sm text-gray-700">Re-check Known Open Ports, Then the Next Slice of the Range</span>
+          </label>
+          
           <p className="text-xs text-gray-500 mt-2">
             Note: Including closed and filtered ports will show all scanned ports regardless of status
           </p>
@@ -1,5 +1,5 @@
 
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { Eye, Trash2, RefreshCw, CheckCircle, XCircle, Clock, Shield, AlertTriangle } from 'lucide-react';
 import { scanAPI } from '../services/api';
 import { format } from 'date-fns';
@@ -25,15 +25,6 @@ const ScanHistory = () => {
     }
   };
 
-  const viewResults = async (jobId) => {
-    try {
-      const response = await scanAPI.getScanResults(jobId);
-      setSelectedScan(response.data);
-    } catch (error) {
-      console.error('Failed to load results:', error);
-    }
-  };
-
   const deleteScan = async (jobId) => {
     if (window.confirm('Are you sure you want to delete this scan?')) {
       try {
@@ -45,12 +36,22 @@ const ScanHistory = () => {
     }
   };
 
+  const cancelScan = async (jobId) => {
+    try {
+      await scanAPI.cancelScan(jobId);
+      loadScans();
+    } catch (error) {
+      console.error('Failed to cancel scan:', error);
+    }
+  };
+
   const getStatusBadge = (status) => {
     const badges = {
       COMPLETED: <span className="px-3 py-1 bg-green-100 text-green-800 rounded-full text-xs font-medium flex items-center space-x-1"><CheckCircle className="w-3 h-3" /><span>Completed</span></span>,
       RUNNING: <span className="px-3 py-1 bg-yellow-100 text-yellow-800 rounded-full text-xs font-medium flex items-center space-x-1"><Clock className="w-3 h-3 animate-spin" /><span>Running</span></span>,
       FAILED: <span className="px-3 py-1 bg-red-100 text-red-800 rounded-full text-xs font-medium flex items-center space-x-1"><XCircle className="w-3 h-3" /><span>Failed</span></span>,
       PENDING: <span className="px-3 py-1 bg-gray-100 text-gray-800 rounded-full text-xs font-medium">Pending</span>,
+      CANCELLED: <span className="px-3 py-1 bg-gray-100 text-gray-600 rounded-full text-xs font-medium">Cancelled</span>,
     };
     return badges[status] || <span className="px-3 py-1 bg-gray-100 text-gray-800 rounded-full text-xs">{status}</span>;
   };
@@ -116,12 +117,20 @@ const ScanHistory = () => {
                 <td className="px-6 py-4 whitespace-nowrap text-sm font-medium space-x-2">
                   {scan.status === 'COMPLETED' && (
                     <button
-                      onClick={() => viewResults(scan.id)}
+                      onClick={() => setSelectedScan(scan)}
                       className="text-blue-600 hover:text-blue-900"
                     >
                       <Eye className="w-5 h-5" />
                     </button>
                   )}
+                  {(scan.status === 'RUNNING' || scan.status === 'PENDING') && (
+                    <button
+                      onClick={() => cancelScan(scan.id)}
+                      className="text-orange-600 hover:text-orange-900"
+                    >
+                      <XCircle className="w-5 h-5" />
+                    </button>
+                  )}
                   <button
                     onClick={() => deleteScan(scan.id)}
                     className="text-red-600 hover:text-red-900"
@@ -142,22 +151,44 @@ const ScanHistory = () => {
   );
 };
 
+const PAGE_SIZE = 200;
+const TAB_STATUS = { all: undefined, open: 'OPEN', closed: 'CLOSED', filtered: 'FILTERED' };
+
 const ScanResultsModal = ({ scan, onClose }) => {
   const [activeTab, setActiveTab] = useState('all');
-  
-  const openPorts = scan.results.filter(r => r.status === 'OPEN');
-  const closedPorts = scan.results.filter(r => r.status === 'CLOSED');
-  const filteredPorts = scan.results.filter(r => r.status === 'FILTERED');
+  const [results, setResults] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingPage, setLoadingPage] = useState(false);
+  const latestRequest = useRef(0);
 
-  const getFilteredResults = () => {
-    switch (activeTab) {
-      case 'open': return openPorts;
-      case 'closed': return closedPorts;
-      case 'filtered': return filteredPorts;
-      default: return scan.results;
+  // Counted by the scanner, so they include ports whose rows were not kept
+  const openCount = scan.openPorts || 0;
+  const closedCount = scan.closedPorts || 0;
+  const filteredCount = scan.filteredPorts || 0;
+
+  // Results are paged by the server; switching tabs starts over from the first page
+  const loadPage = async (tab, after) => {
+    const request = ++latestRequest.current;
+    setLoadingPage(true);
+    try {
+      const response = await scanAPI.getScanPorts(scan.id, { status: TAB_STATUS[tab], after, limit: PAGE_SIZE });
+      if (request !== latestRequest.current) return;
+      const items = response.data.items || [];
+      setResults(previous => (after ? [...previous, ...items] : items));
+      setNextCursor(response.data.nextCursor ?? null);
+    } catch (error) {
+      console.error('Failed to load results:', error);
+    } finally {
+      if (request === latestRequest.current) setLoadingPage(false);
     }
   };
 
+  useEffect(() => {
+    setResults([]);
+    setNextCursor(null);
+    loadPage(activeTab, 0);
+  }, [scan.id, activeTab]);
+
   const getStatusColor = (status) => {
     switch (status) {
       case 'OPEN': return 'text-green-600 bg-green-50';
@@ -195,23 +226,23 @@ const ScanResultsModal = ({ scan, onClose }) => {
             </div>
             <div className="bg-green-50 p-4 rounded-lg">
               <p className="text-sm text-gray-600">Open Ports</p>
-              <p className="text-2xl font-bold text-green-600">{openPorts.length}</p>
+              <p className="text-2xl font-bold text-green-600">{openCount}</p>
               <p className="text-xs text-gray-500">
-                {scan.totalPorts > 0 ? ((openPorts.length / scan.totalPorts) * 100).toFixed(1) : 0}%
+                {scan.totalPorts > 0 ? ((openCount / scan.totalPorts) * 100).toFixed(1) : 0}%
               </p>
             </div>
             <div className="bg-red-50 p-4 rounded-lg">
               <p className="text-sm text-gray-600">Closed Ports</p>
-              <p className="text-2xl font-bold text-red-600">{closedPorts.length}</p>
+              <p className="text-2xl font-bold text-red-600">{closedCount}</p>
               <p className="text-xs text-gray-500">
-                {scan.totalPorts > 0 ? ((closedPorts.length / scan.totalPorts) * 100).toFixed(1) : 0}%
+                {scan.totalPorts > 0 ? ((closedCount / scan.totalPorts) * 100).toFixed(1) : 0}%
               </p>
             </div>
             <div className="bg-orange-50 p-4 rounded-lg">
               <p className="text-sm text-gray-600">Filtered Ports</p>
-              <p className="text-2xl font-bold text-orange-600">{filteredPorts.length}</p>
+              <p className="text-2xl font-bold text-orange-600">{filteredCount}</p>
               <p className="text-xs text-gray-500">
-                {scan.totalPorts > 0 ? ((filteredPorts.length / scan.totalPorts) * 100).toFixed(1) : 0}%
+                {scan.totalPorts > 0 ? ((filteredCount / scan.totalPorts) * 100).toFixed(1) : 0}%
               </p>
             </div>
             <div className="bg-gray-50 p-4 rounded-lg">
@@ -232,7 +263,7 @@ const ScanResultsModal = ({ scan, onClose }) => {
                   : 'border-transparent text-gray-500 hover:text-gray-700'
               }`}
             >
-              All ({scan.results.length})
+              All ({openCount + closedCount + filteredCount})
             </button>
             <button
               onClick={() => setActiveTab('open')}
@@ -242,7 +273,7 @@ const ScanResultsModal = ({ scan, onClose }) => {
                   : 'border-transparent text-gray-500 hover:text-gray-700'
               }`}
             >
-              Open ({openPorts.length})
+              Open ({openCount})
             </button>
             <button
               onClick={() => setActiveTab('closed')}
@@ -252,7 +283,7 @@ const ScanResultsModal = ({ scan, onClose }) => {
                   : 'border-transparent text-gray-500 hover:text-gray-700'
               }`}
             >
-              Closed ({closedPorts.length})
+              Closed ({closedCount})
             </button>
             <button
               onClick={() => setActiveTab('filtered')}
@@ -262,23 +293,28 @@ const ScanResultsModal = ({ scan, onClose }) => {
                   : 'border-transparent text-gray-500 hover:text-gray-700'
               }`}
             >
-              Filtered ({filteredPorts.length})
+              Filtered ({filteredCount})
             </button>
           </div>
 
           {/* Results */}
           <div className="space-y-2">
-            {getFilteredResults().length > 0 ? (
-              getFilteredResults().map((result) => (
-                <div key={result.id} className={`border rounded-lg p-4 ${getStatusColor(result.status)}`}>
+            {results.length > 0 ? (
+              results.map((result) => (
+                <div key={`${result.host}:${result.port}`} className={`border rounded-lg p-4 ${getStatusColor(result.status)}`}>
                   <div className="flex justify-between items-start">
                     <div className="flex-1">
                       <div className="flex items-center space-x-3 mb-2">
                         {getStatusIcon(result.status)}
                         <p className="font-semibold text-lg">Port {result.port}</p>
-                        <span className="px-2 py-1 bg-white rounded text-xs font-medium">
-                          {result.service}
-                        </span>
+                        {result.host !== scan.target && (
+                          <span className="text-xs text-gray-600">{result.host}</span>
+                        )}
+                        {result.service && (
+                          <span className="px-2 py-1 bg-white rounded text-xs font-medium">
+                            {result.service}{result.version && ` ${result.version}`}
+                          </span>
+                        )}
                         <span className="text-xs font-medium uppercase">
                           {result.status}
                         </span>
@@ -288,21 +324,39 @@ const ScanResultsModal = ({ scan, onClose }) => {
                           {result.banner}
                         </pre>
                       )}
+                      {result.tlsProtocol && (
+                        <p className="mt-2 text-xs">
+                          {result.tlsProtocol} {result.tlsCipher}
+                          {result.certSubject && ` · ${result.certSubject}`}
+                          {result.certNotAfter && ` · expires ${new Date(result.certNotAfter).toLocaleDateString()}`}
+                        </p>
+                      )}
                       {result.errorMessage && (
                         <p className="mt-2 text-xs italic">{result.errorMessage}</p>
                       )}
                     </div>
-                    <span className="px-3 py-1 bg-white rounded-full text-xs font-medium ml-4">
-                      {result.responseTime}ms
-                    </span>
+                    {result.responseTime != null && (
+                      <span className="px-3 py-1 bg-white rounded-full text-xs font-medium ml-4">
+                        {result.responseTime}ms
+                      </span>
+                    )}
                   </div>
                 </div>
               ))
-            ) : (
+            ) : !loadingPage && (
               <p className="text-gray-500 text-center py-8">
                 No {activeTab} ports found
               </p>
             )}
+            {nextCursor != null && (
+              <button
+                onClick={() => loadPage(activeTab, nextCursor)}
+                disabled={loadingPage}
+                className="w-full py-2 text-sm font-medium text-blue-600 hover:text-blue-800 disabled:text-gray-400"
+              >
+                {loadingPage ? 'Loading...' : 'Load more'}
+              </button>
+            )}
           </div>
         </div>
       </div>
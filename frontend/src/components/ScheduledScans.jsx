@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { Plus, Play, Pause, Trash2, Edit } from 'lucide-react';
 import { scheduledScanAPI } from '../services/api';
+import { format } from 'date-fns';
 
 const ScheduledScans = () => {
   const [scans, setScans] = useState([]);
@@ -70,10 +71,19 @@ const ScheduledScans = () => {
               <div className="text-sm">
                 <span className="text-gray-600">Ports:</span>
                 <span className="ml-2 text-gray-800">{scan.portRange}</span>
+                {scan.protocol === 'UDP' && <span className="ml-2 text-xs text-blue-700">(UDP)</span>}
               </div>
               <div className="text-sm">
                 <span className="text-gray-600">Schedule:</span>
                 <span className="ml-2 text-gray-800">{scan.cronExpression}</span>
+                {scan.diffMode && <span className="ml-2 text-xs text-blue-700">(changes only)</span>}
+                {scan.verifyOpen && <span className="ml-2 text-xs text-blue-700">(known-open + sweep)</span>}
+              </div>
+              <div className="text-sm">
+                <span className="text-gray-600">Next run:</span>
+                <span className="ml-2 text-gray-800">
+                  {scan.enabled && scan.nextRunAt ? format(new Date(scan.nextRunAt), 'MMM dd, yyyy HH:mm') : '—'}
+                </span>
               </div>
             </div>
 
@@ -118,7 +128,10 @@ const ScheduleModal = ({ scan, onClose, onSave }) => {
     name: scan?.name || '',
     target: scan?.target || '',
     portRange: scan?.portRange || 'common',
+    protocol: (scan?.protocol || 'tcp').toLowerCase(),
     cronExpression: scan?.cronExpression || '0 0 * * *',
+    diffMode: scan?.diffMode || false,
+    verifyOpen: scan?.verifyOpen || false,
   });
 
   const handleSubmit = async (e) => {
@@ -175,6 +188,18 @@ const ScheduleModal = ({ scan, onClose, onSave }) => {
             />
           </div>
 
+          <div>
+            <label className="block text-sm font-medium text-gray-700 mb-1">Protocol</label>
+            <select
+              value={formData.protocol}
+              onChange={(e) => setFormData({ ...formData, protocol: e.target.value })}
+              className="w-full px-3 py-2 border border-gray-300 rounded-lg"
+            >
+              <option value="tcp">TCP (connect)</option>
+              <option value="udp">UDP (DNS, NTP, SNMP, SSDP payloads)</option>
+            </select>
+          </div>
+
           <div>
             <label className="block text-sm font-medium text-gray-700 mb-1">Cron Expression</label>
             <input
@@ -187,6 +212,28 @@ const ScheduleModal = ({ scan, onClose, onSave }) => {
             />
           </div>
 
+          <label className="flex items-center space-x-3">
+            <input
+              type="checkbox"
+              checked={formData.diffMode}
+              onChange={(e) => setFormData({ ...formData, diffMode: e.target.checked })}
+              disabled={formData.verifyOpen}
+              className="w-4 h-4 text-blue-600 border-gray-300 rounded focus:ring-blue-500 disabled:opacity-50"
+            />
+            <span className="text-sm text-gray-700">Store only changes since the previous run</span>
+          </label>
+
+          <label className="flex items-center space-x-3">
+            <input
+              type="checkbox"
+              checked={formData.verifyOpen}
+              onChange={(e) => setFormData({ ...formData, verifyOpen: e.target.checked })}
+              disabled={formData.diffMode}
+              className="w-4 h-4 text-blue-600 border-gray-300 rounded focus:ring-blue-500 disabled:opacity-50"
+            />
+            <span className="text-sm text-gray-700">Re-check open ports, sweep the rest over several runs</span>
+          </label>
+
           <div className="flex space-x-3 pt-4">
             <button
               type="button"
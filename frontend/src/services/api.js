@@ -13,9 +13,10 @@ const api = axios.create({
 export const scanAPI = {
   startScan: (data) => api.post('/scans', data),
   getScanStatus: (jobId) => api.get(`/scans/${jobId}`),
-  getScanResults: (jobId) => api.get(`/scans/${jobId}/results`),
+  getScanPorts: (jobId, params) => api.get(`/scans/${jobId}/ports`, { params }),
   getAllScans: (page = 0, size = 10) => api.get(`/scans?page=${page}&size=${size}`),
   deleteScan: (jobId) => api.delete(`/scans/${jobId}`),
+  cancelScan: (jobId) => api.post(`/scans/${jobId}/cancel`),
 };
 
 export const scheduledScanAPI = {